@@ -0,0 +1,230 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Source of Apex for benchmark.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexBenchmarkInput {
+    /**
+     * Size "small" in chars.
+     */
+    public static final String SIZE_SMALL = "small";
+
+    /**
+     * Size "medium" in chars.
+     */
+    public static final String SIZE_MEDIUM = "medium";
+
+    /**
+     * Size "huge" in chars.
+     */
+    public static final String SIZE_HUGE = "huge";
+
+    /**
+     * Kind "synthetic": generated by random.
+     */
+    public static final String KIND_SYNTHETIC = "synthetic";
+
+    /**
+     * Kind "realistic": sample class repeated.
+     */
+    public static final String KIND_REALISTIC = "realistic";
+
+    /**
+     * Resource of realistic sample.
+     */
+    private static final String REALISTIC_RESOURCE = "AccountService.cls";
+
+    private BlancoApexBenchmarkInput() {
+    }
+
+    /**
+     * Get length of source in chars.
+     *
+     * @param size
+     *            ex. SIZE_SMALL
+     * @return length in chars.
+     */
+    public static int getLength(final String size) {
+        if (SIZE_SMALL.equals(size)) {
+            return 2 * 1024;
+        } else if (SIZE_MEDIUM.equals(size)) {
+            return 64 * 1024;
+        } else if (SIZE_HUGE.equals(size)) {
+            return 4 * 1024 * 1024;
+        }
+        throw new IllegalArgumentException("Unknown size: " + size);
+    }
+
+    /**
+     * Create source.
+     *
+     * @param kind
+     *            ex. KIND_SYNTHETIC
+     * @param size
+     *            ex. SIZE_SMALL
+     * @return source of Apex.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public static String createSource(final String kind, final String size) throws IOException {
+        if (KIND_SYNTHETIC.equals(kind)) {
+            return createSyntheticSource(getLength(size), 20160927L);
+        } else if (KIND_REALISTIC.equals(kind)) {
+            return createRealisticSource(getLength(size));
+        }
+        throw new IllegalArgumentException("Unknown kind: " + kind);
+    }
+
+    /**
+     * Create source of realistic sample repeated up to length.
+     *
+     * @param length
+     *            length in chars at least.
+     * @return source of Apex.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public static String createRealisticSource(final int length) throws IOException {
+        final String sample = readResource(REALISTIC_RESOURCE);
+        final StringBuilder strbuf = new StringBuilder(length + sample.length());
+        while (strbuf.length() < length) {
+            strbuf.append(sample);
+        }
+        return strbuf.toString();
+    }
+
+    /**
+     * Create synthetic source which contains every kind of token.
+     *
+     * @param length
+     *            length in chars at least.
+     * @param seed
+     *            seed of random. Same seed gives same source.
+     * @return source of Apex.
+     */
+    public static String createSyntheticSource(final int length, final long seed) {
+        final Random random = new Random(seed);
+        final String[] words = new String[] { "public", "class", "static", "void", "Integer", "String", "List",
+                "Map", "return", "if", "else", "for", "new", "this", "System", "debug", "accountList",
+                "Opportunity__c", "myVariableName", "i", "x" };
+        final String[] operators = new String[] { "++", "--", "<=", ">=", "==", "!=", "&&", "||", "+=", "-=", "=",
+                "+", "-", "*", ";", ",", ".", "(", ")", "{", "}", "[", "]", "<", ">", "?", ":" };
+        final StringBuilder strbuf = new StringBuilder(length + 256);
+        int indent = 4;
+        while (strbuf.length() < length) {
+            switch (random.nextInt(20)) {
+            case 0:
+                strbuf.append("// single line comment ").append(random.nextInt(1000)).append('\n');
+                break;
+            case 1:
+                strbuf.append("/* multi line\n * comment\n */");
+                break;
+            case 2:
+                strbuf.append("'string literal ").append(random.nextInt(1000)).append(" \\' escaped'");
+                break;
+            case 3:
+                strbuf.append(random.nextInt(100000));
+                break;
+            case 4:
+                strbuf.append(random.nextInt(1000)).append('.').append(random.nextInt(100));
+                break;
+            case 5:
+                strbuf.append(random.nextInt(1000)).append('L');
+                break;
+            case 6:
+                strbuf.append('\n');
+                for (int index = 0; index < indent; index++) {
+                    strbuf.append(' ');
+                }
+                break;
+            case 7:
+            case 8:
+            case 9:
+                strbuf.append(operators[random.nextInt(operators.length)]);
+                break;
+            case 10:
+            case 11:
+                strbuf.append(' ');
+                break;
+            default:
+                strbuf.append(words[random.nextInt(words.length)]);
+                strbuf.append(random.nextBoolean() ? " " : "");
+                break;
+            }
+        }
+        strbuf.append('\n');
+        return strbuf.toString();
+    }
+
+    /**
+     * Write source into temporary file.
+     *
+     * @param source
+     *            source of Apex.
+     * @return temporary file. Deleted on exit.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public static File writeTempFile(final String source) throws IOException {
+        final File file = File.createTempFile("blancoApexParserBenchmark", ".cls");
+        file.deleteOnExit();
+        final OutputStream outStream = new FileOutputStream(file);
+        try {
+            outStream.write(source.getBytes("UTF-8"));
+        } finally {
+            outStream.close();
+        }
+        return file;
+    }
+
+    /**
+     * Read resource as UTF-8.
+     *
+     * @param name
+     *            name of resource.
+     * @return content.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    static String readResource(final String name) throws IOException {
+        final InputStream inStream = BlancoApexBenchmarkInput.class.getResourceAsStream(name);
+        if (inStream == null) {
+            throw new IOException("Resource not found: " + name);
+        }
+        try {
+            final byte[] buf = new byte[8192];
+            final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            for (int iRead = inStream.read(buf); iRead >= 0; iRead = inStream.read(buf)) {
+                outStream.write(buf, 0, iRead);
+            }
+            return new String(outStream.toByteArray(), "UTF-8");
+        } finally {
+            inStream.close();
+        }
+    }
+}
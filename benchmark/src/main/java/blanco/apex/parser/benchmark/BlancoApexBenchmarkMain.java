@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser.benchmark;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run benchmarks with GC profiler, and report bytes allocated per token.
+ *
+ * <p>
+ * Arguments are same as JMH. ex. "BlancoApexParserBenchmark -p size=medium"
+ * </p>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexBenchmarkMain {
+    public static void main(final String[] args) throws Exception {
+        final CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        final Collection<RunResult> results = new Runner(
+                new OptionsBuilder().parent(cmdOptions).addProfiler(GCProfiler.class).build()).run();
+
+        System.out.println();
+        System.out.println("Bytes allocated per token:");
+        for (RunResult lookup : results) {
+            final BenchmarkParams params = lookup.getParams();
+            final Result<?> allocated = findAllocRateNorm(lookup.getSecondaryResults());
+            if (allocated == null) {
+                continue;
+            }
+            final int tokenCount = countTokens(params);
+            System.out.println(String.format("%-70s %10.1f B/token (%d tokens)", toDisplayName(params),
+                    allocated.getScore() / tokenCount, tokenCount));
+        }
+    }
+
+    /**
+     * Find normalized allocation rate. Name differs among versions of JMH.
+     */
+    static Result<?> findAllocRateNorm(final Map<String, Result> secondaryResults) {
+        for (Map.Entry<String, Result> lookup : secondaryResults.entrySet()) {
+            if (lookup.getKey().endsWith("gc.alloc.rate.norm")) {
+                return lookup.getValue();
+            }
+        }
+        return null;
+    }
+
+    static int countTokens(final BenchmarkParams params) throws IOException {
+        final String benchmark = params.getBenchmark();
+        final String method = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+        if (benchmark.startsWith(BlancoApexFocusedBenchmark.class.getName() + ".")) {
+            return BlancoApexFocusedBenchmark.countTokens(method,
+                    Boolean.parseBoolean(params.getParam("combineSpecialChar")));
+        }
+        return BlancoApexParserBenchmark.countTokens(params.getParam("kind"), params.getParam("size"));
+    }
+
+    static String toDisplayName(final BenchmarkParams params) {
+        final StringBuilder strbuf = new StringBuilder();
+        final String benchmark = params.getBenchmark();
+        strbuf.append(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        for (String key : params.getParamsKeys()) {
+            strbuf.append(' ').append(key).append('=').append(params.getParam(key));
+        }
+        return strbuf.toString();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import blanco.apex.parser.BlancoApexLexicalParser;
+import blanco.apex.parser.BlancoApexParserUtil;
+import blanco.apex.parser.BlancoApexTokenWriter;
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Focused benchmarks of parts of lexer: scanning of words, combining of
+ * operators, tokenList2String and token writer. Each runs over medium size
+ * source.
+ *
+ * @author Toshiki Iga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlancoApexFocusedBenchmark {
+    /**
+     * Combine special chars into operators or not.
+     */
+    @Param({ "true", "false" })
+    public boolean combineSpecialChar;
+
+    private String wordSource;
+
+    private String operatorSource;
+
+    private List<BlancoApexToken> tokenList;
+
+    private final BlancoApexTokenWriter tokenWriter = new BlancoApexTokenWriter(
+            BlancoApexTokenWriter.DEFAULT_BUFFER_SIZE);
+
+    /**
+     * Channel which discards bytes, to measure encoding only.
+     */
+    private final WritableByteChannel nullChannel = new WritableByteChannel() {
+        public int write(final ByteBuffer src) {
+            final int length = src.remaining();
+            src.position(src.limit());
+            return length;
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+    };
+
+    @Setup
+    public void setup() throws IOException {
+        wordSource = createWordSource();
+        operatorSource = createOperatorSource();
+        tokenList = new BlancoApexLexicalParser().parse(BlancoApexBenchmarkInput.createSource(
+                BlancoApexBenchmarkInput.KIND_REALISTIC, BlancoApexBenchmarkInput.SIZE_MEDIUM));
+    }
+
+    /**
+     * Words separated by single space. Measures scanning of words.
+     */
+    @Benchmark
+    public List<BlancoApexToken> scanWords() throws IOException {
+        final BlancoApexLexicalParser parser = new BlancoApexLexicalParser();
+        parser.setCombineSpecialChar(combineSpecialChar);
+        return parser.parse(wordSource);
+    }
+
+    /**
+     * Operators only. Measures combining of special chars.
+     */
+    @Benchmark
+    public List<BlancoApexToken> combineOperators() throws IOException {
+        final BlancoApexLexicalParser parser = new BlancoApexLexicalParser();
+        parser.setCombineSpecialChar(combineSpecialChar);
+        return parser.parse(operatorSource);
+    }
+
+    @Benchmark
+    public String tokenList2String() {
+        return BlancoApexParserUtil.tokenList2String(tokenList);
+    }
+
+    /**
+     * Streaming UTF-8 write of same tokens as tokenList2String.
+     */
+    @Benchmark
+    public void tokenWriter() throws IOException {
+        tokenWriter.reset(nullChannel);
+        tokenWriter.write(tokenList);
+        tokenWriter.flush();
+    }
+
+    /**
+     * Count tokens of each benchmark, to report allocation per token.
+     *
+     * @param benchmark
+     *            name of benchmark method.
+     * @param combineSpecialChar
+     *            parameter of benchmark.
+     * @return count of tokens.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public static int countTokens(final String benchmark, final boolean combineSpecialChar) throws IOException {
+        final BlancoApexLexicalParser parser = new BlancoApexLexicalParser();
+        parser.setCombineSpecialChar(combineSpecialChar);
+        if ("scanWords".equals(benchmark)) {
+            return parser.parse(createWordSource()).size();
+        } else if ("combineOperators".equals(benchmark)) {
+            return parser.parse(createOperatorSource()).size();
+        }
+        return new BlancoApexLexicalParser().parse(BlancoApexBenchmarkInput
+                .createSource(BlancoApexBenchmarkInput.KIND_REALISTIC, BlancoApexBenchmarkInput.SIZE_MEDIUM)).size();
+    }
+
+    static String createWordSource() {
+        final String[] words = new String[] { "public", "accountList", "Opportunity__c", "i", "System",
+                "myVeryLongVariableNameForBenchmark", "x1" };
+        final int length = BlancoApexBenchmarkInput.getLength(BlancoApexBenchmarkInput.SIZE_MEDIUM);
+        final StringBuilder strbuf = new StringBuilder(length + 64);
+        for (int index = 0; strbuf.length() < length; index++) {
+            strbuf.append(words[index % words.length]).append(' ');
+        }
+        return strbuf.toString();
+    }
+
+    static String createOperatorSource() {
+        final String[] operators = new String[] { "++", "<=", "==", "!=", "&&", "||", "+=", ">>>=", "=>", "(", ")",
+                ";", "?.", "!", "-" };
+        final int length = BlancoApexBenchmarkInput.getLength(BlancoApexBenchmarkInput.SIZE_MEDIUM);
+        final StringBuilder strbuf = new StringBuilder(length + 64);
+        for (int index = 0; strbuf.length() < length; index++) {
+            strbuf.append(operators[index % operators.length]).append(' ');
+        }
+        return strbuf.toString();
+    }
+}
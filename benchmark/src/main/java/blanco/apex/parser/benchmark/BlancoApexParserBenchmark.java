@@ -0,0 +1,215 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import blanco.apex.parser.BlancoApexLexicalParser;
+import blanco.apex.parser.BlancoApexParser;
+import blanco.apex.parser.BlancoApexParserOptions;
+import blanco.apex.parser.BlancoApexTokenBuffer;
+import blanco.apex.parser.BlancoApexTokenCache;
+import blanco.apex.parser.BlancoApexTokenHandler;
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Throughput of whole parsing: lexical parser versus facade, String versus
+ * File, lexing versus hit of token cache, for each kind and size of source.
+ *
+ * @author Toshiki Iga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlancoApexParserBenchmark {
+    /**
+     * Kind of source.
+     */
+    @Param({ BlancoApexBenchmarkInput.KIND_SYNTHETIC, BlancoApexBenchmarkInput.KIND_REALISTIC })
+    public String kind;
+
+    /**
+     * Size of source.
+     */
+    @Param({ BlancoApexBenchmarkInput.SIZE_SMALL, BlancoApexBenchmarkInput.SIZE_MEDIUM,
+            BlancoApexBenchmarkInput.SIZE_HUGE })
+    public String size;
+
+    private String source;
+
+    private char[] sourceChars;
+
+    private File file;
+
+    private BlancoApexParserOptions mappedOptions;
+
+    private File cacheDir;
+
+    private BlancoApexParserOptions cacheOptions;
+
+    @Setup
+    public void setup() throws IOException {
+        source = BlancoApexBenchmarkInput.createSource(kind, size);
+        sourceChars = source.toCharArray();
+        file = BlancoApexBenchmarkInput.writeTempFile(source);
+        mappedOptions = new BlancoApexParserOptions();
+        mappedOptions.setMemoryMapped(true);
+
+        cacheDir = File.createTempFile("blancoApexParserBenchmark", ".cache");
+        cacheDir.delete();
+        cacheOptions = new BlancoApexParserOptions();
+        cacheOptions.setTokenCache(new BlancoApexTokenCache(cacheDir, 1024L * 1024 * 1024));
+        // store the entry, so each call of benchmark is a hit.
+        new BlancoApexParser().parseTokenBuffer(file, cacheOptions);
+    }
+
+    @TearDown
+    public void tearDown() {
+        final File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File lookup : files) {
+                lookup.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    @Benchmark
+    public List<BlancoApexToken> lexicalParserString() throws IOException {
+        return new BlancoApexLexicalParser().parse(source);
+    }
+
+    @Benchmark
+    public List<BlancoApexToken> lexicalParserFile() throws IOException {
+        return new BlancoApexLexicalParser().parse(file);
+    }
+
+    @Benchmark
+    public List<BlancoApexToken> parserString() throws IOException {
+        return new BlancoApexParser().parse(source);
+    }
+
+    @Benchmark
+    public List<BlancoApexToken> parserFile() throws IOException {
+        return new BlancoApexParser().parse(file);
+    }
+
+    @Benchmark
+    public List<BlancoApexToken> parserFileMapped() throws IOException {
+        return new BlancoApexParser().parse(file, mappedOptions);
+    }
+
+    @Benchmark
+    public BlancoApexTokenBuffer parserTokenBuffer() {
+        return new BlancoApexParser().parseTokenBuffer(source);
+    }
+
+    /**
+     * Read and lex file into token buffer. Baseline of
+     * parserTokenBufferCacheHit.
+     */
+    @Benchmark
+    public BlancoApexTokenBuffer parserTokenBufferFile() throws IOException {
+        return new BlancoApexParser().parseTokenBuffer(file);
+    }
+
+    /**
+     * Read and hash file, then load token buffer from the token cache.
+     */
+    @Benchmark
+    public BlancoApexTokenBuffer parserTokenBufferCacheHit() throws IOException {
+        return new BlancoApexParser().parseTokenBuffer(file, cacheOptions);
+    }
+
+    @Benchmark
+    public void lexicalParserHandler(final Blackhole blackhole) {
+        new BlancoApexLexicalParser().parse(sourceChars, 0, sourceChars.length, new BlackholeHandler(blackhole));
+    }
+
+    /**
+     * Count tokens of source, to report allocation per token.
+     *
+     * @param kind
+     *            kind of source.
+     * @param size
+     *            size of source.
+     * @return count of tokens.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public static int countTokens(final String kind, final String size) throws IOException {
+        return new BlancoApexParser().parseTokenBuffer(BlancoApexBenchmarkInput.createSource(kind, size)).size();
+    }
+
+    /**
+     * Handler which consumes every token.
+     */
+    static class BlackholeHandler implements BlancoApexTokenHandler {
+        private final Blackhole blackhole;
+
+        BlackholeHandler(final Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        public void onWord(final CharSequence text, final int offset, final int length, final int lineNumber) {
+            blackhole.consume(offset);
+        }
+
+        public void onLiteral(final CharSequence text, final int subType, final int offset, final int length,
+                final int lineNumber) {
+            blackhole.consume(offset);
+        }
+
+        public void onComment(final CharSequence text, final int subType, final int offset, final int length,
+                final int lineNumber) {
+            blackhole.consume(offset);
+        }
+
+        public void onSpecialChar(final CharSequence text, final int offset, final int length,
+                final int lineNumber) {
+            blackhole.consume(offset);
+        }
+
+        public void onWhitespace(final CharSequence text, final int offset, final int length,
+                final int lineNumber) {
+            blackhole.consume(offset);
+        }
+
+        public void onNewline(final CharSequence text, final int offset, final int length, final int lineNumber) {
+            blackhole.consume(offset);
+        }
+    }
+}
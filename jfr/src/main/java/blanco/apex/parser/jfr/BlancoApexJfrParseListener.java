@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser.jfr;
+
+import java.io.File;
+
+import jdk.jfr.EventType;
+
+import blanco.apex.parser.BlancoApexParseListener;
+import blanco.apex.parser.BlancoApexParseMetrics;
+
+/**
+ * Listener of parsing which emits JFR events.
+ * 
+ * <p>
+ * Both events are disabled by default. While JFR is not recording them, and
+ * next listener is not enabled, {@link #isEnabled()} returns false and the
+ * parser runs without measuring at all.
+ * </p>
+ * 
+ * <p>
+ * Useage:
+ * </p>
+ * 
+ * <code>
+ * BlancoApexParserOptions options = new BlancoApexParserOptions();<br>
+ * options.setParseListener(new BlancoApexJfrParseListener());<br>
+ * List&lt;BlancoApexToken&gt; result = new BlancoApexParser().parse(file, options);
+ * </code>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexJfrParseListener implements BlancoApexParseListener {
+    /**
+     * Default threshold of slow phase: 10 milli seconds.
+     */
+    public static final long DEFAULT_SLOW_PHASE_NANOS = 10L * 1000 * 1000;
+
+    /**
+     * Type of parse event.
+     */
+    private static final EventType PARSE_EVENT_TYPE = EventType.getEventType(BlancoApexParseEvent.class);
+
+    /**
+     * Type of phase event.
+     */
+    private static final EventType PHASE_EVENT_TYPE = EventType.getEventType(BlancoApexParsePhaseEvent.class);
+
+    /**
+     * Event of file being parsed on each thread.
+     */
+    private final ThreadLocal<BlancoApexParseEvent> currentEvent = new ThreadLocal<BlancoApexParseEvent>();
+
+    /**
+     * Listener called after events. null if none.
+     */
+    private final BlancoApexParseListener nextListener;
+
+    /**
+     * Threshold of slow phase in nano seconds.
+     */
+    private final long slowPhaseNanos;
+
+    /**
+     * Constructor.
+     */
+    public BlancoApexJfrParseListener() {
+        this(null, DEFAULT_SLOW_PHASE_NANOS);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param nextListener
+     *            listener called after events, ex.
+     *            BlancoApexParseMetricsAggregator. null if none.
+     * @param slowPhaseNanos
+     *            phase longer than this emits BlancoApexParsePhaseEvent.
+     */
+    public BlancoApexJfrParseListener(final BlancoApexParseListener nextListener, final long slowPhaseNanos) {
+        this.nextListener = nextListener;
+        this.slowPhaseNanos = slowPhaseNanos;
+    }
+
+    public boolean isEnabled() {
+        return PARSE_EVENT_TYPE.isEnabled() || PHASE_EVENT_TYPE.isEnabled()
+                || (nextListener != null && nextListener.isEnabled());
+    }
+
+    public void onParseStart(final File file) {
+        final BlancoApexParseEvent event = new BlancoApexParseEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            currentEvent.set(event);
+        }
+        if (nextListener != null) {
+            nextListener.onParseStart(file);
+        }
+    }
+
+    public void onParse(final BlancoApexParseMetrics metrics) {
+        final BlancoApexParseEvent event = currentEvent.get();
+        if (event != null) {
+            currentEvent.remove();
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = getPath(metrics.getFile());
+                event.byteSize = metrics.getBytesRead();
+                event.tokenCount = metrics.getTokenCount();
+                event.commit();
+            }
+        }
+
+        commitSlowPhase(metrics, "read", metrics.getReadNanos());
+        commitSlowPhase(metrics, "lex", metrics.getLexNanos());
+        commitSlowPhase(metrics, "build", metrics.getBuildNanos());
+
+        if (nextListener != null) {
+            nextListener.onParse(metrics);
+        }
+    }
+
+    /**
+     * Emit event of phase if it is slow.
+     * 
+     * @param metrics
+     *            metrics of file.
+     * @param phase
+     *            name of phase.
+     * @param nanos
+     *            time of phase.
+     */
+    private void commitSlowPhase(final BlancoApexParseMetrics metrics, final String phase, final long nanos) {
+        if (nanos < slowPhaseNanos) {
+            return;
+        }
+        final BlancoApexParsePhaseEvent event = new BlancoApexParsePhaseEvent();
+        if (event.shouldCommit()) {
+            event.path = getPath(metrics.getFile());
+            event.phase = phase;
+            event.phaseDuration = nanos;
+            event.commit();
+        }
+    }
+
+    private static String getPath(final File file) {
+        return file == null ? null : file.getPath();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of parsing of one file. Duration of event is from start of
+ * reading to end of parsing.
+ * 
+ * <p>
+ * Disabled by default. Enable by JFR settings, ex.
+ * "-XX:StartFlightRecording:blanco.apex.parser.Parse#enabled=true" on JDK 17
+ * or later, or by a .jfc file.
+ * </p>
+ * 
+ * @author Toshiki Iga
+ */
+@Name(BlancoApexParseEvent.NAME)
+@Label("Apex Parse")
+@Description("Parsing of one Apex source file")
+@Category("blancoApexParser")
+@Enabled(false)
+@StackTrace(false)
+public class BlancoApexParseEvent extends Event {
+    /**
+     * Name of event.
+     */
+    public static final String NAME = "blanco.apex.parser.Parse";
+
+    @Label("Path")
+    String path;
+
+    @Label("Byte Size")
+    @DataAmount
+    long byteSize;
+
+    @Label("Token Count")
+    int tokenCount;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of a slow phase of parsing. Emitted when a phase takes longer than
+ * threshold of {@link BlancoApexJfrParseListener}.
+ * 
+ * <p>
+ * Phases are measured before the event is created, so length of phase is in
+ * field "Phase Duration", and the event itself is instant at end of parsing.
+ * Disabled by default like {@link BlancoApexParseEvent}.
+ * </p>
+ * 
+ * @author Toshiki Iga
+ */
+@Name(BlancoApexParsePhaseEvent.NAME)
+@Label("Apex Parse Phase")
+@Description("Slow phase of parsing of one Apex source file")
+@Category("blancoApexParser")
+@Enabled(false)
+@StackTrace(false)
+public class BlancoApexParsePhaseEvent extends Event {
+    /**
+     * Name of event.
+     */
+    public static final String NAME = "blanco.apex.parser.ParsePhase";
+
+    @Label("Path")
+    String path;
+
+    @Label("Phase")
+    @Description("read, lex or build")
+    String phase;
+
+    @Label("Phase Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long phaseDuration;
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+
+import blanco.apex.parser.BlancoApexParseMetricsAggregator;
+import blanco.apex.parser.BlancoApexParser;
+import blanco.apex.parser.BlancoApexParserOptions;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * JFR events of parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexJfrParseListenerTest {
+    @Test
+    public void test001() throws Exception {
+        final File source = new File("../test/data/apex/MySimpleTest.cls");
+        final BlancoApexParseMetricsAggregator aggregator = new BlancoApexParseMetricsAggregator();
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        // every phase is slow.
+        options.setParseListener(new BlancoApexJfrParseListener(aggregator, 0));
+
+        // not recorded. parser skips measuring unless next listener is set.
+        assertFalse(new BlancoApexJfrParseListener().isEnabled());
+        new BlancoApexParser().parse(source, options);
+
+        final Path dump = Files.createTempFile("blancoApexParser", ".jfr");
+        try {
+            final Recording recording = new Recording();
+            recording.enable(BlancoApexParseEvent.NAME);
+            recording.enable(BlancoApexParsePhaseEvent.NAME);
+            recording.start();
+            assertTrue(new BlancoApexJfrParseListener().isEnabled());
+            final int tokenCount = new BlancoApexParser().parse(source, options).size();
+            recording.stop();
+            recording.dump(dump);
+            recording.close();
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            int phaseCount = 0;
+            int parseCount = 0;
+            for (RecordedEvent lookup : events) {
+                if (BlancoApexParseEvent.NAME.equals(lookup.getEventType().getName())) {
+                    parseCount++;
+                    assertEquals(source.getPath(), lookup.getString("path"));
+                    assertEquals(source.length(), lookup.getLong("byteSize"));
+                    assertEquals(tokenCount, lookup.getInt("tokenCount"));
+                    assertTrue(lookup.getDuration().toNanos() > 0);
+                } else if (BlancoApexParsePhaseEvent.NAME.equals(lookup.getEventType().getName())) {
+                    phaseCount++;
+                }
+            }
+            assertEquals(1, parseCount);
+            assertEquals(3, phaseCount);
+            // next listener is called always.
+            assertEquals(2, aggregator.getFileCount());
+        } finally {
+            Files.delete(dump);
+        }
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Reader of binary token format written by
+ * {@link BlancoApexBinaryTokenWriter}.
+ *
+ * <p>
+ * Reader works directly over ByteBuffer, like a memory mapped file. Tokens are
+ * decoded one by one as the cursor moves, and each string of string table is
+ * decoded on first call of {@link #getValue()}. Moving the cursor never
+ * touches the string table. Position and byte order of the given buffer are
+ * not changed. Broken or truncated data throws IOException.
+ * </p>
+ *
+ * <p>
+ * Useage:
+ * </p>
+ *
+ * <code>
+ * BlancoApexBinaryTokenReader reader = new BlancoApexBinaryTokenReader(byteBuffer);<br>
+ * while (reader.next()) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;if (reader.getKind() == BlancoApexLexicalScanner.KIND_WORD) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;... reader.getValue() ...<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;}<br>
+ * }
+ * </code>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexBinaryTokenReader {
+    /**
+     * Buffer of binary token format, in big endian.
+     */
+    protected final ByteBuffer byteBuffer;
+
+    /**
+     * Count of tokens.
+     */
+    protected final int tokenCount;
+
+    /**
+     * Count of strings.
+     */
+    protected final int stringCount;
+
+    /**
+     * Start of token section in buffer.
+     */
+    protected final int tokenSectionStart;
+
+    /**
+     * Start of string table in buffer.
+     */
+    protected final int stringSectionStart;
+
+    /**
+     * Position of each string in buffer. Created on first use.
+     */
+    private int[] stringPositions = null;
+
+    /**
+     * Decoded strings.
+     */
+    private String[] strings = null;
+
+    /**
+     * Position of next token in buffer.
+     */
+    private int pos;
+
+    /**
+     * Index of current token. -1 before first token.
+     */
+    private int tokenIndex;
+
+    /**
+     * Kind of current token.
+     */
+    private int kind;
+
+    /**
+     * Sub type of current token.
+     */
+    private int subType;
+
+    /**
+     * String index of current token.
+     */
+    private int stringIndex;
+
+    /**
+     * Line number of current token.
+     */
+    private int lineNumber;
+
+    /**
+     * Column of current token. -1 if unknown.
+     */
+    private int column;
+
+    /**
+     * Offset of current token in source.
+     */
+    private int offset;
+
+    /**
+     * Length of current token.
+     */
+    private int length;
+
+    /**
+     * Constructor.
+     *
+     * @param byteBuffer
+     *            binary token format from position to limit.
+     * @throws IOException
+     *             not a binary token format, or unsupported version.
+     */
+    public BlancoApexBinaryTokenReader(final ByteBuffer byteBuffer) throws IOException {
+        // header is big endian whatever the order of given buffer.
+        this.byteBuffer = byteBuffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        final int start = byteBuffer.position();
+        if (this.byteBuffer.limit() - start < BlancoApexBinaryTokenWriter.HEADER_SIZE
+                || this.byteBuffer.getInt(start) != BlancoApexBinaryTokenWriter.MAGIC) {
+            throw new IOException("Not a binary token format.");
+        }
+        final int formatVersion = this.byteBuffer.getInt(start + 4);
+        if (formatVersion != BlancoApexBinaryTokenWriter.FORMAT_VERSION) {
+            throw new IOException("Unsupported version of binary token format: " + formatVersion);
+        }
+        tokenCount = this.byteBuffer.getInt(start + 8);
+        stringCount = this.byteBuffer.getInt(start + 12);
+        tokenSectionStart = start + BlancoApexBinaryTokenWriter.HEADER_SIZE;
+        final int tokenSectionSize = this.byteBuffer.getInt(start + 16);
+        stringSectionStart = tokenSectionStart + tokenSectionSize;
+        if (tokenCount < 0 || stringCount < 0 || tokenSectionSize < 0
+                || tokenSectionSize > this.byteBuffer.limit() - tokenSectionStart) {
+            throw new IOException("Broken header of binary token format.");
+        }
+        reset();
+    }
+
+    /**
+     * Move cursor before first token.
+     */
+    public void reset() {
+        pos = tokenSectionStart;
+        tokenIndex = -1;
+        lineNumber = 0;
+        offset = 0;
+        length = 0;
+    }
+
+    /**
+     * Get count of tokens.
+     *
+     * @return count of tokens.
+     */
+    public int size() {
+        return tokenCount;
+    }
+
+    /**
+     * Move cursor to next token.
+     *
+     * @return true:moved, false:no more token.
+     * @throws IOException
+     *             token section is broken or truncated.
+     */
+    public boolean next() throws IOException {
+        if (tokenIndex + 1 >= tokenCount) {
+            return false;
+        }
+        tokenIndex++;
+
+        if (pos >= stringSectionStart) {
+            throw new IOException("Token section is truncated at token: " + tokenIndex);
+        }
+        final int kindSubType = byteBuffer.get(pos++) & 0xff;
+        kind = kindSubType >>> 4;
+        subType = kindSubType & 0x0f;
+        stringIndex = readVarint(stringSectionStart);
+        // offset is delta from end of previous token.
+        offset += length;
+        length = readVarint(stringSectionStart);
+        final int offsetZigzag = readVarint(stringSectionStart);
+        offset += (offsetZigzag >>> 1) ^ -(offsetZigzag & 1);
+        final int zigzag = readVarint(stringSectionStart);
+        lineNumber += (zigzag >>> 1) ^ -(zigzag & 1);
+        column = readVarint(stringSectionStart) - 1;
+        if (stringIndex >= stringCount || offset < 0 || length < 0) {
+            throw new IOException("Broken token at: " + tokenIndex);
+        }
+        return true;
+    }
+
+    /**
+     * Get index of current token.
+     *
+     * @return index of token.
+     */
+    public int getTokenIndex() {
+        return tokenIndex;
+    }
+
+    /**
+     * Get kind of current token.
+     *
+     * @return kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * Get sub type of current token.
+     *
+     * @return sub type of token. ex. BlancoApexLexicalScanner.SUBTYPE_STRING
+     */
+    public int getSubType() {
+        return subType;
+    }
+
+    /**
+     * Get line number of current token.
+     *
+     * @return line number.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Get column of current token.
+     *
+     * @return column (1 origin). -1 if unknown.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Get offset of current token in source.
+     *
+     * @return offset in source.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get length of current token.
+     *
+     * @return length of token.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Get value of current token. Same string is shared by tokens of same
+     * value.
+     *
+     * @return value of token.
+     * @throws IOException
+     *             string table is broken or truncated.
+     */
+    public String getValue() throws IOException {
+        if (strings == null) {
+            indexStrings();
+        }
+        String result = strings[stringIndex];
+        if (result == null) {
+            result = decodeString(stringPositions[stringIndex]);
+            strings[stringIndex] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Create token object of current token.
+     *
+     * @return new token object.
+     * @throws IOException
+     *             binary token format is broken.
+     */
+    public BlancoApexToken getToken() throws IOException {
+        final BlancoApexToken token = BlancoApexParserUtil.createToken(kind, subType, getValue(), lineNumber);
+        token.setStartOffset(offset);
+        token.setEndOffset(offset + getLength());
+        token.setColumn(column);
+        return token;
+    }
+
+    /**
+     * Read all tokens from first token.
+     *
+     * @return List of token.
+     * @throws IOException
+     *             binary token format is broken.
+     */
+    public List<BlancoApexToken> readTokenList() throws IOException {
+        reset();
+        final List<BlancoApexToken> result = new ArrayList<BlancoApexToken>(tokenCount);
+        while (next()) {
+            result.add(getToken());
+        }
+        return result;
+    }
+
+    /**
+     * Read all tokens from first token into columnar token buffer. Source is
+     * rebuilt from values of tokens at their offsets. Gaps between tokens,
+     * like trivia dropped from a filtered list, are filled with spaces.
+     *
+     * @return token buffer.
+     * @throws IOException
+     *             binary token format is broken.
+     */
+    public BlancoApexTokenBuffer readTokenBuffer() throws IOException {
+        reset();
+        int sourceLength = 0;
+        while (next()) {
+            sourceLength = Math.max(sourceLength, offset + length);
+        }
+        final char[] source = new char[sourceLength];
+        Arrays.fill(source, ' ');
+
+        reset();
+        final BlancoApexTokenBuffer tokenBuffer = new BlancoApexTokenBuffer(source, tokenCount);
+        while (next()) {
+            final String value = getValue();
+            if (value.length() != length) {
+                throw new IOException("Length does not match value at token: " + tokenIndex);
+            }
+            value.getChars(0, length, source, offset);
+            tokenBuffer.add(kind, subType, offset, length, lineNumber, column);
+        }
+        return tokenBuffer;
+    }
+
+    /**
+     * Find position of each string in string table. Strings are not decoded
+     * here.
+     *
+     * @throws IOException
+     *             string table is truncated.
+     */
+    private void indexStrings() throws IOException {
+        final int[] positions = new int[stringCount];
+        final int savedPos = pos;
+        pos = stringSectionStart;
+        try {
+            for (int stringNo = 0; stringNo < stringCount; stringNo++) {
+                positions[stringNo] = pos;
+                // skip length and bytes.
+                final int byteLength = readVarint(byteBuffer.limit());
+                if (byteLength > byteBuffer.limit() - pos) {
+                    throw new IOException("String table is truncated at string: " + stringNo);
+                }
+                pos += byteLength;
+            }
+        } finally {
+            pos = savedPos;
+        }
+        stringPositions = positions;
+        strings = new String[stringCount];
+    }
+
+    /**
+     * Decode string at position.
+     *
+     * @param position
+     *            position of string in buffer.
+     * @return decoded string.
+     * @throws IOException
+     *             string is broken.
+     */
+    private String decodeString(final int position) throws IOException {
+        final int savedPos = pos;
+        pos = position;
+        try {
+            // bounds were checked by indexStrings.
+            final int end = readVarint(byteBuffer.limit()) + pos;
+            final char[] buf = new char[end - pos];
+            int charLength = 0;
+            while (pos < end) {
+                buf[charLength++] = (char) readVarint(end);
+            }
+            return new String(buf, 0, charLength);
+        } finally {
+            pos = savedPos;
+        }
+    }
+
+    /**
+     * Read unsigned varint at cursor.
+     *
+     * @param limit
+     *            end of section which varint must be in.
+     * @return value.
+     * @throws IOException
+     *             varint runs over the limit or is too long.
+     */
+    private int readVarint(final int limit) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (pos >= limit) {
+                throw new IOException("Binary token format is truncated at: " + pos);
+            }
+            final int bRead = byteBuffer.get(pos++);
+            result |= (bRead & 0x7f) << shift;
+            if (bRead >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Broken varint at: " + pos);
+    }
+}
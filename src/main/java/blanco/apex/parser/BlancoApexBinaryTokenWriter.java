@@ -0,0 +1,279 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Writer of binary token format.
+ *
+ * <p>
+ * Format (version 3). All ints in header are big endian. varint is unsigned
+ * LEB128.
+ * </p>
+ *
+ * <pre>
+ * header:
+ *   int magic "BATK"
+ *   int format version
+ *   int count of tokens
+ *   int count of strings
+ *   int length of token section in bytes
+ * token section, for each token:
+ *   byte   kind &lt;&lt; 4 | sub type
+ *   varint index of value in string table
+ *   varint length of value in chars
+ *   varint start offset delta from end of previous token (zigzag)
+ *   varint line number delta from previous token (zigzag)
+ *   varint column + 1 (0 if unknown)
+ * string table, for each distinct value in order of first use:
+ *   varint length in bytes
+ *   varint of each char
+ * </pre>
+ *
+ * <p>
+ * Length and offset are written in each token, so reader moves the cursor
+ * without touching the string table. Offset delta is 0 for contiguous tokens,
+ * and stays correct for filtered lists like
+ * {@link BlancoApexTokenBuffer#getSignificantTokenList()}. Chars are written
+ * one by one as varint, so any String including lone surrogate is kept as
+ * is.
+ * </p>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexBinaryTokenWriter {
+    /**
+     * Magic number "BATK".
+     */
+    public static final int MAGIC = 0x4241544b;
+
+    /**
+     * Version of format.
+     */
+    public static final int FORMAT_VERSION = 3;
+
+    /**
+     * Size of header in bytes.
+     */
+    public static final int HEADER_SIZE = 20;
+
+    /**
+     * Token section.
+     */
+    private final ByteArrayOutputStream tokenSection = new ByteArrayOutputStream();
+
+    /**
+     * String table section.
+     */
+    private final ByteArrayOutputStream stringSection = new ByteArrayOutputStream();
+
+    /**
+     * Index of each string in string table.
+     */
+    private final Map<String, Integer> stringIndexMap = new HashMap<String, Integer>();
+
+    /**
+     * Count of tokens.
+     */
+    private int tokenCount = 0;
+
+    /**
+     * Line number of previous token.
+     */
+    private int previousLineNumber = 0;
+
+    /**
+     * End offset of previous token.
+     */
+    private int previousEndOffset = 0;
+
+    /**
+     * Write list of tokens into bytes.
+     *
+     * @param tokenList
+     *            List of token.
+     * @return bytes of binary token format.
+     */
+    public static byte[] toByteArray(final List<BlancoApexToken> tokenList) {
+        final BlancoApexBinaryTokenWriter writer = new BlancoApexBinaryTokenWriter();
+        for (BlancoApexToken lookup : tokenList) {
+            writer.add(BlancoApexParserUtil.getKind(lookup), BlancoApexParserUtil.getSubType(lookup),
+                    lookup.getValue(), lookup.getStartOffset(), lookup.getLineNumber(), lookup.getColumn());
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Write token buffer into bytes.
+     *
+     * @param tokenBuffer
+     *            token buffer.
+     * @return bytes of binary token format.
+     */
+    public static byte[] toByteArray(final BlancoApexTokenBuffer tokenBuffer) {
+        final BlancoApexBinaryTokenWriter writer = new BlancoApexBinaryTokenWriter();
+        for (int index = 0; index < tokenBuffer.size(); index++) {
+            writer.add(tokenBuffer.kinds[index], tokenBuffer.subTypes[index], tokenBuffer.getValue(index),
+                    tokenBuffer.starts[index], tokenBuffer.lineNumbers[index], tokenBuffer.columns[index]);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Add token which follows previous token.
+     *
+     * @param kind
+     *            kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     * @param subType
+     *            sub type of token. ex. BlancoApexLexicalScanner.SUBTYPE_STRING
+     * @param value
+     *            value of token.
+     * @param lineNumber
+     *            line number of token.
+     * @param column
+     *            column of token. -1 if unknown.
+     */
+    public void add(final int kind, final int subType, final String value, final int lineNumber,
+            final int column) {
+        add(kind, subType, value, -1, lineNumber, column);
+    }
+
+    /**
+     * Add token.
+     *
+     * @param kind
+     *            kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     * @param subType
+     *            sub type of token. ex. BlancoApexLexicalScanner.SUBTYPE_STRING
+     * @param value
+     *            value of token.
+     * @param startOffset
+     *            start offset of token in source. -1 if it follows previous
+     *            token.
+     * @param lineNumber
+     *            line number of token.
+     * @param column
+     *            column of token. -1 if unknown.
+     */
+    public void add(final int kind, final int subType, final String value, final int startOffset,
+            final int lineNumber, final int column) {
+        Integer stringIndex = stringIndexMap.get(value);
+        if (stringIndex == null) {
+            stringIndex = stringIndexMap.size();
+            stringIndexMap.put(value, stringIndex);
+
+            int byteLength = 0;
+            for (int index = 0; index < value.length(); index++) {
+                final char cLookup = value.charAt(index);
+                byteLength += cLookup < 0x80 ? 1 : (cLookup < 0x4000 ? 2 : 3);
+            }
+            writeVarint(stringSection, byteLength);
+            for (int index = 0; index < value.length(); index++) {
+                writeVarint(stringSection, value.charAt(index));
+            }
+        }
+
+        tokenSection.write((kind << 4) | subType);
+        writeVarint(tokenSection, stringIndex);
+        writeVarint(tokenSection, value.length());
+        final int offset = startOffset < 0 ? previousEndOffset : startOffset;
+        final int offsetDelta = offset - previousEndOffset;
+        writeVarint(tokenSection, (offsetDelta << 1) ^ (offsetDelta >> 31));
+        previousEndOffset = offset + value.length();
+        final int lineDelta = lineNumber - previousLineNumber;
+        writeVarint(tokenSection, (lineDelta << 1) ^ (lineDelta >> 31));
+        previousLineNumber = lineNumber;
+        writeVarint(tokenSection, column + 1);
+        tokenCount++;
+    }
+
+    /**
+     * Write added tokens into stream.
+     *
+     * @param outStream
+     *            stream to write. This is not closed here.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void writeTo(final OutputStream outStream) throws IOException {
+        writeInt(outStream, MAGIC);
+        writeInt(outStream, FORMAT_VERSION);
+        writeInt(outStream, tokenCount);
+        writeInt(outStream, stringIndexMap.size());
+        writeInt(outStream, tokenSection.size());
+        tokenSection.writeTo(outStream);
+        stringSection.writeTo(outStream);
+    }
+
+    /**
+     * Write added tokens into bytes.
+     *
+     * @return bytes of binary token format.
+     */
+    public byte[] toByteArray() {
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream(
+                HEADER_SIZE + tokenSection.size() + stringSection.size());
+        try {
+            writeTo(outStream);
+        } catch (IOException ex) {
+            // never happens on ByteArrayOutputStream.
+            throw new IllegalStateException("Unexpected I/O Exception: " + ex.toString(), ex);
+        }
+        return outStream.toByteArray();
+    }
+
+    /**
+     * Write big endian int.
+     *
+     * @param outStream
+     *            stream to write.
+     * @param value
+     *            value.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    static void writeInt(final OutputStream outStream, final int value) throws IOException {
+        outStream.write(value >>> 24);
+        outStream.write(value >>> 16);
+        outStream.write(value >>> 8);
+        outStream.write(value);
+    }
+
+    /**
+     * Write unsigned varint.
+     *
+     * @param outStream
+     *            stream to write.
+     * @param value
+     *            value treated as unsigned.
+     */
+    static void writeVarint(final ByteArrayOutputStream outStream, final int value) {
+        int rest = value;
+        while ((rest & ~0x7f) != 0) {
+            outStream.write((rest & 0x7f) | 0x80);
+            rest >>>= 7;
+        }
+        outStream.write(rest);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+/**
+ * CharSequence view of a range of char array. No char is copied.
+ *
+ * <p>
+ * The range can be moved by {@link #set(char[], int, int)}, so one instance
+ * can be reused as a window over many tokens. Call {@link #toString()} to keep
+ * the chars.
+ * </p>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexCharArraySequence implements CharSequence {
+    /**
+     * Buffer of chars.
+     */
+    protected char[] buf;
+
+    /**
+     * Start index of range (inclusive).
+     */
+    protected int start;
+
+    /**
+     * Length of range.
+     */
+    protected int length;
+
+    /**
+     * Constructor of empty sequence.
+     */
+    public BlancoApexCharArraySequence() {
+        this(new char[0], 0, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param buf
+     *            buffer of chars.
+     * @param start
+     *            start index of range.
+     * @param length
+     *            length of range.
+     */
+    public BlancoApexCharArraySequence(final char[] buf, final int start, final int length) {
+        set(buf, start, length);
+    }
+
+    /**
+     * Move range of this sequence.
+     *
+     * @param buf
+     *            buffer of chars.
+     * @param start
+     *            start index of range.
+     * @param length
+     *            length of range.
+     */
+    public void set(final char[] buf, final int start, final int length) {
+        this.buf = buf;
+        this.start = start;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+        }
+        return buf[start + index];
+    }
+
+    /**
+     * Get sub sequence. Returned sequence shares the buffer.
+     *
+     * @param subStart
+     *            start index (inclusive).
+     * @param subEnd
+     *            end index (exclusive).
+     * @return sub sequence.
+     */
+    public CharSequence subSequence(final int subStart, final int subEnd) {
+        if (subStart < 0 || subEnd > length || subStart > subEnd) {
+            throw new IndexOutOfBoundsException("Start: " + subStart + ", End: " + subEnd + ", Length: " + length);
+        }
+        return new BlancoApexCharArraySequence(buf, start + subStart, subEnd - subStart);
+    }
+
+    /**
+     * Check this sequence has same chars with given string.
+     *
+     * @param arg
+     *            string to compare.
+     * @return true:same chars.
+     */
+    public boolean contentEquals(final String arg) {
+        if (arg.length() != length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            if (buf[start + index] != arg.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy chars into new string.
+     *
+     * @return new string.
+     */
+    @Override
+    public String toString() {
+        return new String(buf, start, length);
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.Locale;
+
+/**
+ * Reserved keywords and system types of Apex.
+ *
+ * <p>
+ * Words are classified by perfect hash which is found on class loading: each
+ * word has its own slot, so lookup is one hash and one compare. Apex is case
+ * insensitive, so ASCII letters are compared ignoring case. No object is
+ * created on lookup.
+ * </p>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexKeywords {
+    /**
+     * Reserved keywords of Apex, including keywords reserved for future use.
+     */
+    public static final String[] RESERVED_KEYWORDS = new String[] { "abstract", "activate", "and", "any", "array",
+            "as", "asc", "autonomous", "begin", "bigdecimal", "blob", "boolean", "break", "bulk", "by", "byte", "case",
+            "cast", "catch", "char", "class", "collect", "commit", "const", "continue", "currency", "date", "datetime",
+            "decimal", "default", "delete", "desc", "do", "double", "else", "end", "enum", "exception", "exit",
+            "export", "extends", "false", "final", "finally", "float", "for", "from", "global", "goto", "group",
+            "having", "hint", "if", "implements", "import", "in", "inner", "insert", "instanceof", "integer",
+            "interface", "into", "join", "like", "limit", "list", "long", "loop", "map", "merge", "new", "not", "null",
+            "nulls", "number", "object", "of", "on", "or", "outer", "override", "package", "parallel", "pragma",
+            "private", "protected", "public", "retrieve", "return", "returning", "rollback", "savepoint", "search",
+            "select", "set", "short", "sort", "stat", "static", "super", "switch", "synchronized", "system",
+            "testmethod", "then", "this", "throw", "time", "transaction", "trigger", "true", "try", "type", "undelete",
+            "update", "upsert", "using", "virtual", "void", "webservice", "when", "where", "while" };
+
+    /**
+     * Built-in system types of Apex.
+     */
+    public static final String[] SYSTEM_TYPES = new String[] { "Blob", "Boolean", "Date", "Datetime", "Decimal",
+            "Double", "Id", "Integer", "Long", "Object", "String", "Time", "List", "Set", "Map", "SObject", "Type",
+            "Exception", "System", "Database", "Schema", "Math", "JSON", "JSONGenerator", "JSONParser", "Limits",
+            "Test", "UserInfo", "Messaging", "ApexPages", "PageReference", "Http", "HttpRequest", "HttpResponse",
+            "Crypto", "EncodingUtil", "Url", "Pattern", "Matcher", "Savepoint", "Iterator", "Iterable", "Comparable",
+            "Schedulable", "SchedulableContext", "Queueable", "QueueableContext", "Callable", "Label", "Site",
+            "Cache", "Search", "Trigger", "DmlException", "QueryException", "NullPointerException",
+            "ListException", "MathException", "StringException", "TypeException", "LimitException" };
+
+    /**
+     * Flag of reserved keyword.
+     */
+    static final int FLAG_RESERVED_KEYWORD = 1;
+
+    /**
+     * Flag of system type.
+     */
+    static final int FLAG_SYSTEM_TYPE = 2;
+
+    /**
+     * Words in lower case, by slot of perfect hash.
+     */
+    private static final char[][] TABLE_WORDS;
+
+    /**
+     * Flags of words, by slot of perfect hash.
+     */
+    private static final byte[] TABLE_FLAGS;
+
+    /**
+     * Multiplier of perfect hash.
+     */
+    private static final int HASH_SEED;
+
+    /**
+     * Length of shortest word.
+     */
+    private static final int MIN_LENGTH;
+
+    /**
+     * Length of longest word.
+     */
+    private static final int MAX_LENGTH;
+
+    static {
+        final String[] words = new String[RESERVED_KEYWORDS.length + SYSTEM_TYPES.length];
+        final int[] flags = new int[words.length];
+        int wordCount = 0;
+        int minLength = Integer.MAX_VALUE;
+        int maxLength = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            final String[] source = pass == 0 ? RESERVED_KEYWORDS : SYSTEM_TYPES;
+            final int flag = pass == 0 ? FLAG_RESERVED_KEYWORD : FLAG_SYSTEM_TYPE;
+            for (String lookup : source) {
+                final String word = lookup.toLowerCase(Locale.ENGLISH);
+                int found = -1;
+                for (int index = 0; index < wordCount; index++) {
+                    if (words[index].equals(word)) {
+                        found = index;
+                    }
+                }
+                if (found < 0) {
+                    found = wordCount++;
+                    words[found] = word;
+                }
+                flags[found] |= flag;
+                minLength = Math.min(minLength, word.length());
+                maxLength = Math.max(maxLength, word.length());
+            }
+        }
+        MIN_LENGTH = minLength;
+        MAX_LENGTH = maxLength;
+
+        // find seed which gives no collision.
+        int tableSize = Integer.highestOneBit(wordCount) * 4;
+        for (;;) {
+            final int seed = findSeed(words, wordCount, tableSize);
+            if (seed != 0) {
+                HASH_SEED = seed;
+                break;
+            }
+            tableSize *= 2;
+        }
+        TABLE_WORDS = new char[tableSize][];
+        TABLE_FLAGS = new byte[tableSize];
+        for (int index = 0; index < wordCount; index++) {
+            final char[] word = words[index].toCharArray();
+            final int slot = hash(HASH_SEED, word, 0, word.length) & (tableSize - 1);
+            TABLE_WORDS[slot] = word;
+            TABLE_FLAGS[slot] = (byte) flags[index];
+        }
+    }
+
+    private BlancoApexKeywords() {
+    }
+
+    /**
+     * Find seed of perfect hash.
+     *
+     * @param words
+     *            words in lower case.
+     * @param wordCount
+     *            count of words.
+     * @param tableSize
+     *            size of table. power of 2.
+     * @return seed. 0 if not found.
+     */
+    private static int findSeed(final String[] words, final int wordCount, final int tableSize) {
+        for (int seed = 31; seed < 31 + 2 * 10000; seed += 2) {
+            final boolean[] used = new boolean[tableSize];
+            boolean isCollided = false;
+            for (int index = 0; index < wordCount; index++) {
+                final char[] word = words[index].toCharArray();
+                final int slot = hash(seed, word, 0, word.length) & (tableSize - 1);
+                if (used[slot]) {
+                    isCollided = true;
+                    break;
+                }
+                used[slot] = true;
+            }
+            if (isCollided == false) {
+                return seed;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Hash of chars ignoring case of ASCII letters.
+     *
+     * @param seed
+     *            multiplier.
+     * @param buf
+     *            buffer.
+     * @param start
+     *            start in buffer.
+     * @param end
+     *            end in buffer (exclusive).
+     * @return hash.
+     */
+    private static int hash(final int seed, final char[] buf, final int start, final int end) {
+        int result = 0;
+        for (int index = start; index < end; index++) {
+            result = result * seed + (buf[index] | 0x20);
+        }
+        return result ^ (result >>> 15);
+    }
+
+    /**
+     * Get flags of word.
+     *
+     * @param buf
+     *            buffer.
+     * @param start
+     *            start of word in buffer.
+     * @param end
+     *            end of word in buffer (exclusive).
+     * @return FLAG_RESERVED_KEYWORD and/or FLAG_SYSTEM_TYPE. 0 if neither.
+     */
+    static int getFlags(final char[] buf, final int start, final int end) {
+        final int length = end - start;
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return 0;
+        }
+        final int slot = hash(HASH_SEED, buf, start, end) & (TABLE_WORDS.length - 1);
+        final char[] word = TABLE_WORDS[slot];
+        if (word == null || word.length != length) {
+            return 0;
+        }
+        for (int index = 0; index < length; index++) {
+            // words are lower case letters. non letter never matches.
+            if ((buf[start + index] | 0x20) != word[index]) {
+                return 0;
+            }
+        }
+        return TABLE_FLAGS[slot];
+    }
+
+    /**
+     * Get sub type of word token.
+     *
+     * @param buf
+     *            buffer.
+     * @param start
+     *            start of word in buffer.
+     * @param end
+     *            end of word in buffer (exclusive).
+     * @return sub type. ex. BlancoApexLexicalScanner.SUBTYPE_RESERVED_KEYWORD.
+     *         SUBTYPE_NONE if neither keyword nor system type.
+     */
+    public static int getWordSubType(final char[] buf, final int start, final int end) {
+        switch (getFlags(buf, start, end)) {
+        case FLAG_RESERVED_KEYWORD:
+            return BlancoApexLexicalScanner.SUBTYPE_RESERVED_KEYWORD;
+        case FLAG_SYSTEM_TYPE:
+            return BlancoApexLexicalScanner.SUBTYPE_SYSTEM_TYPE;
+        case FLAG_RESERVED_KEYWORD | FLAG_SYSTEM_TYPE:
+            return BlancoApexLexicalScanner.SUBTYPE_RESERVED_KEYWORD_SYSTEM_TYPE;
+        default:
+            return BlancoApexLexicalScanner.SUBTYPE_NONE;
+        }
+    }
+
+    /**
+     * Check word is reserved keyword.
+     *
+     * @param word
+     *            word.
+     * @return true:reserved keyword.
+     */
+    public static boolean isReservedKeyword(final String word) {
+        final char[] buf = word.toCharArray();
+        return (getFlags(buf, 0, buf.length) & FLAG_RESERVED_KEYWORD) != 0;
+    }
+
+    /**
+     * Check word is system type.
+     *
+     * @param word
+     *            word.
+     * @return true:system type.
+     */
+    public static boolean isSystemType(final String word) {
+        final char[] buf = word.toCharArray();
+        return (getFlags(buf, 0, buf.length) & FLAG_SYSTEM_TYPE) != 0;
+    }
+}
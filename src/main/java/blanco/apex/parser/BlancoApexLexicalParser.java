@@ -20,17 +20,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.StringReader;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import blanco.apex.parser.token.BlancoApexCommentToken;
-import blanco.apex.parser.token.BlancoApexLiteralToken;
-import blanco.apex.parser.token.BlancoApexNewlineToken;
-import blanco.apex.parser.token.BlancoApexSpecialCharToken;
 import blanco.apex.parser.token.BlancoApexToken;
-import blanco.apex.parser.token.BlancoApexWhitespaceToken;
-import blanco.apex.parser.token.BlancoApexWordToken;
 
 /**
  * Simple Apex language lexical parser.
@@ -40,25 +35,130 @@ import blanco.apex.parser.token.BlancoApexWordToken;
  * 'BlancoApexLexicalParser#parse' for entry point.
  * </p>
  *
+ * <p>
+ * Tokens are scanned by {@link BlancoApexLexicalScanner} over char array.
+ * </p>
+ *
  * See {@link BlancoApexParser#parse(File)}.
  * 
  * @author Toshiki Iga
  */
 public class BlancoApexLexicalParser {
     /**
-     * List of token.
+     * Recycled read buffer larger than this is released after parse.
+     */
+    public static final int MAX_RECYCLED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * List of token of last parse.
      */
     protected List<BlancoApexToken> tokenList = new ArrayList<BlancoApexToken>();
 
     /**
-     * Current line number of original source code.
+     * Scanner reused for each parse.
+     */
+    private final BlancoApexLexicalScanner scanner = new BlancoApexLexicalScanner(new char[0], 0, 0);
+
+    /**
+     * Read buffer reused for each parse. null if not allocated yet.
+     */
+    private char[] readBuffer = null;
+
+    /**
+     * Combine special chars like "++", "&lt;=" while lexing or not.
+     */
+    protected boolean combineSpecialChar = false;
+
+    /**
+     * Symbol table to share values of tokens. null if not shared.
+     */
+    protected BlancoApexSymbolTable symbolTable = null;
+
+    /**
+     * Value of token is a view into source code buffer or not.
+     */
+    protected boolean lazyValue = false;
+
+    /**
+     * Build index of matching brackets while lexing into token buffer or not.
+     */
+    protected boolean buildPairIndex = false;
+
+    /**
+     * Mark inline query regions while lexing into token buffer or not.
+     */
+    protected boolean buildQueryIndex = false;
+
+    /**
+     * Set combine special chars like "++", "&lt;=" while lexing or not.
+     * 
+     * <p>
+     * Combined special chars are taken by longest match of
+     * {@link BlancoApexParser#COMBINED_SPECIAL_CHAR}.
+     * </p>
+     * 
+     * @param arg
+     *            true:combine, false:one special char is one token.
      */
-    protected int lineNumber = 1;
+    public void setCombineSpecialChar(final boolean arg) {
+        combineSpecialChar = arg;
+    }
 
     /**
-     * Buffer field of Word to keep on-going parse.
+     * Set symbol table to share values of tokens.
+     * 
+     * @param arg
+     *            symbol table. null if not shared (default).
      */
-    protected StringBuffer strbufWord = new StringBuffer();
+    public void setSymbolTable(final BlancoApexSymbolTable arg) {
+        symbolTable = arg;
+    }
+
+    /**
+     * Set value of token is a view into source code buffer or not. String of
+     * value is created on first call of getValue() of token. Source code
+     * buffer must not be changed after parse if true.
+     * 
+     * @param arg
+     *            true:view into buffer, false:String (default).
+     */
+    public void setLazyValue(final boolean arg) {
+        lazyValue = arg;
+    }
+
+    /**
+     * Set build index of matching brackets while lexing into token buffer or
+     * not. Index is built on first call of
+     * {@link BlancoApexTokenBuffer#getPairIndex()} if false.
+     * 
+     * @param arg
+     *            true:build while lexing, false:build on demand (default).
+     */
+    public void setBuildPairIndex(final boolean arg) {
+        buildPairIndex = arg;
+    }
+
+    /**
+     * Set mark inline SOQL and SOSL query regions while lexing into token
+     * buffer or not. Index is built on first call of
+     * {@link BlancoApexTokenBuffer#getQueryIndex()} if false.
+     * 
+     * @param arg
+     *            true:build while lexing, false:build on demand (default).
+     */
+    public void setBuildQueryIndex(final boolean arg) {
+        buildQueryIndex = arg;
+    }
+
+    /**
+     * Reset state of last parse, so that this lexical parser can parse next
+     * source code. Settings are kept. Each parse resets state by itself, so
+     * call this only to release the last source code and token list.
+     */
+    public void reset() {
+        tokenList = new ArrayList<BlancoApexToken>();
+        scanner.reset(new char[0], 0, 0);
+    }
 
     /**
      * Parse and tokenize source code string.
@@ -73,12 +173,8 @@ public class BlancoApexLexicalParser {
      *             I/O Exception.
      */
     public List<BlancoApexToken> parse(final String sourceString) throws IOException {
-        final BufferedReader reader = new BufferedReader(new StringReader(sourceString));
-        try {
-            return parse(reader);
-        } finally {
-            reader.close();
-        }
+        final char[] source = sourceString.toCharArray();
+        return parse(source, 0, source.length);
     }
 
     /**
@@ -115,342 +211,319 @@ public class BlancoApexLexicalParser {
      *             I/O Exception.
      */
     public List<BlancoApexToken> parse(final BufferedReader reader) throws IOException {
-        for (;;) {
-            final int iRead = reader.read();
-            if (iRead < 0) {
-                // will be end of line
-
-                // flush word if exists
-                fireWord();
-
-                // finish process.
-                break;
-            }
-
-            final char cRead = (char) iRead;
-            if (cRead == '/') {
-                // check comments
-
-                reader.mark(1);
-
-                final int iRead2 = reader.read();
-                if (iRead2 < 0) {
-                    reader.reset();
-                    continue;
-                }
-
-                final char cRead2 = (char) iRead2;
-                if (cRead2 == '*') {
-                    // start multi-line comment
-
-                    // flush word if exists
-                    fireWord();
-
-                    parseMultilineComment(reader);
-                } else if (cRead2 == '/') {
-                    // start single-line comment
-
-                    // flush word if exists
-                    fireWord();
-
-                    parseSinglelineComment(reader);
-                } else {
-                    // others
-                    reader.reset();
-
-                    strbufWord.append(cRead);
-                }
-            } else if (cRead == '\'') {
-                // start of string literal
-
-                // flush word if exists
-                fireWord();
-
-                parseStringLiteral(reader);
-            } else if (cRead == '\"') {
-                // start of string literal for SOQL
-
-                // flush word if exists
-                fireWord();
-
-                parseStringLiteralForSOQL(reader);
-            } else if (BlancoApexParserUtil.isSpecialChar(cRead)) {
-                // special char
-
-                // flush word if exists
-                fireWord();
-
-                parseSpecialChar(reader, cRead);
-            } else if (BlancoApexParserUtil.isWhitespaceWithoutLines(cRead)) {
-                // whitespace
-
-                // flush word if exists
-                fireWord();
-
-                parseWhitespaceWithoutlines(reader, cRead);
-            } else if (cRead == '\n' || cRead == '\r') {
-                // end of line
-
-                // flush word if exists
-                fireWord();
-
-                parseNewlines(reader, cRead);
-            } else {
-                strbufWord.append(cRead);
-            }
+        if (lazyValue) {
+            // tokens point into source code.
+            final char[] source = BlancoApexParserUtil.readAll(reader);
+            return parse(source, 0, source.length);
         }
 
-        return tokenList;
-    }
-
-    public void fireWord() throws IOException {
-        if (strbufWord.length() > 0) {
-            try {
-                // We can't determine keywrods on lexical parsing. It will be
-                // able to determine on syntax parsing.
-
-                {
-                    // check simply the word is number literal or not
-                    try {
-                        Double.parseDouble(strbufWord.toString());
-                        // it seems number literal
-                        final BlancoApexLiteralToken newToken = new BlancoApexLiteralToken(strbufWord.toString(),
-                                lineNumber, BlancoApexLiteralToken.LiteralType.NUMBER);
-                        tokenList.add(newToken);
-
-                        // exit here!
-                        return;
-                    } catch (Exception ex) {
-                        // do nothing.
-                        // falling to normal word.
-                    }
-                }
-
-                final BlancoApexWordToken newToken = new BlancoApexWordToken(strbufWord.toString(), lineNumber);
-                tokenList.add(newToken);
-            } finally {
-                strbufWord = new StringBuffer();
-            }
+        // values of tokens are copied, so read buffer is recycled.
+        if (readBuffer == null) {
+            readBuffer = new char[8192];
         }
-    }
-
-    public void parseMultilineComment(final BufferedReader reader) throws IOException {
-        // remember start time line number.
-        // because multi line number will be changed while processing
-        // multi-lines.
-        final int startTimeLineNumber = lineNumber;
-
-        final StringBuffer strbuf = new StringBuffer();
-        strbuf.append("/*");
-
-        // flag to determine line number.
-        boolean isPastCr = false;
-
+        int length = 0;
         for (;;) {
-            reader.mark(1);
-            final int iRead = reader.read();
-            if (iRead < 0) {
-                break;
+            if (length == readBuffer.length) {
+                readBuffer = Arrays.copyOf(readBuffer, readBuffer.length * 2);
             }
-            final char cRead = (char) iRead;
-            if (cRead == '*') {
-                reader.mark(1);
-                final int iRead2 = reader.read();
-                if (iRead2 < 0) {
-                    break;
-                }
-                final char cRead2 = (char) iRead2;
-                if (cRead2 == '/') {
-                    // end multi-line comment
-
-                    strbuf.append("*/");
-
-                    // do process
-                    final BlancoApexCommentToken newToken = new BlancoApexCommentToken(strbuf.toString(),
-                            startTimeLineNumber, BlancoApexCommentToken.CommentType.MULTI_LINE);
-                    tokenList.add(newToken);
-
-                    // exit method
-                    return;
-                } else {
-                    reader.reset();
-                    // in commentS
-                }
-            } else if (cRead == '\r') {
-                lineNumber++;
-                isPastCr = true;
-            } else if (cRead == '\n') {
-                if (isPastCr) {
-                    isPastCr = false;
-                } else {
-                    lineNumber++;
-                }
+            final int readLength = reader.read(readBuffer, length, readBuffer.length - length);
+            if (readLength < 0) {
+                break;
             }
+            length += readLength;
+        }
+        final List<BlancoApexToken> result = parse(readBuffer, 0, length);
+        scanner.reset(new char[0], 0, 0);
+        if (readBuffer.length > MAX_RECYCLED_BUFFER_SIZE) {
+            readBuffer = null;
+        }
+        return result;
+    }
 
-            strbuf.append(cRead);
+    /**
+     * Parse and tokenize source code in char array.
+     * 
+     * You should use 'BlancoApexParser#parse' instead of
+     * 'BlancoApexLexicalParser#parse' for entry point.
+     * 
+     * @param source
+     *            source code buffer.
+     * @param offset
+     *            start index of source code.
+     * @param length
+     *            length of source code.
+     * @return List of token.
+     */
+    public List<BlancoApexToken> parse(final char[] source, final int offset, final int length) {
+        final BlancoApexLexicalScanner scanner = resetScanner(source, offset, length);
+        // tokens are 4 chars in average.
+        tokenList = new ArrayList<BlancoApexToken>(length / 4 + 16);
+        while (scanner.next() != BlancoApexLexicalScanner.KIND_EOF) {
+            tokenList.add(createToken(scanner));
         }
+        return tokenList;
     }
 
-    public void parseSinglelineComment(final BufferedReader reader) throws IOException {
-        final StringBuffer strbuf = new StringBuffer();
-        strbuf.append("//");
-        for (;;) {
-            reader.mark(1);
-            final int iRead = reader.read();
-            if (iRead < 0) {
-                // exit method
-                final BlancoApexCommentToken newToken = new BlancoApexCommentToken(strbuf.toString(), lineNumber,
-                        BlancoApexCommentToken.CommentType.SINGLE_LINE);
-                tokenList.add(newToken);
-
-                return;
+    /**
+     * Parse and tokenize source code into columnar token buffer. No token
+     * object is created.
+     * 
+     * @param source
+     *            source code buffer. Token buffer points into this.
+     * @param offset
+     *            start index of source code.
+     * @param length
+     *            length of source code.
+     * @return token buffer.
+     */
+    public BlancoApexTokenBuffer parseTokenBuffer(final char[] source, final int offset, final int length) {
+        final BlancoApexTokenBuffer tokenBuffer = new BlancoApexTokenBuffer(source, length / 4);
+        tokenBuffer.setSymbolTable(symbolTable);
+        tokenBuffer.setLazyValue(lazyValue);
+        final BlancoApexLexicalScanner scanner = resetScanner(source, offset, length);
+        final BlancoApexPairIndex pairIndex = buildPairIndex ? new BlancoApexPairIndex(length / 4) : null;
+        final BlancoApexQueryIndex queryIndex = buildQueryIndex ? new BlancoApexQueryIndex(source) : null;
+        while (scanner.next() != BlancoApexLexicalScanner.KIND_EOF) {
+            final int tokenLength = scanner.getTokenEnd() - scanner.getTokenStart();
+            tokenBuffer.add(scanner.getTokenKind(), scanner.getTokenSubType(), scanner.getTokenStart(), tokenLength,
+                    scanner.getTokenLineNumber(), scanner.getTokenColumn());
+            if (pairIndex != null) {
+                pairIndex.add(scanner.getTokenKind(), source, scanner.getTokenStart(), tokenLength);
             }
-            final char cRead = (char) iRead;
-            if (cRead == '\n' || cRead == '\r') {
-                // exit method
-                reader.reset();
-
-                final BlancoApexCommentToken newToken = new BlancoApexCommentToken(strbuf.toString(), lineNumber,
-                        BlancoApexCommentToken.CommentType.SINGLE_LINE);
-                tokenList.add(newToken);
-
-                return;
+            if (queryIndex != null) {
+                queryIndex.add(scanner.getTokenKind(), scanner.getTokenStart(), tokenLength,
+                        scanner.getTokenLineNumber(), scanner.getTokenColumn());
             }
-
-            strbuf.append(cRead);
         }
+        tokenBuffer.trimToSize();
+        if (pairIndex != null) {
+            pairIndex.finish();
+            tokenBuffer.setPairIndex(pairIndex);
+        }
+        if (queryIndex != null) {
+            tokenBuffer.setQueryIndex(queryIndex);
+        }
+        return tokenBuffer;
     }
 
-    public void parseStringLiteral(final BufferedReader reader) throws IOException {
-        final StringBuffer strbuf = new StringBuffer();
-        strbuf.append("'");
-        for (;;) {
-            reader.mark(1);
-            final int iRead = reader.read();
-            if (iRead < 0) {
-                break;
-            }
-            final char cRead = (char) iRead;
-            if (cRead == '\\') {
-                // entering escape mode
+    /**
+     * Re-lex token buffer after an edit of source code.
+     * 
+     * <p>
+     * Only tokens around the edit are lexed again. Lexing restarts at a token
+     * boundary before the edit, and stops where the new tokens line up with
+     * the previous tokens again. Tokens after that are copied with shifted
+     * offsets and line numbers.
+     * </p>
+     * 
+     * @param previous
+     *            token buffer before the edit. This must be parsed from the
+     *            whole source array with same settings of this parser.
+     * @param offset
+     *            offset of the edit.
+     * @param removedLength
+     *            count of chars removed at offset.
+     * @param insertedText
+     *            text inserted at offset.
+     * @return new token buffer of edited source code.
+     */
+    public BlancoApexTokenBuffer reparseTokenBuffer(final BlancoApexTokenBuffer previous, final int offset,
+            final int removedLength, final String insertedText) {
+        final char[] oldSource = previous.getSource();
+        if (offset < 0 || removedLength < 0 || offset + removedLength > oldSource.length) {
+            throw new IndexOutOfBoundsException(
+                    "Offset: " + offset + ", Removed: " + removedLength + ", Length: " + oldSource.length);
+        }
 
-                // one point: adding escape char too!
-                strbuf.append(cRead);
+        final int insertedLength = insertedText.length();
+        final int delta = insertedLength - removedLength;
+        final char[] newSource = new char[oldSource.length + delta];
+        System.arraycopy(oldSource, 0, newSource, 0, offset);
+        insertedText.getChars(0, insertedLength, newSource, offset);
+        System.arraycopy(oldSource, offset + removedLength, newSource, offset + insertedLength,
+                oldSource.length - offset - removedLength);
+
+        // Lexer looks ahead up to 3 chars after the end of token. So the
+        // token which starts 4 chars before the edit is not affected.
+        final int restartIndex = previous.size() == 0 ? 0
+                : Math.max(0, findLastTokenStartingAtOrBefore(previous, offset - 4));
+        final int restartPos = restartIndex < previous.size() ? previous.getStart(restartIndex) : 0;
+
+        final BlancoApexTokenBuffer result = new BlancoApexTokenBuffer(newSource, previous.size() + 16);
+        result.setSymbolTable(symbolTable);
+        result.setLazyValue(lazyValue);
+        result.addRange(previous, 0, restartIndex, 0, 0);
+
+        final BlancoApexLexicalScanner scanner = new BlancoApexLexicalScanner(newSource, restartPos,
+                newSource.length - restartPos);
+        scanner.setCombineSpecialChar(combineSpecialChar);
+        if (restartIndex < previous.size()) {
+            scanner.setLineNumber(previous.getLineNumber(restartIndex));
+            scanner.setColumn(previous.getColumn(restartIndex));
+        }
 
-                final int iRead2 = reader.read();
-                if (iRead2 < 0) {
-                    break;
-                }
-                final char cRead2 = (char) iRead2;
-                strbuf.append(cRead2);
+        int oldIndex = restartIndex;
+        while (scanner.next() != BlancoApexLexicalScanner.KIND_EOF) {
+            result.add(scanner.getTokenKind(), scanner.getTokenSubType(), scanner.getTokenStart(),
+                    scanner.getTokenEnd() - scanner.getTokenStart(), scanner.getTokenLineNumber(),
+                    scanner.getTokenColumn());
 
-                // avoid to do default.
+            if (scanner.getTokenEnd() < offset + insertedLength) {
                 continue;
-            } else if (cRead == '\'') {
-                // exit method
-
-                strbuf.append(cRead);
-
-                // string literal token.
-                final BlancoApexLiteralToken newToken = new BlancoApexLiteralToken(strbuf.toString(), lineNumber,
-                        BlancoApexLiteralToken.LiteralType.STRING);
-                tokenList.add(newToken);
-
-                return;
             }
-
-            strbuf.append(cRead);
-        }
-    }
-
-    public void parseStringLiteralForSOQL(final BufferedReader reader) throws IOException {
-        final StringBuffer strbuf = new StringBuffer();
-        strbuf.append("\"");
-        for (;;) {
-            reader.mark(1);
-            final int iRead = reader.read();
-            if (iRead < 0) {
-                break;
+            final int oldStart = scanner.getTokenEnd() - delta;
+            while (oldIndex < previous.size() && previous.starts[oldIndex] < oldStart) {
+                oldIndex++;
             }
-            final char cRead = (char) iRead;
-            if (cRead == '\\') {
-                // entering escape mode
-
-                // one point: adding escape char too!
-                strbuf.append(cRead);
-
-                final int iRead2 = reader.read();
-                if (iRead2 < 0) {
-                    break;
+            if (oldIndex < previous.size() && previous.starts[oldIndex] == oldStart) {
+                // lines up again. rest of tokens are same.
+                final int tailStart = result.size();
+                result.addRange(previous, oldIndex, previous.size(), delta,
+                        scanner.getLineNumber() - previous.lineNumbers[oldIndex]);
+                // tokens on the same line move right or left.
+                final int columnDelta = scanner.getColumn() - previous.columns[oldIndex];
+                for (int index = oldIndex; index < previous.size()
+                        && previous.lineNumbers[index] == previous.lineNumbers[oldIndex]; index++) {
+                    result.columns[tailStart + index - oldIndex] += columnDelta;
                 }
-                final char cRead2 = (char) iRead2;
-                strbuf.append(cRead2);
-
-                // avoid to do default.
-                continue;
-            } else if (cRead == '\"') {
-                // exit method
-
-                strbuf.append(cRead);
-
-                // string literal token.
-                final BlancoApexLiteralToken newToken = new BlancoApexLiteralToken(strbuf.toString(), lineNumber,
-                        BlancoApexLiteralToken.LiteralType.STRING);
-                tokenList.add(newToken);
-
-                return;
+                break;
             }
-
-            strbuf.append(cRead);
         }
+        result.trimToSize();
+        return result;
     }
 
-    public void parseWhitespaceWithoutlines(final BufferedReader reader, final char cPastRead) throws IOException {
-        final StringBuffer strbuf = new StringBuffer();
-        strbuf.append(cPastRead);
-        for (;;) {
-            reader.mark(1);
-            final int iRead = reader.read();
-            if (iRead < 0) {
-                break;
-            }
-            final char cRead = (char) iRead;
-            if (BlancoApexParserUtil.isWhitespaceWithoutLines(cRead) == false) {
-                final BlancoApexWhitespaceToken newToken = new BlancoApexWhitespaceToken(strbuf.toString(), lineNumber);
-                tokenList.add(newToken);
-
-                reader.reset();
-                return;
+    /**
+     * Find last token which starts at or before given offset.
+     * 
+     * @param tokenBuffer
+     *            token buffer.
+     * @param offset
+     *            offset in source.
+     * @return index of token. -1 if not found.
+     */
+    static int findLastTokenStartingAtOrBefore(final BlancoApexTokenBuffer tokenBuffer, final int offset) {
+        int low = 0;
+        int high = tokenBuffer.size() - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (tokenBuffer.starts[middle] <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
             }
-            strbuf.append(cRead);
         }
+        return high;
     }
 
-    public void parseNewlines(final BufferedReader reader, final char cPastRead) throws IOException {
-        final boolean isNewlinesStartedWithCR = (cPastRead == '\r');
-
-        final StringBuffer strbuf = new StringBuffer();
-        strbuf.append(cPastRead);
+    /**
+     * Parse source code in char array and push tokens to handler. No token
+     * object is created.
+     * 
+     * @param source
+     *            source code buffer.
+     * @param offset
+     *            start index of source code.
+     * @param length
+     *            length of source code.
+     * @param handler
+     *            callback of tokens.
+     */
+    public void parse(final char[] source, final int offset, final int length, final BlancoApexTokenHandler handler) {
+        final BlancoApexLexicalScanner scanner = resetScanner(source, offset, length);
+        final BlancoApexCharArraySequence text = new BlancoApexCharArraySequence();
+        for (int kind = scanner.next(); kind != BlancoApexLexicalScanner.KIND_EOF; kind = scanner.next()) {
+            fireToken(scanner, text, handler);
+        }
+    }
 
-        if (isNewlinesStartedWithCR) {
-            reader.mark(1);
-            final int iRead = reader.read();
-            if (iRead >= 0 && ((char) iRead) == '\n') {
-                // \r\n occur.
-                strbuf.append((char) iRead);
-            } else {
-                reader.reset();
-            }
+    /**
+     * Parse source code from reader and push tokens to handler. Tokens are
+     * lexed on demand with fixed size buffer. No token object is created.
+     * 
+     * @param reader
+     *            Reader of source code. This is not closed here.
+     * @param handler
+     *            callback of tokens.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void parse(final Reader reader, final BlancoApexTokenHandler handler) throws IOException {
+        final BlancoApexTokenStream stream = new BlancoApexTokenStream(reader,
+                BlancoApexTokenStream.DEFAULT_BUFFER_SIZE, combineSpecialChar);
+        final BlancoApexCharArraySequence text = new BlancoApexCharArraySequence();
+        for (int kind = stream.nextKind(); kind != BlancoApexLexicalScanner.KIND_EOF; kind = stream.nextKind()) {
+            fireToken(stream.getScanner(), text, handler);
         }
+    }
 
-        final BlancoApexNewlineToken newToken = new BlancoApexNewlineToken(strbuf.toString(), lineNumber);
-        tokenList.add(newToken);
+    /**
+     * Reset reused scanner to scan source code.
+     * 
+     * @param source
+     *            source code buffer.
+     * @param offset
+     *            start index of source code.
+     * @param length
+     *            length of source code.
+     * @return scanner.
+     */
+    protected BlancoApexLexicalScanner resetScanner(final char[] source, final int offset, final int length) {
+        scanner.reset(source, offset, length);
+        scanner.setCombineSpecialChar(combineSpecialChar);
+        return scanner;
+    }
 
-        lineNumber++;
+    /**
+     * Push current token of scanner to handler.
+     * 
+     * @param scanner
+     *            scanner which points the token.
+     * @param text
+     *            reusable window of text.
+     * @param handler
+     *            callback of tokens.
+     */
+    protected void fireToken(final BlancoApexLexicalScanner scanner, final BlancoApexCharArraySequence text,
+            final BlancoApexTokenHandler handler) {
+        final int length = scanner.getTokenEnd() - scanner.getTokenStart();
+        final int offset = scanner.getTokenOffset();
+        final int lineNumber = scanner.getTokenLineNumber();
+        text.set(scanner.getBuffer(), scanner.getTokenStart(), length);
+        switch (scanner.getTokenKind()) {
+        case BlancoApexLexicalScanner.KIND_WORD:
+            handler.onWord(text, offset, length, lineNumber);
+            break;
+        case BlancoApexLexicalScanner.KIND_LITERAL:
+            handler.onLiteral(text, scanner.getTokenSubType(), offset, length, lineNumber);
+            break;
+        case BlancoApexLexicalScanner.KIND_COMMENT:
+            handler.onComment(text, scanner.getTokenSubType(), offset, length, lineNumber);
+            break;
+        case BlancoApexLexicalScanner.KIND_SPECIAL_CHAR:
+            handler.onSpecialChar(text, offset, length, lineNumber);
+            break;
+        case BlancoApexLexicalScanner.KIND_WHITESPACE:
+            handler.onWhitespace(text, offset, length, lineNumber);
+            break;
+        case BlancoApexLexicalScanner.KIND_NEWLINE:
+        default:
+            handler.onNewline(text, offset, length, lineNumber);
+            break;
+        }
     }
 
-    public void parseSpecialChar(final BufferedReader reader, final char cRead) throws IOException {
-        final BlancoApexSpecialCharToken newToken = new BlancoApexSpecialCharToken("" + cRead, lineNumber);
-        tokenList.add(newToken);
+    /**
+     * Create token object from current token of scanner.
+     * 
+     * @param scanner
+     *            scanner which points the token.
+     * @return token.
+     */
+    protected BlancoApexToken createToken(final BlancoApexLexicalScanner scanner) {
+        return BlancoApexParserUtil.createToken(scanner.getTokenKind(), scanner.getTokenSubType(),
+                scanner.getBuffer(), scanner.getTokenStart(), scanner.getTokenEnd() - scanner.getTokenStart(),
+                scanner.getTokenOffset(), scanner.getTokenLineNumber(), scanner.getTokenColumn(), symbolTable,
+                lazyValue);
     }
 }
@@ -0,0 +1,974 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Table driven lexical scanner of Apex language.
+ *
+ * <p>
+ * Scans a char array with an index cursor and reports kind, range and line
+ * number of each token. No token object is created here. This is the engine
+ * under {@link BlancoApexLexicalParser}.
+ * </p>
+ *
+ * <p>
+ * Useage:
+ * </p>
+ *
+ * <code>
+ * BlancoApexLexicalScanner scanner = new BlancoApexLexicalScanner(source, 0, source.length);<br>
+ * while (scanner.next() != BlancoApexLexicalScanner.KIND_EOF) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;... scanner.getTokenStart(), scanner.getTokenEnd() ...<br>
+ * }
+ * </code>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexLexicalScanner {
+    /**
+     * Kind of token: more input is needed to determine next token. This is
+     * returned only by streaming scanner. Call {@link #fill(Reader)} and then
+     * {@link #next()} again.
+     */
+    public static final int KIND_NEED_MORE = -1;
+
+    /**
+     * Kind of token: end of source.
+     */
+    public static final int KIND_EOF = 0;
+
+    /**
+     * Kind of token: word.
+     */
+    public static final int KIND_WORD = 1;
+
+    /**
+     * Kind of token: literal.
+     */
+    public static final int KIND_LITERAL = 2;
+
+    /**
+     * Kind of token: comment.
+     */
+    public static final int KIND_COMMENT = 3;
+
+    /**
+     * Kind of token: special char.
+     */
+    public static final int KIND_SPECIAL_CHAR = 4;
+
+    /**
+     * Kind of token: whitespace without new-lines.
+     */
+    public static final int KIND_WHITESPACE = 5;
+
+    /**
+     * Kind of token: new-line.
+     */
+    public static final int KIND_NEWLINE = 6;
+
+    /**
+     * Sub type of token: N/A.
+     */
+    public static final int SUBTYPE_NONE = 0;
+
+    /**
+     * Sub type of comment token: single line comment.
+     */
+    public static final int SUBTYPE_SINGLE_LINE = 1;
+
+    /**
+     * Sub type of comment token: multi line comment.
+     */
+    public static final int SUBTYPE_MULTI_LINE = 2;
+
+    /**
+     * Sub type of literal token: string.
+     */
+    public static final int SUBTYPE_STRING = 3;
+
+    /**
+     * Sub type of literal token: integer number. ex. 123
+     */
+    public static final int SUBTYPE_INTEGER = 4;
+
+    /**
+     * Sub type of literal token: long number. ex. 123L
+     */
+    public static final int SUBTYPE_LONG = 5;
+
+    /**
+     * Sub type of literal token: decimal number. ex. 1.23
+     */
+    public static final int SUBTYPE_DECIMAL = 6;
+
+    /**
+     * Sub type of literal token: double number. ex. 1.23e10, 1.23d
+     */
+    public static final int SUBTYPE_DOUBLE = 7;
+
+    /**
+     * Sub type of word token: reserved keyword. ex. public
+     */
+    public static final int SUBTYPE_RESERVED_KEYWORD = 8;
+
+    /**
+     * Sub type of word token: system type. ex. String
+     */
+    public static final int SUBTYPE_SYSTEM_TYPE = 9;
+
+    /**
+     * Sub type of word token: both reserved keyword and system type. ex.
+     * Integer
+     */
+    public static final int SUBTYPE_RESERVED_KEYWORD_SYSTEM_TYPE = 10;
+
+    /**
+     * Result of scan: range is dropped at the end of source.
+     */
+    private static final int SKIP = -2;
+
+    /**
+     * Char class: part of word.
+     */
+    static final byte CHAR_CLASS_WORD = 0;
+
+    /**
+     * Char class: special char excluding '/'.
+     */
+    static final byte CHAR_CLASS_SPECIAL = 1;
+
+    /**
+     * Char class: '/'. Start of comment or part of word.
+     */
+    static final byte CHAR_CLASS_SLASH = 2;
+
+    /**
+     * Char class: single quote.
+     */
+    static final byte CHAR_CLASS_QUOTE = 3;
+
+    /**
+     * Char class: double quote.
+     */
+    static final byte CHAR_CLASS_DOUBLE_QUOTE = 4;
+
+    /**
+     * Char class: whitespace without new-lines.
+     */
+    static final byte CHAR_CLASS_WHITESPACE = 5;
+
+    /**
+     * Char class: new-line.
+     */
+    static final byte CHAR_CLASS_NEWLINE = 6;
+
+    /**
+     * Char class table of ASCII chars.
+     */
+    private static final byte[] CHAR_CLASS_TABLE = new byte[128];
+
+    static {
+        for (char cLookup = 0; cLookup < CHAR_CLASS_TABLE.length; cLookup++) {
+            if (cLookup == '/') {
+                CHAR_CLASS_TABLE[cLookup] = CHAR_CLASS_SLASH;
+            } else if (cLookup == '\'') {
+                CHAR_CLASS_TABLE[cLookup] = CHAR_CLASS_QUOTE;
+            } else if (cLookup == '\"') {
+                CHAR_CLASS_TABLE[cLookup] = CHAR_CLASS_DOUBLE_QUOTE;
+            } else if (BlancoApexParserUtil.isSpecialChar(cLookup)) {
+                CHAR_CLASS_TABLE[cLookup] = CHAR_CLASS_SPECIAL;
+            } else if (BlancoApexParserUtil.isWhitespaceWithoutLines(cLookup)) {
+                CHAR_CLASS_TABLE[cLookup] = CHAR_CLASS_WHITESPACE;
+            } else if (cLookup == '\n' || cLookup == '\r') {
+                CHAR_CLASS_TABLE[cLookup] = CHAR_CLASS_NEWLINE;
+            } else {
+                CHAR_CLASS_TABLE[cLookup] = CHAR_CLASS_WORD;
+            }
+        }
+    }
+
+    /**
+     * Trie of combined special chars. Each node has transitions of ASCII
+     * chars. 0 means no transition, because root is never a target.
+     */
+    private static final int[][] COMBINED_SPECIAL_CHAR_TRIE;
+
+    /**
+     * Marker of trie node which completes one of combined special chars.
+     */
+    private static final boolean[] COMBINED_SPECIAL_CHAR_TERMINAL;
+
+    static {
+        int nodeCount = 1;
+        for (String combined : BlancoApexParser.COMBINED_SPECIAL_CHAR) {
+            nodeCount += combined.length();
+        }
+        final int[][] trie = new int[nodeCount][];
+        final boolean[] terminal = new boolean[nodeCount];
+        trie[0] = new int[128];
+        int nodeIndex = 1;
+        for (String combined : BlancoApexParser.COMBINED_SPECIAL_CHAR) {
+            int node = 0;
+            for (int index = 0; index < combined.length(); index++) {
+                final char cLookup = combined.charAt(index);
+                if (trie[node][cLookup] == 0) {
+                    trie[nodeIndex] = new int[128];
+                    trie[node][cLookup] = nodeIndex++;
+                }
+                node = trie[node][cLookup];
+            }
+            terminal[node] = true;
+        }
+        COMBINED_SPECIAL_CHAR_TRIE = trie;
+        COMBINED_SPECIAL_CHAR_TERMINAL = terminal;
+    }
+
+    /**
+     * Source code buffer.
+     */
+    protected char[] buf;
+
+    /**
+     * Current index of cursor.
+     */
+    protected int pos;
+
+    /**
+     * End index of source code (exclusive).
+     */
+    protected int limit;
+
+    /**
+     * Offset in source code of buf[0]. This moves when streaming scanner
+     * discards consumed chars.
+     */
+    protected int bufferOffset;
+
+    /**
+     * Current line number of original source code.
+     */
+    protected int lineNumber = 1;
+
+    /**
+     * Offset in source code of the start of current line.
+     */
+    protected int lineStartOffset = 0;
+
+    /**
+     * All of source code is in buffer or not. This is false only while
+     * streaming scanner can read more.
+     */
+    protected boolean eof = true;
+
+    /**
+     * Combine special chars like "++", "&lt;=" or not.
+     */
+    protected boolean combineSpecialChar = false;
+
+    /**
+     * Kind of current token.
+     */
+    protected int tokenKind = KIND_EOF;
+
+    /**
+     * Sub type of current token.
+     */
+    protected int tokenSubType = SUBTYPE_NONE;
+
+    /**
+     * Start index of current token (inclusive).
+     */
+    protected int tokenStart;
+
+    /**
+     * End index of current token (exclusive).
+     */
+    protected int tokenEnd;
+
+    /**
+     * Offset in source code of the start of line of current token.
+     */
+    protected int tokenLineStartOffset;
+
+    /**
+     * Line number of current token.
+     */
+    protected int tokenLineNumber;
+
+    /**
+     * Constructor.
+     *
+     * @param buf
+     *            source code buffer.
+     * @param offset
+     *            start index of source code.
+     * @param length
+     *            length of source code.
+     */
+    public BlancoApexLexicalScanner(final char[] buf, final int offset, final int length) {
+        reset(buf, offset, length);
+    }
+
+    /**
+     * Constructor of streaming scanner. Buffer is filled by
+     * {@link #fill(Reader)}. Buffer grows only when one token is longer than
+     * the buffer.
+     *
+     * @param bufferSize
+     *            initial size of buffer.
+     */
+    public BlancoApexLexicalScanner(final int bufferSize) {
+        this.buf = new char[Math.max(bufferSize, 16)];
+        this.pos = 0;
+        this.limit = 0;
+        this.eof = false;
+    }
+
+    /**
+     * Reset scanner to scan another source code buffer from the first line.
+     * Settings like combine special chars are kept.
+     *
+     * @param buf
+     *            source code buffer.
+     * @param offset
+     *            start index of source code.
+     * @param length
+     *            length of source code.
+     */
+    public void reset(final char[] buf, final int offset, final int length) {
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.bufferOffset = -offset;
+        this.lineNumber = 1;
+        this.lineStartOffset = 0;
+        this.eof = true;
+        this.tokenKind = KIND_EOF;
+        this.tokenSubType = SUBTYPE_NONE;
+        this.tokenStart = offset;
+        this.tokenEnd = offset;
+        this.tokenLineStartOffset = 0;
+        this.tokenLineNumber = 1;
+    }
+
+    /**
+     * Set line number of the token at the cursor. Use this when scan starts
+     * from the middle of source code.
+     *
+     * @param arg
+     *            line number.
+     */
+    public void setLineNumber(final int arg) {
+        lineNumber = arg;
+    }
+
+    /**
+     * Set column of the token at the cursor. Use this when scan starts from
+     * the middle of a line.
+     *
+     * @param arg
+     *            column (1 origin).
+     */
+    public void setColumn(final int arg) {
+        lineStartOffset = bufferOffset + pos - arg + 1;
+    }
+
+    /**
+     * Get column at the cursor. This is the column of the next token.
+     *
+     * @return column (1 origin).
+     */
+    public int getColumn() {
+        return bufferOffset + pos - lineStartOffset + 1;
+    }
+
+    /**
+     * Get line number at the cursor. This is the line number of the next
+     * token.
+     *
+     * @return line number.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Get char class of given char.
+     *
+     * @param cRead
+     *            char to check.
+     * @return char class.
+     */
+    static int getCharClass(final char cRead) {
+        if (cRead < 128) {
+            return CHAR_CLASS_TABLE[cRead];
+        }
+        return cRead == '　'/* FULL_WIDTH_SPACE */ ? CHAR_CLASS_WHITESPACE : CHAR_CLASS_WORD;
+    }
+
+    /**
+     * Read more chars into buffer of streaming scanner. Chars before the
+     * cursor are discarded.
+     *
+     * @param reader
+     *            reader of source code. This is not closed here.
+     * @return false if already at the end of reader.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public boolean fill(final Reader reader) throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        final int keepLength = limit - pos;
+        bufferOffset += pos;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, keepLength);
+        } else if (keepLength == buf.length) {
+            // one token is longer than buffer.
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        pos = 0;
+        limit = keepLength;
+
+        final int readLength = reader.read(buf, limit, buf.length - limit);
+        if (readLength < 0) {
+            eof = true;
+        } else {
+            limit += readLength;
+        }
+        return true;
+    }
+
+    /**
+     * Scan next token.
+     *
+     * @return kind of token. KIND_EOF if end of source. KIND_NEED_MORE if
+     *         streaming scanner needs {@link #fill(Reader)}.
+     */
+    public int next() {
+        for (;;) {
+            tokenStart = pos;
+            tokenLineNumber = lineNumber;
+            tokenLineStartOffset = lineStartOffset;
+            tokenSubType = SUBTYPE_NONE;
+
+            if (pos >= limit) {
+                tokenEnd = pos;
+                tokenKind = eof ? KIND_EOF : KIND_NEED_MORE;
+                return tokenKind;
+            }
+
+            final int result = scanToken(buf[pos]);
+            if (result == SKIP) {
+                continue;
+            }
+            if (result == KIND_NEED_MORE) {
+                // rewind to the start of token. it will be scanned again.
+                pos = tokenStart;
+                lineNumber = tokenLineNumber;
+                lineStartOffset = tokenLineStartOffset;
+                tokenSubType = SUBTYPE_NONE;
+                tokenEnd = tokenStart;
+                tokenKind = KIND_NEED_MORE;
+                return KIND_NEED_MORE;
+            }
+            tokenEnd = pos;
+            tokenKind = result;
+            return result;
+        }
+    }
+
+    /**
+     * Scan one token from the cursor.
+     *
+     * @param cRead
+     *            first char of token.
+     * @return kind of token, KIND_NEED_MORE or SKIP.
+     */
+    protected int scanToken(final char cRead) {
+        switch (getCharClass(cRead)) {
+        case CHAR_CLASS_SLASH:
+            if (pos + 1 >= limit) {
+                // '/' at the end of source is ignored.
+                return endOfBuffer();
+            }
+            if (buf[pos + 1] == '*') {
+                return scanMultilineComment();
+            } else if (buf[pos + 1] == '/') {
+                return scanSinglelineComment();
+            }
+            return scanWord();
+        case CHAR_CLASS_QUOTE:
+        case CHAR_CLASS_DOUBLE_QUOTE:
+            return scanStringLiteral(cRead);
+        case CHAR_CLASS_SPECIAL:
+            return scanSpecialChar(cRead);
+        case CHAR_CLASS_WHITESPACE:
+            return scanWhitespaceWithoutlines();
+        case CHAR_CLASS_NEWLINE:
+            return scanNewlines(cRead);
+        default:
+            return scanWord();
+        }
+    }
+
+    /**
+     * Reached the end of buffer before the token completes. At the end of
+     * source, the range is dropped.
+     *
+     * @return KIND_NEED_MORE or SKIP.
+     */
+    private int endOfBuffer() {
+        if (!eof) {
+            return KIND_NEED_MORE;
+        }
+        pos = limit;
+        return SKIP;
+    }
+
+    /**
+     * Scan word. '/' is part of word unless it starts comment. Word which is
+     * number literal is reported as literal.
+     *
+     * @return kind of token or KIND_NEED_MORE.
+     */
+    protected int scanWord() {
+        final int wordEnd = scanWordPart(pos + 1);
+        if (wordEnd == KIND_NEED_MORE) {
+            return KIND_NEED_MORE;
+        }
+        if (isDigit(buf[pos])) {
+            int index = wordEnd;
+            if (index < limit && buf[index] == '.' && getNumberSubType(buf, pos, index) == SUBTYPE_INTEGER) {
+                // decimal point.
+                index = scanNumberPart(index);
+            }
+            if (index != KIND_NEED_MORE && index < limit && (buf[index] == '+' || buf[index] == '-')
+                    && (buf[index - 1] == 'e' || buf[index - 1] == 'E')) {
+                // sign of exponent.
+                index = scanNumberPart(index);
+            }
+            if (index == KIND_NEED_MORE) {
+                return KIND_NEED_MORE;
+            }
+
+            int numberSubType = getNumberSubType(buf, pos, index);
+            if (numberSubType == SUBTYPE_NONE && index != wordEnd) {
+                index = wordEnd;
+                numberSubType = getNumberSubType(buf, pos, index);
+            }
+            if (numberSubType != SUBTYPE_NONE) {
+                pos = index;
+                tokenSubType = numberSubType;
+                return KIND_LITERAL;
+            }
+        }
+
+        tokenSubType = BlancoApexKeywords.getWordSubType(buf, pos, wordEnd);
+        pos = wordEnd;
+        return KIND_WORD;
+    }
+
+    /**
+     * Scan rest of number over decimal point or sign of exponent, if digit
+     * follows.
+     *
+     * @param index
+     *            index of decimal point or sign.
+     * @return end index of number part (exclusive), or KIND_NEED_MORE.
+     */
+    private int scanNumberPart(final int index) {
+        if (index + 1 >= limit) {
+            return eof ? index : KIND_NEED_MORE;
+        }
+        if (isDigit(buf[index + 1]) == false) {
+            return index;
+        }
+        return scanWordPart(index + 2);
+    }
+
+    /**
+     * Scan rest of word.
+     *
+     * @param start
+     *            index to start scan.
+     * @return end index of word (exclusive), or KIND_NEED_MORE.
+     */
+    protected int scanWordPart(final int start) {
+        int index = start;
+        for (; index < limit; index++) {
+            final int charClass = getCharClass(buf[index]);
+            if (charClass == CHAR_CLASS_WORD) {
+                continue;
+            }
+            if (charClass == CHAR_CLASS_SLASH) {
+                if (index + 1 >= limit) {
+                    // '/' at the end of source is ignored.
+                    break;
+                }
+                if (buf[index + 1] != '*' && buf[index + 1] != '/') {
+                    continue;
+                }
+            }
+            break;
+        }
+        if (!eof && (index >= limit || (index + 1 >= limit && buf[index] == '/'))) {
+            // word or '/' may continue.
+            return KIND_NEED_MORE;
+        }
+        return index;
+    }
+
+    /**
+     * Is ASCII digit or not.
+     *
+     * @param cRead
+     *            char to check.
+     * @return true:digit.
+     */
+    static boolean isDigit(final char cRead) {
+        return cRead >= '0' && cRead <= '9';
+    }
+
+    /**
+     * Determine given range is Apex number literal or not. This never throws
+     * exception nor creates object.
+     *
+     * <ul>
+     * <li>integer: 123</li>
+     * <li>long: 123L</li>
+     * <li>decimal: 1.23</li>
+     * <li>double: 1.23e10, 1.23e-10, 123d</li>
+     * </ul>
+     *
+     * @param buf
+     *            buffer.
+     * @param start
+     *            start index (inclusive).
+     * @param end
+     *            end index (exclusive).
+     * @return SUBTYPE_INTEGER, SUBTYPE_LONG, SUBTYPE_DECIMAL, SUBTYPE_DOUBLE or
+     *         SUBTYPE_NONE if not a number.
+     */
+    public static int getNumberSubType(final char[] buf, final int start, final int end) {
+        int index = start;
+        while (index < end && isDigit(buf[index])) {
+            index++;
+        }
+        if (index == start) {
+            return SUBTYPE_NONE;
+        }
+
+        int subType = SUBTYPE_INTEGER;
+        if (index < end && buf[index] == '.') {
+            final int fractionStart = ++index;
+            while (index < end && isDigit(buf[index])) {
+                index++;
+            }
+            if (index == fractionStart) {
+                return SUBTYPE_NONE;
+            }
+            subType = SUBTYPE_DECIMAL;
+        }
+        if (index < end && (buf[index] == 'e' || buf[index] == 'E')) {
+            index++;
+            if (index < end && (buf[index] == '+' || buf[index] == '-')) {
+                index++;
+            }
+            final int exponentStart = index;
+            while (index < end && isDigit(buf[index])) {
+                index++;
+            }
+            if (index == exponentStart) {
+                return SUBTYPE_NONE;
+            }
+            subType = SUBTYPE_DOUBLE;
+        }
+        if (index < end) {
+            final char cSuffix = buf[index];
+            if ((cSuffix == 'l' || cSuffix == 'L') && subType == SUBTYPE_INTEGER) {
+                index++;
+                subType = SUBTYPE_LONG;
+            } else if (cSuffix == 'd' || cSuffix == 'D') {
+                index++;
+                subType = SUBTYPE_DOUBLE;
+            }
+        }
+        return index == end ? subType : SUBTYPE_NONE;
+    }
+
+    /**
+     * Scan multi line comment.
+     *
+     * @return kind of token, KIND_NEED_MORE or SKIP.
+     */
+    protected int scanMultilineComment() {
+        // flag to determine line number.
+        boolean isPastCr = false;
+
+        for (int index = pos + 2; index < limit; index++) {
+            final char cRead = buf[index];
+            if (cRead == '*') {
+                if (index + 1 >= limit) {
+                    break;
+                }
+                if (buf[index + 1] == '/') {
+                    // end multi-line comment
+                    pos = index + 2;
+                    tokenSubType = SUBTYPE_MULTI_LINE;
+                    return KIND_COMMENT;
+                }
+            } else if (cRead == '\r') {
+                lineNumber++;
+                lineStartOffset = bufferOffset + index + 1;
+                isPastCr = true;
+            } else if (cRead == '\n') {
+                if (isPastCr) {
+                    isPastCr = false;
+                } else {
+                    lineNumber++;
+                }
+                lineStartOffset = bufferOffset + index + 1;
+            }
+        }
+
+        // unterminated comment is ignored.
+        return endOfBuffer();
+    }
+
+    /**
+     * Scan single line comment. New-line is not included.
+     *
+     * @return kind of token or KIND_NEED_MORE.
+     */
+    protected int scanSinglelineComment() {
+        int index = pos + 2;
+        for (; index < limit; index++) {
+            final char cRead = buf[index];
+            if (cRead == '\n' || cRead == '\r') {
+                break;
+            }
+        }
+        if (index >= limit && !eof) {
+            return KIND_NEED_MORE;
+        }
+        pos = index;
+        tokenSubType = SUBTYPE_SINGLE_LINE;
+        return KIND_COMMENT;
+    }
+
+    /**
+     * Scan string literal. Both of single quote and double quote (for SOQL)
+     * are treated as same.
+     *
+     * @param cQuote
+     *            quote char.
+     * @return kind of token, KIND_NEED_MORE or SKIP.
+     */
+    protected int scanStringLiteral(final char cQuote) {
+        for (int index = pos + 1; index < limit; index++) {
+            final char cRead = buf[index];
+            if (cRead == '\\') {
+                // entering escape mode. skip next char.
+                index++;
+            } else if (cRead == cQuote) {
+                pos = index + 1;
+                tokenSubType = SUBTYPE_STRING;
+                return KIND_LITERAL;
+            }
+        }
+
+        // unterminated string literal is ignored.
+        return endOfBuffer();
+    }
+
+    /**
+     * Scan special char. If combine is enabled, the longest one of
+     * {@link BlancoApexParser#COMBINED_SPECIAL_CHAR} is taken.
+     *
+     * @param cRead
+     *            first special char.
+     * @return kind of token or KIND_NEED_MORE.
+     */
+    protected int scanSpecialChar(final char cRead) {
+        int index = pos + 1;
+        if (combineSpecialChar) {
+            int node = COMBINED_SPECIAL_CHAR_TRIE[0][cRead];
+            for (int lookup = index; node != 0; lookup++) {
+                if (lookup >= limit) {
+                    if (!eof) {
+                        return KIND_NEED_MORE;
+                    }
+                    break;
+                }
+                final char cLookup = buf[lookup];
+                if (getCharClass(cLookup) != CHAR_CLASS_SPECIAL) {
+                    break;
+                }
+                node = COMBINED_SPECIAL_CHAR_TRIE[node][cLookup];
+                if (node != 0 && COMBINED_SPECIAL_CHAR_TERMINAL[node]) {
+                    index = lookup + 1;
+                }
+            }
+        }
+        pos = index;
+        return KIND_SPECIAL_CHAR;
+    }
+
+    /**
+     * Scan whitespaces excluding new-lines.
+     *
+     * @return kind of token, KIND_NEED_MORE or SKIP.
+     */
+    protected int scanWhitespaceWithoutlines() {
+        int index = pos + 1;
+        while (index < limit && getCharClass(buf[index]) == CHAR_CLASS_WHITESPACE) {
+            index++;
+        }
+        if (index >= limit) {
+            // whitespace at the end of source is ignored.
+            return endOfBuffer();
+        }
+        pos = index;
+        return KIND_WHITESPACE;
+    }
+
+    /**
+     * Scan one new-line. CR+LF is treated as one new-line.
+     *
+     * @param cRead
+     *            first char of new-line.
+     * @return kind of token or KIND_NEED_MORE.
+     */
+    protected int scanNewlines(final char cRead) {
+        if (cRead == '\r') {
+            if (pos + 1 >= limit) {
+                if (!eof) {
+                    return KIND_NEED_MORE;
+                }
+            } else if (buf[pos + 1] == '\n') {
+                // \r\n occur.
+                pos++;
+            }
+        }
+        pos++;
+
+        lineNumber++;
+        lineStartOffset = bufferOffset + pos;
+        return KIND_NEWLINE;
+    }
+
+    /**
+     * Set combine special chars like "++", "&lt;=" or not.
+     *
+     * @param arg
+     *            true:combine, false:one special char is one token.
+     */
+    public void setCombineSpecialChar(final boolean arg) {
+        combineSpecialChar = arg;
+    }
+
+    /**
+     * Get source code buffer.
+     *
+     * @return source code buffer.
+     */
+    public char[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * Get kind of current token.
+     *
+     * @return kind of token.
+     */
+    public int getTokenKind() {
+        return tokenKind;
+    }
+
+    /**
+     * Get sub type of current token.
+     *
+     * @return sub type of token.
+     */
+    public int getTokenSubType() {
+        return tokenSubType;
+    }
+
+    /**
+     * Get start index of current token.
+     *
+     * @return start index (inclusive).
+     */
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    /**
+     * Get end index of current token.
+     *
+     * @return end index (exclusive).
+     */
+    public int getTokenEnd() {
+        return tokenEnd;
+    }
+
+    /**
+     * Get offset of current token from the start of source code. This differs
+     * from {@link #getTokenStart()} if scanner started at non-zero index, or
+     * streaming scanner discarded consumed chars.
+     *
+     * @return offset of token.
+     */
+    public int getTokenOffset() {
+        return bufferOffset + tokenStart;
+    }
+
+    /**
+     * Get line number of current token.
+     *
+     * @return line number.
+     */
+    public int getTokenLineNumber() {
+        return tokenLineNumber;
+    }
+
+    /**
+     * Get column of current token. This is counted from the start of line of
+     * {@link #getTokenLineNumber()}.
+     *
+     * @return column (1 origin).
+     */
+    public int getTokenColumn() {
+        return getTokenOffset() - tokenLineStartOffset + 1;
+    }
+
+    /**
+     * Get value of current token as new string.
+     *
+     * @return value of token.
+     */
+    public String getTokenString() {
+        return new String(buf, tokenStart, tokenEnd - tokenStart);
+    }
+}
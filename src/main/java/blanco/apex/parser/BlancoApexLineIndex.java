@@ -0,0 +1,272 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.Arrays;
+import java.util.List;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Index of lines of token buffer.
+ * 
+ * <p>
+ * Keeps start offset of each line and index of first token of each line, so
+ * offset, line and token are mapped to each other by binary search. Lines are
+ * counted same as lexer: by newline tokens and by newlines in multi line
+ * comments.
+ * </p>
+ * 
+ * <p>
+ * Useage:
+ * </p>
+ * 
+ * <code>
+ * BlancoApexLineIndex lineIndex = tokenBuffer.getLineIndex();<br>
+ * int tokenIndex = lineIndex.tokenAt(offset);<br>
+ * List&lt;BlancoApexToken&gt; tokens = lineIndex.tokensOnLine(lineNumber);
+ * </code>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexLineIndex {
+    /**
+     * Token buffer of this index.
+     */
+    private final BlancoApexTokenBuffer tokenBuffer;
+
+    /**
+     * Start offset of each line. Index is line number - 1.
+     */
+    private int[] lineStarts = new int[16];
+
+    /**
+     * Count of lines.
+     */
+    private int lineCount = 0;
+
+    /**
+     * Index of first token which starts on or after each line. Index is line
+     * number - 1, and the one after last line is count of tokens.
+     */
+    private int[] firstTokens = new int[16];
+
+    /**
+     * Constructor. Use {@link BlancoApexTokenBuffer#getLineIndex()}.
+     * 
+     * @param tokenBuffer
+     *            token buffer.
+     */
+    BlancoApexLineIndex(final BlancoApexTokenBuffer tokenBuffer) {
+        this.tokenBuffer = tokenBuffer;
+        addLine(0);
+        int firstTokenCount = 0;
+        for (int index = 0; index < tokenBuffer.size(); index++) {
+            final int tokenLine = tokenBuffer.lineNumbers[index];
+            for (; firstTokenCount < tokenLine; firstTokenCount++) {
+                firstTokens = ensureCapacity(firstTokens, firstTokenCount + 1);
+                firstTokens[firstTokenCount] = index;
+            }
+
+            final int start = tokenBuffer.starts[index];
+            final int end = start + tokenBuffer.lengths[index];
+            if (tokenBuffer.kinds[index] == BlancoApexLexicalScanner.KIND_NEWLINE) {
+                addLine(end);
+            } else if (tokenBuffer.kinds[index] == BlancoApexLexicalScanner.KIND_COMMENT
+                    && tokenBuffer.subTypes[index] == BlancoApexLexicalScanner.SUBTYPE_MULTI_LINE) {
+                addCommentLines(tokenBuffer.source, start, end);
+            }
+        }
+        // lines without token, and end of last line.
+        firstTokens = ensureCapacity(firstTokens, lineCount + 1);
+        for (; firstTokenCount <= lineCount; firstTokenCount++) {
+            firstTokens[firstTokenCount] = tokenBuffer.size();
+        }
+    }
+
+    /**
+     * Add lines in multi line comment. Same rule as lexer.
+     * 
+     * @param source
+     *            source code buffer.
+     * @param start
+     *            start of comment.
+     * @param end
+     *            end of comment.
+     */
+    private void addCommentLines(final char[] source, final int start, final int end) {
+        boolean isPastCr = false;
+        for (int index = start + 2; index < end; index++) {
+            final char cRead = source[index];
+            if (cRead == '\r') {
+                addLine(index + 1);
+                isPastCr = true;
+            } else if (cRead == '\n') {
+                if (isPastCr) {
+                    isPastCr = false;
+                    // line of "\r\n" starts after "\n".
+                    lineStarts[lineCount - 1] = index + 1;
+                } else {
+                    addLine(index + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add line.
+     * 
+     * @param lineStart
+     *            start offset of line.
+     */
+    private void addLine(final int lineStart) {
+        lineStarts = ensureCapacity(lineStarts, lineCount + 1);
+        lineStarts[lineCount++] = lineStart;
+    }
+
+    private static int[] ensureCapacity(final int[] array, final int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    /**
+     * Get count of lines.
+     * 
+     * @return count of lines.
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Get start offset of line.
+     * 
+     * @param lineNumber
+     *            line number (1 origin).
+     * @return start offset of line.
+     */
+    public int getLineStartOffset(final int lineNumber) {
+        checkLineNumber(lineNumber);
+        return lineStarts[lineNumber - 1];
+    }
+
+    /**
+     * Get line number of offset.
+     * 
+     * @param offset
+     *            offset in source.
+     * @return line number (1 origin).
+     */
+    public int getLineNumberOf(final int offset) {
+        int low = 0;
+        int high = lineCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (lineStarts[middle] <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return Math.max(high, 0) + 1;
+    }
+
+    /**
+     * Get column of offset.
+     * 
+     * @param offset
+     *            offset in source.
+     * @return column (1 origin).
+     */
+    public int getColumnOf(final int offset) {
+        return offset - lineStarts[getLineNumberOf(offset) - 1] + 1;
+    }
+
+    /**
+     * Get line number and column of offset.
+     * 
+     * @param offset
+     *            offset in source.
+     * @return array of line number and column (1 origin).
+     */
+    public int[] lineColumnOf(final int offset) {
+        final int lineNumber = getLineNumberOf(offset);
+        return new int[] { lineNumber, offset - lineStarts[lineNumber - 1] + 1 };
+    }
+
+    /**
+     * Get index of token which contains offset.
+     * 
+     * @param offset
+     *            offset in source.
+     * @return index of token. -1 if no token contains the offset.
+     */
+    public int tokenAt(final int offset) {
+        final int index = BlancoApexLexicalParser.findLastTokenStartingAtOrBefore(tokenBuffer, offset);
+        if (index < 0 || offset >= tokenBuffer.starts[index] + tokenBuffer.lengths[index]) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Get index of first token which starts on line.
+     * 
+     * @param lineNumber
+     *            line number (1 origin).
+     * @return index of token. Same as {@link #getEndTokenIndex(int)} if no
+     *         token starts on the line.
+     */
+    public int getFirstTokenIndex(final int lineNumber) {
+        checkLineNumber(lineNumber);
+        return firstTokens[lineNumber - 1];
+    }
+
+    /**
+     * Get index next to last token which starts on line.
+     * 
+     * @param lineNumber
+     *            line number (1 origin).
+     * @return index of token (exclusive).
+     */
+    public int getEndTokenIndex(final int lineNumber) {
+        checkLineNumber(lineNumber);
+        return firstTokens[lineNumber];
+    }
+
+    /**
+     * Get tokens which start on line. Multi line comment belongs to the line
+     * where it starts.
+     * 
+     * @param lineNumber
+     *            line number (1 origin).
+     * @return List of token. View of {@link BlancoApexTokenBuffer#asTokenList()}.
+     */
+    public List<BlancoApexToken> tokensOnLine(final int lineNumber) {
+        return tokenBuffer.asTokenList().subList(getFirstTokenIndex(lineNumber), getEndTokenIndex(lineNumber));
+    }
+
+    /**
+     * Check line number.
+     * 
+     * @param lineNumber
+     *            line number.
+     */
+    private void checkLineNumber(final int lineNumber) {
+        if (lineNumber < 1 || lineNumber > lineCount) {
+            throw new IndexOutOfBoundsException("Line: " + lineNumber + ", Count: " + lineCount);
+        }
+    }
+}
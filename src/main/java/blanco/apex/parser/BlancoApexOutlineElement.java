@@ -0,0 +1,289 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Declaration found by {@link BlancoApexOutlineParser}, like class, method or
+ * property.
+ * 
+ * <p>
+ * Body in braces is not lexed while outline parsing. Tokens of body are lexed
+ * on first call of {@link #getBodyTokenBuffer()}.
+ * </p>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexOutlineElement {
+    /**
+     * Kind: class.
+     */
+    public static final int KIND_CLASS = 1;
+
+    /**
+     * Kind: interface.
+     */
+    public static final int KIND_INTERFACE = 2;
+
+    /**
+     * Kind: enum.
+     */
+    public static final int KIND_ENUM = 3;
+
+    /**
+     * Kind: trigger.
+     */
+    public static final int KIND_TRIGGER = 4;
+
+    /**
+     * Kind: method.
+     */
+    public static final int KIND_METHOD = 5;
+
+    /**
+     * Kind: constructor.
+     */
+    public static final int KIND_CONSTRUCTOR = 6;
+
+    /**
+     * Kind: property with accessors, like "String name { get; set; }".
+     */
+    public static final int KIND_PROPERTY = 7;
+
+    /**
+     * Kind: field.
+     */
+    public static final int KIND_FIELD = 8;
+
+    /**
+     * Kind: initializer block, like "static { ... }".
+     */
+    public static final int KIND_INITIALIZER = 9;
+
+    /**
+     * Source code buffer.
+     */
+    protected final char[] source;
+
+    /**
+     * Kind of declaration. ex. KIND_CLASS
+     */
+    protected int kind;
+
+    /**
+     * Name of declaration. null for initializer.
+     */
+    protected String name;
+
+    /**
+     * Signature: source text of declaration without annotations and body.
+     */
+    protected String signature;
+
+    /**
+     * Annotations like "@isTest" or "@AuraEnabled(cacheable=true)".
+     */
+    protected final List<String> annotations = new ArrayList<String>();
+
+    /**
+     * Start offset of declaration, including annotations.
+     */
+    protected int startOffset;
+
+    /**
+     * End offset of declaration (exclusive).
+     */
+    protected int endOffset;
+
+    /**
+     * Line number of start of declaration.
+     */
+    protected int lineNumber;
+
+    /**
+     * Offset of "{" of body. -1 if no body.
+     */
+    protected int bodyStartOffset = -1;
+
+    /**
+     * Line number of "{" of body.
+     */
+    protected int bodyLineNumber;
+
+    /**
+     * Column of "{" of body.
+     */
+    protected int bodyColumn;
+
+    /**
+     * Declarations in body of class, interface or trigger.
+     */
+    protected final List<BlancoApexOutlineElement> children = new ArrayList<BlancoApexOutlineElement>();
+
+    /**
+     * Tokens of body. null until lexed.
+     */
+    private BlancoApexTokenBuffer bodyTokenBuffer = null;
+
+    /**
+     * Constructor.
+     * 
+     * @param source
+     *            source code buffer.
+     */
+    BlancoApexOutlineElement(final char[] source) {
+        this.source = source;
+    }
+
+    /**
+     * Get kind of declaration.
+     * 
+     * @return kind. ex. KIND_CLASS
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * Get name of declaration.
+     * 
+     * @return name. null for initializer.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get signature of declaration: source text without annotations and
+     * body. ex. "public static Integer add(Integer a, Integer b)"
+     * 
+     * @return signature.
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    /**
+     * Get annotations of declaration.
+     * 
+     * @return List of annotation. ex. "@isTest"
+     */
+    public List<String> getAnnotations() {
+        return annotations;
+    }
+
+    /**
+     * Get start offset of declaration, including annotations.
+     * 
+     * @return offset in source.
+     */
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * Get end offset of declaration.
+     * 
+     * @return offset in source (exclusive).
+     */
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Get line number of start of declaration.
+     * 
+     * @return line number.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Check declaration has body in braces.
+     * 
+     * @return true:has body.
+     */
+    public boolean hasBody() {
+        return bodyStartOffset >= 0;
+    }
+
+    /**
+     * Get offset of "{" of body.
+     * 
+     * @return offset in source. -1 if no body.
+     */
+    public int getBodyStartOffset() {
+        return bodyStartOffset;
+    }
+
+    /**
+     * Get declarations in body of class, interface or trigger.
+     * 
+     * @return List of element.
+     */
+    public List<BlancoApexOutlineElement> getChildren() {
+        return children;
+    }
+
+    /**
+     * Get tokens of body, from "{" to "}". Body is lexed on first call. Offsets,
+     * line numbers and columns are same as lexing of whole source.
+     * 
+     * @return token buffer. null if no body.
+     */
+    public BlancoApexTokenBuffer getBodyTokenBuffer() {
+        if (bodyStartOffset < 0) {
+            return null;
+        }
+        if (bodyTokenBuffer == null) {
+            final int length = endOffset - bodyStartOffset;
+            final BlancoApexTokenBuffer tokenBuffer = new BlancoApexTokenBuffer(source, length / 4);
+            final BlancoApexLexicalScanner scanner = new BlancoApexLexicalScanner(source, bodyStartOffset, length);
+            scanner.setCombineSpecialChar(true);
+            scanner.setLineNumber(bodyLineNumber);
+            scanner.setColumn(bodyColumn);
+            while (scanner.next() != BlancoApexLexicalScanner.KIND_EOF) {
+                tokenBuffer.add(scanner.getTokenKind(), scanner.getTokenSubType(), scanner.getTokenStart(),
+                        scanner.getTokenEnd() - scanner.getTokenStart(), scanner.getTokenLineNumber(),
+                        scanner.getTokenColumn());
+            }
+            tokenBuffer.trimToSize();
+            bodyTokenBuffer = tokenBuffer;
+        }
+        return bodyTokenBuffer;
+    }
+
+    /**
+     * Get tokens of body, from "{" to "}".
+     * 
+     * @return List of token. null if no body.
+     */
+    public List<BlancoApexToken> getBodyTokenList() {
+        final BlancoApexTokenBuffer tokenBuffer = getBodyTokenBuffer();
+        return tokenBuffer == null ? null : tokenBuffer.asTokenList();
+    }
+
+    @Override
+    public String toString() {
+        return "BlancoApexOutlineElement[kind=" + kind + ", name=" + name + ", signature=" + signature
+                + ", annotations=" + annotations + ", lineNumber=" + lineNumber + ", children=" + children + "]";
+    }
+}
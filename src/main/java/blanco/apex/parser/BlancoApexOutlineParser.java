@@ -0,0 +1,435 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Outline parser of Apex, which finds declarations like class, method,
+ * property and trigger.
+ * 
+ * <p>
+ * Declarations are recognized at top level and in bodies of class and
+ * interface. Other bodies in braces, like body of method, are skipped by depth
+ * of braces. No token object is created while outline parsing. Tokens of a
+ * body are lexed when {@link BlancoApexOutlineElement#getBodyTokenBuffer()} is
+ * called.
+ * </p>
+ * 
+ * <p>
+ * Useage:
+ * </p>
+ * 
+ * <code>
+ * for (BlancoApexOutlineElement element : new BlancoApexOutlineParser().parse(file)) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;... element.getName() ... element.getChildren() ...<br>
+ * }
+ * </code>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexOutlineParser {
+    /**
+     * Parse outline of source code string.
+     * 
+     * @param sourceString
+     *            String of source code.
+     * @return List of top level declaration.
+     */
+    public List<BlancoApexOutlineElement> parse(final String sourceString) {
+        final char[] source = sourceString.toCharArray();
+        return parse(source, 0, source.length);
+    }
+
+    /**
+     * Parse outline of UTF-8 file.
+     * 
+     * @param file
+     *            File of source code.
+     * @return List of top level declaration.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public List<BlancoApexOutlineElement> parse(final File file) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            final char[] source = BlancoApexParserUtil.readAll(reader);
+            return parse(source, 0, source.length);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parse outline of source code in char array.
+     * 
+     * @param source
+     *            source code buffer. Elements point into this.
+     * @param offset
+     *            start index of source code.
+     * @param length
+     *            length of source code.
+     * @return List of top level declaration.
+     */
+    public List<BlancoApexOutlineElement> parse(final char[] source, final int offset, final int length) {
+        final BlancoApexLexicalScanner scanner = new BlancoApexLexicalScanner(source, offset, length);
+        scanner.setCombineSpecialChar(true);
+        final List<BlancoApexOutlineElement> result = new ArrayList<BlancoApexOutlineElement>();
+        parseMembers(scanner, null, result, false);
+        return result;
+    }
+
+    /**
+     * Parse declarations until "}" of enclosing body.
+     * 
+     * @param scanner
+     *            scanner.
+     * @param enclosingName
+     *            name of enclosing class. null at top level.
+     * @param result
+     *            List to add declarations.
+     * @param isBody
+     *            true:in body of class, false:top level.
+     * @return end offset of enclosing body (after "}"). -1 if end of source.
+     */
+    protected int parseMembers(final BlancoApexLexicalScanner scanner, final String enclosingName,
+            final List<BlancoApexOutlineElement> result, final boolean isBody) {
+        final char[] source = scanner.getBuffer();
+        final Header header = new Header();
+        for (;;) {
+            final int kind = scanner.next();
+            if (kind == BlancoApexLexicalScanner.KIND_EOF) {
+                return -1;
+            }
+            if (kind == BlancoApexLexicalScanner.KIND_WHITESPACE || kind == BlancoApexLexicalScanner.KIND_NEWLINE
+                    || kind == BlancoApexLexicalScanner.KIND_COMMENT) {
+                continue;
+            }
+            final int start = scanner.getTokenStart();
+            final int end = scanner.getTokenEnd();
+            final char cFirst = kind == BlancoApexLexicalScanner.KIND_SPECIAL_CHAR && end - start == 1
+                    ? source[start] : 0;
+
+            if (header.annotationStart >= 0 && header.isAnnotationNamed) {
+                if (cFirst == '(') {
+                    // parameters of annotation.
+                    final int parenEnd = skipBlock(scanner, '(', ')');
+                    header.addAnnotation(source, parenEnd < 0 ? scanner.getTokenEnd() : parenEnd);
+                    continue;
+                }
+                header.addAnnotation(source, header.annotationEnd);
+            }
+
+            header.start(scanner);
+            switch (cFirst) {
+            case '}':
+                if (isBody) {
+                    return end;
+                }
+                header.reset();
+                break;
+            case ';':
+                if (header.hasSignature()) {
+                    final BlancoApexOutlineElement element = header.createElement(source, start, enclosingName);
+                    element.endOffset = end;
+                    result.add(element);
+                }
+                header.reset();
+                break;
+            case '@':
+                header.annotationStart = start;
+                header.isAnnotationNamed = false;
+                break;
+            case '(':
+                header.addParen();
+                skipBlock(scanner, '(', ')');
+                break;
+            case '=':
+                header.addEquals();
+                break;
+            case '{':
+                if (header.hasEquals) {
+                    // initializer of field, like "new List<String>{ 'a' }".
+                    skipBlock(scanner, '{', '}');
+                    break;
+                }
+                final BlancoApexOutlineElement element = header.createElement(source, start, enclosingName);
+                element.bodyStartOffset = start;
+                element.bodyLineNumber = scanner.getTokenLineNumber();
+                element.bodyColumn = scanner.getTokenColumn();
+                final int bodyEnd;
+                if (element.kind == BlancoApexOutlineElement.KIND_CLASS
+                        || element.kind == BlancoApexOutlineElement.KIND_INTERFACE) {
+                    bodyEnd = parseMembers(scanner, element.name, element.children, true);
+                } else {
+                    bodyEnd = skipBlock(scanner, '{', '}');
+                }
+                element.endOffset = bodyEnd < 0 ? scanner.limit : bodyEnd;
+                result.add(element);
+                header.reset();
+                if (bodyEnd < 0) {
+                    return -1;
+                }
+                break;
+            default:
+                if (kind == BlancoApexLexicalScanner.KIND_WORD) {
+                    if (header.annotationStart >= 0) {
+                        // name of annotation.
+                        header.isAnnotationNamed = true;
+                        header.annotationEnd = end;
+                    } else {
+                        header.addWord(start, end);
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Skip tokens until matching close char. Scanner points open char.
+     * 
+     * @param scanner
+     *            scanner.
+     * @param cOpen
+     *            open char.
+     * @param cClose
+     *            close char.
+     * @return end offset after close char. -1 if end of source.
+     */
+    protected int skipBlock(final BlancoApexLexicalScanner scanner, final char cOpen, final char cClose) {
+        final char[] source = scanner.getBuffer();
+        int depth = 1;
+        for (int kind = scanner.next(); kind != BlancoApexLexicalScanner.KIND_EOF; kind = scanner.next()) {
+            if (kind != BlancoApexLexicalScanner.KIND_SPECIAL_CHAR
+                    || scanner.getTokenEnd() - scanner.getTokenStart() != 1) {
+                continue;
+            }
+            final char cRead = source[scanner.getTokenStart()];
+            if (cRead == cOpen) {
+                depth++;
+            } else if (cRead == cClose) {
+                if (--depth == 0) {
+                    return scanner.getTokenEnd();
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tokens of declaration read so far.
+     */
+    static class Header {
+        /**
+         * Start offset of declaration including annotations. -1 if empty.
+         */
+        int startOffset = -1;
+
+        /**
+         * Line number of start of declaration.
+         */
+        int lineNumber;
+
+        /**
+         * Start offset of signature. -1 if not started.
+         */
+        int signatureStart = -1;
+
+        /**
+         * Start and end offset of each word.
+         */
+        int[] words = new int[16];
+
+        /**
+         * Count of words * 2.
+         */
+        int wordsLength = 0;
+
+        /**
+         * Index of word before first "(". -1 if no "(".
+         */
+        int wordBeforeParen = -1;
+
+        /**
+         * Index of word before first "=". -1 if no "=".
+         */
+        int wordBeforeEquals = -1;
+
+        /**
+         * "=" found or not.
+         */
+        boolean hasEquals = false;
+
+        /**
+         * Start offset of annotation being read. -1 if none.
+         */
+        int annotationStart = -1;
+
+        /**
+         * Name of annotation is read or not.
+         */
+        boolean isAnnotationNamed = false;
+
+        /**
+         * End offset of annotation being read.
+         */
+        int annotationEnd;
+
+        /**
+         * Annotations read.
+         */
+        List<String> annotations = new ArrayList<String>();
+
+        void reset() {
+            startOffset = -1;
+            signatureStart = -1;
+            wordsLength = 0;
+            wordBeforeParen = -1;
+            wordBeforeEquals = -1;
+            hasEquals = false;
+            annotationStart = -1;
+            isAnnotationNamed = false;
+            annotations = new ArrayList<String>();
+        }
+
+        /**
+         * Mark start of declaration at current token.
+         */
+        void start(final BlancoApexLexicalScanner scanner) {
+            if (startOffset < 0) {
+                startOffset = scanner.getTokenStart();
+                lineNumber = scanner.getTokenLineNumber();
+            }
+            if (signatureStart < 0 && annotationStart < 0
+                    && scanner.getTokenKind() != BlancoApexLexicalScanner.KIND_SPECIAL_CHAR) {
+                signatureStart = scanner.getTokenStart();
+            }
+        }
+
+        boolean hasSignature() {
+            return signatureStart >= 0;
+        }
+
+        void addAnnotation(final char[] source, final int end) {
+            annotations.add(new String(source, annotationStart, end - annotationStart));
+            annotationStart = -1;
+            isAnnotationNamed = false;
+        }
+
+        void addWord(final int start, final int end) {
+            if (signatureStart < 0) {
+                signatureStart = start;
+            }
+            if (wordsLength == words.length) {
+                words = Arrays.copyOf(words, wordsLength * 2);
+            }
+            words[wordsLength++] = start;
+            words[wordsLength++] = end;
+        }
+
+        void addEquals() {
+            if (hasEquals == false) {
+                wordBeforeEquals = wordsLength / 2 - 1;
+                hasEquals = true;
+            }
+        }
+
+        void addParen() {
+            // paren of initializer, like "= calc(1)", is not of method.
+            if (wordBeforeParen < 0 && hasEquals == false) {
+                wordBeforeParen = wordsLength / 2 - 1;
+            }
+        }
+
+        String getWord(final char[] source, final int index) {
+            if (index < 0 || index >= wordsLength / 2) {
+                return null;
+            }
+            return new String(source, words[index * 2], words[index * 2 + 1] - words[index * 2]);
+        }
+
+        boolean isWord(final char[] source, final int index, final String word) {
+            final int start = words[index * 2];
+            if (words[index * 2 + 1] - start != word.length()) {
+                return false;
+            }
+            for (int charIndex = 0; charIndex < word.length(); charIndex++) {
+                // keyword is lower case letters.
+                if ((source[start + charIndex] | 0x20) != word.charAt(charIndex)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Create element of declaration which ends at offset.
+         */
+        BlancoApexOutlineElement createElement(final char[] source, final int end, final String enclosingName) {
+            final BlancoApexOutlineElement element = new BlancoApexOutlineElement(source);
+            element.startOffset = startOffset;
+            element.lineNumber = lineNumber;
+            element.annotations.addAll(annotations);
+            element.signature = signatureStart < 0 ? ""
+                    : new String(source, signatureStart, end - signatureStart).trim();
+            final int wordCount = wordsLength / 2;
+            final boolean isBlock = source[end] == '{';
+
+            final int lastHeadWord = hasEquals ? wordBeforeEquals : wordBeforeParen;
+            for (int index = 0; index < wordCount && (lastHeadWord < 0 || index <= lastHeadWord); index++) {
+                if (isWord(source, index, "class")) {
+                    element.kind = BlancoApexOutlineElement.KIND_CLASS;
+                } else if (isWord(source, index, "interface")) {
+                    element.kind = BlancoApexOutlineElement.KIND_INTERFACE;
+                } else if (isWord(source, index, "enum")) {
+                    element.kind = BlancoApexOutlineElement.KIND_ENUM;
+                } else {
+                    continue;
+                }
+                element.name = getWord(source, index + 1);
+                return element;
+            }
+            if (wordCount > 0 && isWord(source, 0, "trigger")) {
+                element.kind = BlancoApexOutlineElement.KIND_TRIGGER;
+                element.name = getWord(source, 1);
+            } else if (hasEquals) {
+                element.kind = BlancoApexOutlineElement.KIND_FIELD;
+                element.name = getWord(source, wordBeforeEquals);
+            } else if (wordBeforeParen >= 0) {
+                element.name = getWord(source, wordBeforeParen);
+                element.kind = element.name != null && element.name.equalsIgnoreCase(enclosingName)
+                        ? BlancoApexOutlineElement.KIND_CONSTRUCTOR : BlancoApexOutlineElement.KIND_METHOD;
+            } else if (isBlock == false) {
+                element.kind = BlancoApexOutlineElement.KIND_FIELD;
+                element.name = getWord(source, wordCount - 1);
+            } else if (wordCount >= 2) {
+                element.kind = BlancoApexOutlineElement.KIND_PROPERTY;
+                element.name = getWord(source, wordCount - 1);
+            } else {
+                element.kind = BlancoApexOutlineElement.KIND_INITIALIZER;
+            }
+            return element;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.Arrays;
+import java.util.List;
+
+import blanco.apex.parser.token.BlancoApexSpecialCharToken;
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Index of matching pairs of brackets: "{" and "}", "(" and ")", "[" and "]".
+ * 
+ * <p>
+ * Each bracket token is mapped to index of its partner token and back, so
+ * skipping a block is one lookup. Index is built in one pass with a stack,
+ * while lexing or from tokens.
+ * </p>
+ * 
+ * <p>
+ * Useage:
+ * </p>
+ * 
+ * <code>
+ * BlancoApexPairIndex pairIndex = tokenBuffer.getPairIndex();<br>
+ * int closeIndex = pairIndex.getPair(openIndex);
+ * </code>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexPairIndex {
+    /**
+     * Index of partner of each token. -1 if none.
+     */
+    private int[] pairs;
+
+    /**
+     * Count of tokens.
+     */
+    private int size = 0;
+
+    /**
+     * Stack of indexes of open brackets.
+     */
+    private int[] stack = new int[16];
+
+    /**
+     * Open bracket of each entry of stack.
+     */
+    private char[] stackChars = new char[16];
+
+    /**
+     * Depth of stack.
+     */
+    private int depth = 0;
+
+    /**
+     * Input has unmatched bracket or not.
+     */
+    private boolean unbalanced = false;
+
+    /**
+     * Constructor. Tokens are added by {@link #add(int, char[], int, int)}.
+     * 
+     * @param initialCapacity
+     *            initial capacity of tokens.
+     */
+    BlancoApexPairIndex(final int initialCapacity) {
+        pairs = new int[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Build index from list of token.
+     * 
+     * @param tokenList
+     *            List of token.
+     * @return pair index.
+     */
+    public static BlancoApexPairIndex build(final List<BlancoApexToken> tokenList) {
+        final BlancoApexPairIndex result = new BlancoApexPairIndex(tokenList.size());
+        for (BlancoApexToken lookup : tokenList) {
+            // lazy value is not taken as String.
+            if (lookup instanceof BlancoApexSpecialCharToken && BlancoApexParserUtil.getLength(lookup) == 1) {
+                result.add(BlancoApexLexicalScanner.KIND_SPECIAL_CHAR, lookup.charAt(0));
+            } else {
+                result.add(BlancoApexLexicalScanner.KIND_WORD, ' ');
+            }
+        }
+        result.finish();
+        return result;
+    }
+
+    /**
+     * Build index from token buffer.
+     * 
+     * @param tokenBuffer
+     *            token buffer.
+     * @return pair index.
+     */
+    static BlancoApexPairIndex build(final BlancoApexTokenBuffer tokenBuffer) {
+        final BlancoApexPairIndex result = new BlancoApexPairIndex(tokenBuffer.size());
+        for (int index = 0; index < tokenBuffer.size(); index++) {
+            result.add(tokenBuffer.kinds[index], tokenBuffer.source, tokenBuffer.starts[index],
+                    tokenBuffer.lengths[index]);
+        }
+        result.finish();
+        return result;
+    }
+
+    /**
+     * Add next token.
+     * 
+     * @param kind
+     *            kind of token.
+     * @param buf
+     *            buffer of source.
+     * @param start
+     *            start of token in buffer.
+     * @param length
+     *            length of token.
+     */
+    void add(final int kind, final char[] buf, final int start, final int length) {
+        add(length == 1 ? kind : BlancoApexLexicalScanner.KIND_WORD, buf[start]);
+    }
+
+    /**
+     * Add next token.
+     * 
+     * @param kind
+     *            kind of token.
+     * @param cFirst
+     *            first char of token.
+     */
+    private void add(final int kind, final char cFirst) {
+        if (size == pairs.length) {
+            pairs = Arrays.copyOf(pairs, size * 2);
+        }
+        final int index = size++;
+        pairs[index] = -1;
+        if (kind != BlancoApexLexicalScanner.KIND_SPECIAL_CHAR) {
+            return;
+        }
+        switch (cFirst) {
+        case '{':
+        case '(':
+        case '[':
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+                stackChars = Arrays.copyOf(stackChars, depth * 2);
+            }
+            stack[depth] = index;
+            stackChars[depth++] = cFirst;
+            break;
+        case '}':
+            close(index, '{');
+            break;
+        case ')':
+            close(index, '(');
+            break;
+        case ']':
+            close(index, '[');
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Match close bracket with open bracket in stack.
+     * 
+     * @param index
+     *            index of close bracket.
+     * @param cOpen
+     *            open bracket which matches.
+     */
+    private void close(final int index, final char cOpen) {
+        // find nearest open bracket of same kind. open brackets above it are
+        // left unmatched.
+        int found = depth - 1;
+        while (found >= 0 && stackChars[found] != cOpen) {
+            found--;
+        }
+        if (found < 0) {
+            // no open bracket. stack is kept.
+            unbalanced = true;
+            return;
+        }
+        if (found != depth - 1) {
+            unbalanced = true;
+        }
+        final int openIndex = stack[found];
+        pairs[openIndex] = index;
+        pairs[index] = openIndex;
+        depth = found;
+    }
+
+    /**
+     * Finish adding tokens. Open brackets left in stack are unmatched.
+     */
+    void finish() {
+        if (depth > 0) {
+            unbalanced = true;
+        }
+        pairs = Arrays.copyOf(pairs, size);
+        stack = null;
+        stackChars = null;
+    }
+
+    /**
+     * Get count of tokens.
+     * 
+     * @return count of tokens.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get index of partner of bracket.
+     * 
+     * @param index
+     *            index of token.
+     * @return index of partner token. -1 if not a bracket or unmatched.
+     */
+    public int getPair(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return pairs[index];
+    }
+
+    /**
+     * Check input has unmatched bracket.
+     * 
+     * @return true:unmatched bracket exists.
+     */
+    public boolean isUnbalanced() {
+        return unbalanced;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.File;
+
+/**
+ * Listener of parsing, which receives metrics of each parsed file.
+ * 
+ * <p>
+ * Set by {@link BlancoApexParserOptions#setParseListener(BlancoApexParseListener)}.
+ * Nothing is measured when no listener is set, or when
+ * {@link #isEnabled()} returns false. Listener may be called from multiple
+ * threads if options are shared.
+ * </p>
+ * 
+ * @author Toshiki Iga
+ */
+public interface BlancoApexParseListener {
+    /**
+     * Called before each file. If false, the file is parsed without measuring,
+     * and neither onParseStart nor onParse is called for it.
+     * 
+     * @return true:measure the file, false:skip.
+     */
+    boolean isEnabled();
+
+    /**
+     * Called before a file is read, on the thread which parses the file.
+     * 
+     * @param file
+     *            file to parse.
+     */
+    void onParseStart(File file);
+
+    /**
+     * Called after a file is parsed, on the same thread as onParseStart. Not
+     * called when parsing fails.
+     * 
+     * @param metrics
+     *            metrics of the file.
+     */
+    void onParse(BlancoApexParseMetrics metrics);
+}
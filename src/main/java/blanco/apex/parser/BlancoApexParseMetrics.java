@@ -0,0 +1,235 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.File;
+import java.util.List;
+
+import blanco.apex.parser.token.BlancoApexSpecialCharToken;
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Metrics of parsing of one file.
+ * 
+ * <p>
+ * Special chars are combined into operators while scanning, so time of
+ * combining is a part of lex time. Count of combined operators is reported
+ * instead.
+ * </p>
+ * 
+ * <p>
+ * Metrics are taken on the same path as parsing without listener. When the
+ * file is read through a reader, reading and lexing are interleaved: read
+ * time is the time spent in the reader, and lex time is the rest.
+ * </p>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexParseMetrics {
+    /**
+     * Parsed file.
+     */
+    protected File file;
+
+    /**
+     * Count of bytes read.
+     */
+    protected long bytesRead = 0;
+
+    /**
+     * Count of chars decoded.
+     */
+    protected int charsDecoded = 0;
+
+    /**
+     * Count of tokens by kind. Index is kind of token.
+     */
+    protected final int[] tokenCounts = new int[BlancoApexLexicalScanner.KIND_NEWLINE + 1];
+
+    /**
+     * Count of special chars which are combined into operators.
+     */
+    protected int combinedSpecialCharCount = 0;
+
+    /**
+     * Time of reading and decoding in nano seconds.
+     */
+    protected long readNanos = 0;
+
+    /**
+     * Time of lexing, including combining of special chars, in nano seconds.
+     */
+    protected long lexNanos = 0;
+
+    /**
+     * Time of creating token objects from token buffer in nano seconds. 0 when
+     * token objects are created while lexing.
+     */
+    protected long buildNanos = 0;
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            parsed file.
+     */
+    public BlancoApexParseMetrics(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Count tokens of token buffer.
+     * 
+     * @param tokenBuffer
+     *            token buffer.
+     */
+    void countTokens(final BlancoApexTokenBuffer tokenBuffer) {
+        for (int index = 0; index < tokenBuffer.size(); index++) {
+            final int kind = tokenBuffer.kinds[index];
+            tokenCounts[kind]++;
+            if (kind == BlancoApexLexicalScanner.KIND_SPECIAL_CHAR && tokenBuffer.lengths[index] > 1) {
+                combinedSpecialCharCount++;
+            }
+        }
+    }
+
+    /**
+     * Count tokens of token list.
+     * 
+     * @param tokenList
+     *            List of token.
+     */
+    void countTokens(final List<BlancoApexToken> tokenList) {
+        for (BlancoApexToken lookup : tokenList) {
+            tokenCounts[BlancoApexParserUtil.getKind(lookup)]++;
+            if (lookup instanceof BlancoApexSpecialCharToken && BlancoApexParserUtil.getLength(lookup) > 1) {
+                combinedSpecialCharCount++;
+            }
+        }
+    }
+
+    /**
+     * Get parsed file.
+     * 
+     * @return file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get count of bytes read.
+     * 
+     * @return count of bytes.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Get count of chars decoded.
+     * 
+     * @return count of chars.
+     */
+    public int getCharsDecoded() {
+        return charsDecoded;
+    }
+
+    /**
+     * Get count of tokens of kind.
+     * 
+     * @param kind
+     *            kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     * @return count of tokens.
+     */
+    public int getTokenCount(final int kind) {
+        return tokenCounts[kind];
+    }
+
+    /**
+     * Get count of all tokens.
+     * 
+     * @return count of tokens.
+     */
+    public int getTokenCount() {
+        int result = 0;
+        for (int lookup : tokenCounts) {
+            result += lookup;
+        }
+        return result;
+    }
+
+    /**
+     * Get count of special chars which are combined into operators, like "++".
+     * 
+     * @return count of combined operators.
+     */
+    public int getCombinedSpecialCharCount() {
+        return combinedSpecialCharCount;
+    }
+
+    /**
+     * Get time of reading and decoding. When token cache is used, this
+     * includes lookup of the cache.
+     * 
+     * @return nano seconds.
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * Get time of lexing, including combining of special chars.
+     * 
+     * @return nano seconds.
+     */
+    public long getLexNanos() {
+        return lexNanos;
+    }
+
+    /**
+     * Get time of creating token objects.
+     * 
+     * @return nano seconds.
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Get total time of parsing.
+     * 
+     * @return nano seconds.
+     */
+    public long getTotalNanos() {
+        return readNanos + lexNanos + buildNanos;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder strbuf = new StringBuilder();
+        strbuf.append("BlancoApexParseMetrics[file=").append(file);
+        strbuf.append(", bytesRead=").append(bytesRead);
+        strbuf.append(", charsDecoded=").append(charsDecoded);
+        strbuf.append(", tokenCount=").append(getTokenCount());
+        strbuf.append(", combinedSpecialCharCount=").append(combinedSpecialCharCount);
+        strbuf.append(", readNanos=").append(readNanos);
+        strbuf.append(", lexNanos=").append(lexNanos);
+        strbuf.append(", buildNanos=").append(buildNanos);
+        strbuf.append("]");
+        return strbuf.toString();
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Listener which aggregates metrics of files across a batch.
+ * 
+ * <p>
+ * Throughput of each file is counted into histograms of power of 2 buckets.
+ * Bucket 0 counts files below 1 unit, and bucket n counts files from 2^(n-1)
+ * to below 2^n units. This is thread safe.
+ * </p>
+ * 
+ * <p>
+ * Useage:
+ * </p>
+ * 
+ * <code>
+ * BlancoApexParseMetricsAggregator aggregator = new BlancoApexParseMetricsAggregator();<br>
+ * options.setParseListener(aggregator);<br>
+ * ... parse files with options ...<br>
+ * System.out.println(aggregator.toReportString());
+ * </code>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexParseMetricsAggregator implements BlancoApexParseListener {
+    /**
+     * Count of buckets of histograms.
+     */
+    public static final int BUCKET_COUNT = 32;
+
+    private long fileCount = 0;
+
+    private long bytesRead = 0;
+
+    private long charsDecoded = 0;
+
+    private final long[] tokenCounts = new long[BlancoApexLexicalScanner.KIND_NEWLINE + 1];
+
+    private long combinedSpecialCharCount = 0;
+
+    private int maxTokenCount = 0;
+
+    private long readNanos = 0;
+
+    private long lexNanos = 0;
+
+    private long buildNanos = 0;
+
+    /**
+     * Histogram of throughput in KB per second.
+     */
+    private final long[] kilobytesPerSecondHistogram = new long[BUCKET_COUNT];
+
+    /**
+     * Histogram of throughput in thousand tokens per second.
+     */
+    private final long[] kilotokensPerSecondHistogram = new long[BUCKET_COUNT];
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+    public void onParseStart(final File file) {
+        // nothing to do.
+    }
+
+    public synchronized void onParse(final BlancoApexParseMetrics metrics) {
+        fileCount++;
+        bytesRead += metrics.getBytesRead();
+        charsDecoded += metrics.getCharsDecoded();
+        for (int kind = 0; kind < tokenCounts.length; kind++) {
+            tokenCounts[kind] += metrics.getTokenCount(kind);
+        }
+        combinedSpecialCharCount += metrics.getCombinedSpecialCharCount();
+        maxTokenCount = Math.max(maxTokenCount, metrics.getTokenCount());
+        readNanos += metrics.getReadNanos();
+        lexNanos += metrics.getLexNanos();
+        buildNanos += metrics.getBuildNanos();
+
+        // count per millisecond equals kilo (1000) count per second.
+        final double millis = Math.max(metrics.getTotalNanos(), 1) / 1000000.0;
+        kilobytesPerSecondHistogram[getBucket(metrics.getBytesRead() / millis)]++;
+        kilotokensPerSecondHistogram[getBucket(metrics.getTokenCount() / millis)]++;
+    }
+
+    /**
+     * Get bucket of value.
+     * 
+     * @param value
+     *            value.
+     * @return index of bucket.
+     */
+    static int getBucket(final double value) {
+        if (value < 1.0) {
+            return 0;
+        }
+        final long longValue = value >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) value;
+        return Math.min(64 - Long.numberOfLeadingZeros(longValue), BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Get count of parsed files.
+     * 
+     * @return count of files.
+     */
+    public synchronized long getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Get total count of bytes read.
+     * 
+     * @return count of bytes.
+     */
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Get total count of chars decoded.
+     * 
+     * @return count of chars.
+     */
+    public synchronized long getCharsDecoded() {
+        return charsDecoded;
+    }
+
+    /**
+     * Get total count of tokens of kind.
+     * 
+     * @param kind
+     *            kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     * @return count of tokens.
+     */
+    public synchronized long getTokenCount(final int kind) {
+        return tokenCounts[kind];
+    }
+
+    /**
+     * Get total count of all tokens.
+     * 
+     * @return count of tokens.
+     */
+    public synchronized long getTokenCount() {
+        long result = 0;
+        for (long lookup : tokenCounts) {
+            result += lookup;
+        }
+        return result;
+    }
+
+    /**
+     * Get total count of combined operators.
+     * 
+     * @return count of combined operators.
+     */
+    public synchronized long getCombinedSpecialCharCount() {
+        return combinedSpecialCharCount;
+    }
+
+    /**
+     * Get largest count of tokens among files.
+     * 
+     * @return count of tokens.
+     */
+    public synchronized int getMaxTokenCount() {
+        return maxTokenCount;
+    }
+
+    /**
+     * Get total time of reading and decoding.
+     * 
+     * @return nano seconds.
+     */
+    public synchronized long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * Get total time of lexing.
+     * 
+     * @return nano seconds.
+     */
+    public synchronized long getLexNanos() {
+        return lexNanos;
+    }
+
+    /**
+     * Get total time of creating token objects.
+     * 
+     * @return nano seconds.
+     */
+    public synchronized long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Get histogram of throughput of files in KB per second.
+     * 
+     * @return copy of counts by bucket.
+     */
+    public synchronized long[] getKilobytesPerSecondHistogram() {
+        return kilobytesPerSecondHistogram.clone();
+    }
+
+    /**
+     * Get histogram of throughput of files in thousand tokens per second.
+     * 
+     * @return copy of counts by bucket.
+     */
+    public synchronized long[] getKilotokensPerSecondHistogram() {
+        return kilotokensPerSecondHistogram.clone();
+    }
+
+    /**
+     * Clear all metrics.
+     */
+    public synchronized void reset() {
+        fileCount = 0;
+        bytesRead = 0;
+        charsDecoded = 0;
+        Arrays.fill(tokenCounts, 0);
+        combinedSpecialCharCount = 0;
+        maxTokenCount = 0;
+        readNanos = 0;
+        lexNanos = 0;
+        buildNanos = 0;
+        Arrays.fill(kilobytesPerSecondHistogram, 0);
+        Arrays.fill(kilotokensPerSecondHistogram, 0);
+    }
+
+    /**
+     * Create human readable report.
+     * 
+     * @return report.
+     */
+    public synchronized String toReportString() {
+        final StringBuilder strbuf = new StringBuilder();
+        strbuf.append("files: ").append(fileCount).append('\n');
+        strbuf.append("bytes read: ").append(bytesRead).append('\n');
+        strbuf.append("chars decoded: ").append(charsDecoded).append('\n');
+        strbuf.append("tokens: ").append(getTokenCount()).append(" (word=")
+                .append(tokenCounts[BlancoApexLexicalScanner.KIND_WORD]).append(", literal=")
+                .append(tokenCounts[BlancoApexLexicalScanner.KIND_LITERAL]).append(", comment=")
+                .append(tokenCounts[BlancoApexLexicalScanner.KIND_COMMENT]).append(", special char=")
+                .append(tokenCounts[BlancoApexLexicalScanner.KIND_SPECIAL_CHAR]).append(", whitespace=")
+                .append(tokenCounts[BlancoApexLexicalScanner.KIND_WHITESPACE]).append(", newline=")
+                .append(tokenCounts[BlancoApexLexicalScanner.KIND_NEWLINE]).append(")\n");
+        strbuf.append("combined operators: ").append(combinedSpecialCharCount).append('\n');
+        strbuf.append("max tokens per file: ").append(maxTokenCount).append('\n');
+        strbuf.append("read ms: ").append(readNanos / 1000000).append(", lex ms: ").append(lexNanos / 1000000)
+                .append(", build ms: ").append(buildNanos / 1000000).append('\n');
+        appendHistogram(strbuf, "KB/s", kilobytesPerSecondHistogram);
+        appendHistogram(strbuf, "Ktokens/s", kilotokensPerSecondHistogram);
+        return strbuf.toString();
+    }
+
+    private static void appendHistogram(final StringBuilder strbuf, final String unit, final long[] histogram) {
+        strbuf.append("histogram of ").append(unit).append(":\n");
+        for (int index = 0; index < histogram.length; index++) {
+            if (histogram[index] == 0) {
+                continue;
+            }
+            final long lower = index == 0 ? 0 : 1L << (index - 1);
+            strbuf.append("  >= ").append(lower).append(": ").append(histogram[index]).append('\n');
+        }
+    }
+}
@@ -18,12 +18,12 @@ package blanco.apex.parser;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.StringReader;
+import java.io.Reader;
 import java.util.List;
 
-import blanco.apex.parser.token.BlancoApexSpecialCharToken;
 import blanco.apex.parser.token.BlancoApexToken;
 
 /**
@@ -47,6 +47,10 @@ public class BlancoApexParser {
     /**
      * Special char with combine. Like "++", "--", "&lt;=", "&gt;=", "==", "!=",
      * "&amp;&amp;", "||", "+=", ...
+     * 
+     * <p>
+     * These are combined while lexing by longest match.
+     * </p>
      */
     public static final String[] COMBINED_SPECIAL_CHAR = new String[] { "++", "--", "<=", ">=", "==", "!=", "&&", "||", //
             "+=", "-=", "*=", "/=", //
@@ -56,6 +60,16 @@ public class BlancoApexParser {
             // additional
             "=>", "<>", };
 
+    /**
+     * Lexical parser reused on each thread.
+     */
+    private static final ThreadLocal<BlancoApexLexicalParser> LEXICAL_PARSER_POOL = new ThreadLocal<BlancoApexLexicalParser>() {
+        @Override
+        protected BlancoApexLexicalParser initialValue() {
+            return new BlancoApexLexicalParser();
+        }
+    };
+
     /**
      * Entry point of Apex parser.
      * 
@@ -66,12 +80,7 @@ public class BlancoApexParser {
      *             I/O Exception.
      */
     public List<BlancoApexToken> parse(final String sourceString) throws IOException {
-        final BufferedReader reader = new BufferedReader(new StringReader(sourceString));
-        try {
-            return parse(reader);
-        } finally {
-            reader.close();
-        }
+        return createLexicalParser().parse(sourceString);
     }
 
     /**
@@ -92,6 +101,87 @@ public class BlancoApexParser {
         }
     }
 
+    /**
+     * Entry point of Apex parser with options.
+     * 
+     * @param file
+     *            File of source code to parse.
+     * @param options
+     *            options of parser.
+     * @return List of token.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public List<BlancoApexToken> parse(final File file, final BlancoApexParserOptions options) throws IOException {
+        final BlancoApexParseListener listener = getEnabledListener(options);
+        if (listener == null) {
+            return parse(file, options, null);
+        }
+        listener.onParseStart(file);
+        final BlancoApexParseMetrics metrics = new BlancoApexParseMetrics(file);
+        final List<BlancoApexToken> result = parse(file, options, metrics);
+        listener.onParse(metrics);
+        return result;
+    }
+
+    /**
+     * Parse file with options, measuring if metrics is given. Path of parsing
+     * is the same with or without metrics.
+     * 
+     * @param file
+     *            File of source code to parse.
+     * @param options
+     *            options of parser.
+     * @param metrics
+     *            metrics to fill. null if not measured.
+     * @return List of token.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    List<BlancoApexToken> parse(final File file, final BlancoApexParserOptions options,
+            final BlancoApexParseMetrics metrics) throws IOException {
+        if (options.getTokenCache() != null) {
+            // token objects are created on access, so nothing to build here.
+            return parseTokenBuffer(file, options, metrics).asTokenList();
+        }
+
+        final long startNanos = metrics == null ? 0 : System.nanoTime();
+        final List<BlancoApexToken> result;
+        final BlancoApexLexicalParser lexicalParser = createLexicalParser(options);
+        try {
+            if (options.isMemoryMapped() == false) {
+                // values are copied from recycled read buffer unless lazy.
+                final Reader inReader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+                final BufferedReader reader = new BufferedReader(
+                        metrics == null ? inReader : new MeasuringReader(inReader, metrics));
+                try {
+                    result = lexicalParser.parse(reader);
+                } finally {
+                    reader.close();
+                }
+                if (metrics != null) {
+                    metrics.lexNanos = System.nanoTime() - startNanos - metrics.readNanos;
+                }
+            } else {
+                final char[] source = readAll(file, options);
+                final long lexStartNanos = metrics == null ? 0 : System.nanoTime();
+                result = lexicalParser.parse(source, 0, source.length);
+                if (metrics != null) {
+                    metrics.readNanos = lexStartNanos - startNanos;
+                    metrics.lexNanos = System.nanoTime() - lexStartNanos;
+                    metrics.charsDecoded = source.length;
+                }
+            }
+        } finally {
+            releaseLexicalParser(lexicalParser, options);
+        }
+        if (metrics != null) {
+            metrics.bytesRead = file.length();
+            metrics.countTokens(result);
+        }
+        return result;
+    }
+
     /**
      * Entry point of Apex parser.
      * 
@@ -102,59 +192,306 @@ public class BlancoApexParser {
      *             I/O Exception.
      */
     public List<BlancoApexToken> parse(final BufferedReader reader) throws IOException {
-        final List<BlancoApexToken> tokenList = new BlancoApexLexicalParser().parse(reader);
+        return createLexicalParser().parse(reader);
+    }
 
-        // 3 chars
-        for (int index = 0; index < tokenList.size() - 2; index++) {
-            final BlancoApexToken lookup = tokenList.get(index);
-            if (lookup instanceof BlancoApexSpecialCharToken) {
-                final BlancoApexSpecialCharToken specialChar = (BlancoApexSpecialCharToken) lookup;
+    /**
+     * Entry point of Apex parser which returns columnar token buffer.
+     * 
+     * @param sourceString
+     *            String of source code to parse.
+     * @return token buffer.
+     */
+    public BlancoApexTokenBuffer parseTokenBuffer(final String sourceString) {
+        final char[] source = sourceString.toCharArray();
+        return createLexicalParser().parseTokenBuffer(source, 0, source.length);
+    }
 
-                if (tokenList.get(index + 1) instanceof BlancoApexSpecialCharToken == false) {
-                    // combine special char needs both special char
-                    continue;
-                }
-                if (tokenList.get(index + 2) instanceof BlancoApexSpecialCharToken == false) {
-                    // combine special char needs both special char
-                    continue;
-                }
-                final BlancoApexSpecialCharToken specialCharNext = (BlancoApexSpecialCharToken) tokenList
-                        .get(index + 1);
-                final BlancoApexSpecialCharToken specialCharNextNext = (BlancoApexSpecialCharToken) tokenList
-                        .get(index + 2);
-                final String combinedSpecialCharCandidate = specialChar.getValue() + specialCharNext.getValue() + specialCharNextNext.getValue();
-                for (String combined : COMBINED_SPECIAL_CHAR) {
-                    if (combinedSpecialCharCandidate.equals(combined)) {
-                        specialChar.setValue(combinedSpecialCharCandidate);
-                        tokenList.remove(index + 2);
-                        tokenList.remove(index + 1);
-                    }
-                }
-            }
+    /**
+     * Entry point of Apex parser which returns columnar token buffer.
+     * 
+     * @param file
+     *            File of source code to parse.
+     * @return token buffer.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public BlancoApexTokenBuffer parseTokenBuffer(final File file) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            return parseTokenBuffer(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Entry point of Apex parser which returns columnar token buffer, with
+     * options.
+     * 
+     * @param file
+     *            File of source code to parse.
+     * @param options
+     *            options of parser.
+     * @return token buffer.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public BlancoApexTokenBuffer parseTokenBuffer(final File file, final BlancoApexParserOptions options)
+            throws IOException {
+        final BlancoApexParseListener listener = getEnabledListener(options);
+        if (listener == null) {
+            return parseTokenBuffer(file, options, null);
         }
+        listener.onParseStart(file);
+        final BlancoApexParseMetrics metrics = new BlancoApexParseMetrics(file);
+        final BlancoApexTokenBuffer result = parseTokenBuffer(file, options, metrics);
+        listener.onParse(metrics);
+        return result;
+    }
 
-        // 2 chars
-        for (int index = 0; index < tokenList.size() - 1; index++) {
-            final BlancoApexToken lookup = tokenList.get(index);
-            if (lookup instanceof BlancoApexSpecialCharToken) {
-                final BlancoApexSpecialCharToken specialChar = (BlancoApexSpecialCharToken) lookup;
+    /**
+     * Get listener of options which measures now.
+     * 
+     * @param options
+     *            options of parser.
+     * @return listener. null if not set or not enabled.
+     */
+    static BlancoApexParseListener getEnabledListener(final BlancoApexParserOptions options) {
+        final BlancoApexParseListener listener = options.getParseListener();
+        return listener != null && listener.isEnabled() ? listener : null;
+    }
 
-                if (tokenList.get(index + 1) instanceof BlancoApexSpecialCharToken == false) {
-                    // combine special char needs both special char
-                    continue;
+    /**
+     * Parse file into columnar token buffer, measuring if metrics is given.
+     * 
+     * @param file
+     *            File of source code to parse.
+     * @param options
+     *            options of parser.
+     * @param metrics
+     *            metrics to fill. null if not measured.
+     * @return token buffer.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    BlancoApexTokenBuffer parseTokenBuffer(final File file, final BlancoApexParserOptions options,
+            final BlancoApexParseMetrics metrics) throws IOException {
+        final BlancoApexLexicalParser lexicalParser = createLexicalParser(options);
+        final long startNanos = metrics == null ? 0 : System.nanoTime();
+        final BlancoApexTokenBuffer result;
+        try {
+            if (options.getTokenCache() != null) {
+                // lexing is skipped on hit of cache.
+                result = options.getTokenCache().parseTokenBuffer(file, lexicalParser);
+                if (metrics != null) {
+                    metrics.readNanos = System.nanoTime() - startNanos;
                 }
-                final BlancoApexSpecialCharToken specialCharNext = (BlancoApexSpecialCharToken) tokenList
-                        .get(index + 1);
-                final String combinedSpecialCharCandidate = specialChar.getValue() + specialCharNext.getValue();
-                for (String combined : COMBINED_SPECIAL_CHAR) {
-                    if (combinedSpecialCharCandidate.equals(combined)) {
-                        specialChar.setValue(combinedSpecialCharCandidate);
-                        tokenList.remove(index + 1);
-                    }
+            } else {
+                final char[] source = readAll(file, options);
+                final long lexStartNanos = metrics == null ? 0 : System.nanoTime();
+                result = lexicalParser.parseTokenBuffer(source, 0, source.length);
+                if (metrics != null) {
+                    metrics.readNanos = lexStartNanos - startNanos;
+                    metrics.lexNanos = System.nanoTime() - lexStartNanos;
                 }
             }
+        } finally {
+            releaseLexicalParser(lexicalParser, options);
+        }
+        if (metrics == null) {
+            return result;
+        }
+        metrics.bytesRead = file.length();
+        metrics.charsDecoded = result.getSource().length;
+        metrics.countTokens(result);
+        return result;
+    }
+
+    /**
+     * Entry point of Apex parser which returns columnar token buffer.
+     * 
+     * @param reader
+     *            Reader of source code to parse.
+     * @return token buffer.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public BlancoApexTokenBuffer parseTokenBuffer(final BufferedReader reader) throws IOException {
+        final char[] source = BlancoApexParserUtil.readAll(reader);
+        return createLexicalParser().parseTokenBuffer(source, 0, source.length);
+    }
+
+    /**
+     * Re-lex token buffer after an edit of source code. Only tokens around the
+     * edit are lexed again.
+     * 
+     * @param previous
+     *            token buffer before the edit, returned by parseTokenBuffer or
+     *            this method.
+     * @param offset
+     *            offset of the edit.
+     * @param removedLength
+     *            count of chars removed at offset.
+     * @param insertedText
+     *            text inserted at offset.
+     * @return new token buffer of edited source code.
+     */
+    public BlancoApexTokenBuffer reparseTokenBuffer(final BlancoApexTokenBuffer previous, final int offset,
+            final int removedLength, final String insertedText) {
+        return createLexicalParser().reparseTokenBuffer(previous, offset, removedLength, insertedText);
+    }
+
+    /**
+     * Entry point of Apex parser which pushes tokens to handler. No token
+     * object is created.
+     * 
+     * @param sourceString
+     *            String of source code to parse.
+     * @param handler
+     *            callback of tokens.
+     */
+    public void parse(final String sourceString, final BlancoApexTokenHandler handler) {
+        final char[] source = sourceString.toCharArray();
+        createLexicalParser().parse(source, 0, source.length, handler);
+    }
+
+    /**
+     * Entry point of Apex parser which pushes tokens to handler. Tokens are
+     * lexed on demand with fixed size buffer. No token object is created.
+     * 
+     * @param reader
+     *            Reader of source code to parse. This is not closed here.
+     * @param handler
+     *            callback of tokens.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void parse(final Reader reader, final BlancoApexTokenHandler handler) throws IOException {
+        createLexicalParser().parse(reader, handler);
+    }
+
+    /**
+     * Entry point of Apex parser which lexes on demand.
+     * 
+     * <p>
+     * Memory does not grow with size of source. Close the stream after use.
+     * </p>
+     * 
+     * @param reader
+     *            Reader of source code to parse.
+     * @return token stream.
+     */
+    public BlancoApexTokenStream parseStream(final Reader reader) {
+        return new BlancoApexTokenStream(reader, BlancoApexTokenStream.DEFAULT_BUFFER_SIZE, true);
+    }
+
+    /**
+     * Create lexical parser which combines special chars.
+     * 
+     * @return lexical parser.
+     */
+    protected BlancoApexLexicalParser createLexicalParser() {
+        final BlancoApexLexicalParser lexicalParser = new BlancoApexLexicalParser();
+        lexicalParser.setCombineSpecialChar(true);
+        return lexicalParser;
+    }
+
+    /**
+     * Create lexical parser with options. Lexical parser of current thread is
+     * returned if reuse is set. Call releaseLexicalParser after parse.
+     * 
+     * @param options
+     *            options of parser.
+     * @return lexical parser.
+     */
+    protected BlancoApexLexicalParser createLexicalParser(final BlancoApexParserOptions options) {
+        final BlancoApexLexicalParser lexicalParser;
+        if (options.isReuseLexicalParser()) {
+            lexicalParser = LEXICAL_PARSER_POOL.get();
+            lexicalParser.setCombineSpecialChar(true);
+        } else {
+            lexicalParser = createLexicalParser();
+        }
+        lexicalParser.setSymbolTable(options.getSymbolTable());
+        lexicalParser.setLazyValue(options.isLazyValue());
+        lexicalParser.setBuildPairIndex(options.isBuildPairIndex());
+        lexicalParser.setBuildQueryIndex(options.isBuildQueryIndex());
+        return lexicalParser;
+    }
+
+    /**
+     * Release source code and tokens of last parse from lexical parser of
+     * current thread, so that only its read buffer is kept between parses.
+     * 
+     * @param lexicalParser
+     *            lexical parser created by createLexicalParser(options).
+     * @param options
+     *            options of parser.
+     */
+    protected void releaseLexicalParser(final BlancoApexLexicalParser lexicalParser,
+            final BlancoApexParserOptions options) {
+        if (options.isReuseLexicalParser()) {
+            lexicalParser.reset();
+            lexicalParser.setSymbolTable(null);
         }
+    }
 
-        return tokenList;
+    /**
+     * Read all chars of UTF-8 file with options.
+     * 
+     * @param file
+     *            File of source code.
+     * @param options
+     *            options of parser.
+     * @return Array of chars.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    char[] readAll(final File file, final BlancoApexParserOptions options) throws IOException {
+        if (options.isMemoryMapped()) {
+            return BlancoApexParserUtil.readAllMapped(file);
+        }
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            return BlancoApexParserUtil.readAll(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reader which adds time spent in reading and count of chars to metrics.
+     * Called once per block of buffered reader, not per char.
+     */
+    static class MeasuringReader extends FilterReader {
+        /**
+         * Metrics to fill.
+         */
+        private final BlancoApexParseMetrics metrics;
+
+        /**
+         * Constructor.
+         * 
+         * @param reader
+         *            reader to measure.
+         * @param metrics
+         *            metrics to fill.
+         */
+        MeasuringReader(final Reader reader, final BlancoApexParseMetrics metrics) {
+            super(reader);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) throws IOException {
+            final long startNanos = System.nanoTime();
+            final int readLength = in.read(cbuf, off, len);
+            metrics.readNanos += System.nanoTime() - startNanos;
+            if (readLength > 0) {
+                metrics.charsDecoded += readLength;
+            }
+            return readLength;
+        }
     }
 }
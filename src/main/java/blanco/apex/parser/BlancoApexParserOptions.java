@@ -0,0 +1,236 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.File;
+
+/**
+ * Options of Apex parser.
+ * 
+ * See {@link BlancoApexParser#parse(File, BlancoApexParserOptions)}.
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexParserOptions {
+    /**
+     * Read file via memory mapped buffer or not.
+     */
+    protected boolean memoryMapped = false;
+
+    /**
+     * On-disk cache of tokens. null if not used.
+     */
+    protected BlancoApexTokenCache tokenCache = null;
+
+    /**
+     * Symbol table to share values of tokens. null if not shared.
+     */
+    protected BlancoApexSymbolTable symbolTable = null;
+
+    /**
+     * Value of token is a view into source code or not.
+     */
+    protected boolean lazyValue = false;
+
+    /**
+     * Listener of parsing. null if not measured.
+     */
+    protected BlancoApexParseListener parseListener = null;
+
+    /**
+     * Reuse lexical parser of current thread or not.
+     */
+    protected boolean reuseLexicalParser = false;
+
+    /**
+     * Build index of matching brackets while lexing or not.
+     */
+    protected boolean buildPairIndex = false;
+
+    /**
+     * Mark inline query regions while lexing or not.
+     */
+    protected boolean buildQueryIndex = false;
+
+    /**
+     * Read file via memory mapped buffer or not.
+     * 
+     * @return true:memory mapped, false:reader.
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Set read file via memory mapped buffer or not. UTF-8 is decoded
+     * directly from the mapped buffer into the lexer. This is effective for
+     * large files.
+     * 
+     * @param arg
+     *            true:memory mapped, false:reader (default).
+     */
+    public void setMemoryMapped(final boolean arg) {
+        memoryMapped = arg;
+    }
+
+    /**
+     * Get on-disk cache of tokens.
+     * 
+     * @return token cache. null if not used.
+     */
+    public BlancoApexTokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    /**
+     * Set on-disk cache of tokens. Unchanged files are loaded from the cache
+     * instead of lexing. File is read via stream even if memory mapped is set,
+     * because its bytes are hashed. While set, parse of file returns a read
+     * only list which creates token objects on access.
+     * 
+     * @param arg
+     *            token cache. null if not used (default).
+     */
+    public void setTokenCache(final BlancoApexTokenCache arg) {
+        tokenCache = arg;
+    }
+
+    /**
+     * Get symbol table to share values of tokens.
+     * 
+     * @return symbol table. null if not shared.
+     */
+    public BlancoApexSymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Set symbol table to share values of tokens. Use
+     * {@link BlancoApexSymbolTable#getShared()} to share among parsers. This
+     * reduces heap when tokens of many files are kept.
+     * 
+     * @param arg
+     *            symbol table. null if not shared (default).
+     */
+    public void setSymbolTable(final BlancoApexSymbolTable arg) {
+        symbolTable = arg;
+    }
+
+    /**
+     * Value of token is a view into source code or not.
+     * 
+     * @return true:view into source code, false:String.
+     */
+    public boolean isLazyValue() {
+        return lazyValue;
+    }
+
+    /**
+     * Set value of token is a view into source code or not. String of value is
+     * created on first call of getValue() of token, so consumers which check
+     * only kinds and positions create no String. Tokens keep source code in
+     * memory until values are taken.
+     * 
+     * @param arg
+     *            true:view into source code, false:String (default).
+     */
+    public void setLazyValue(final boolean arg) {
+        lazyValue = arg;
+    }
+
+    /**
+     * Get listener of parsing.
+     * 
+     * @return listener. null if not measured.
+     */
+    public BlancoApexParseListener getParseListener() {
+        return parseListener;
+    }
+
+    /**
+     * Set listener of parsing, which receives metrics of each file parsed with
+     * these options. Use {@link BlancoApexParseMetricsAggregator} to aggregate
+     * metrics of a batch. Nothing is measured when this is not set.
+     * 
+     * @param arg
+     *            listener. null if not measured (default).
+     */
+    public void setParseListener(final BlancoApexParseListener arg) {
+        parseListener = arg;
+    }
+
+    /**
+     * Reuse lexical parser of current thread or not.
+     * 
+     * @return true:reuse, false:create for each parse.
+     */
+    public boolean isReuseLexicalParser() {
+        return reuseLexicalParser;
+    }
+
+    /**
+     * Set reuse lexical parser of current thread or not. Lexical parser and
+     * its read buffer are kept per thread, which reduces setup of each file in
+     * bulk jobs. Source code and tokens are released after each file. Kept
+     * objects are released when the thread ends.
+     * 
+     * @param arg
+     *            true:reuse, false:create for each parse (default).
+     */
+    public void setReuseLexicalParser(final boolean arg) {
+        reuseLexicalParser = arg;
+    }
+
+    /**
+     * Build index of matching brackets while lexing or not.
+     * 
+     * @return true:build while lexing, false:build on demand.
+     */
+    public boolean isBuildPairIndex() {
+        return buildPairIndex;
+    }
+
+    /**
+     * Set build index of matching brackets while lexing into token buffer or
+     * not. See {@link BlancoApexTokenBuffer#getPairIndex()}.
+     * 
+     * @param arg
+     *            true:build while lexing, false:build on demand (default).
+     */
+    public void setBuildPairIndex(final boolean arg) {
+        buildPairIndex = arg;
+    }
+
+    /**
+     * Mark inline query regions while lexing or not.
+     * 
+     * @return true:build while lexing, false:build on demand.
+     */
+    public boolean isBuildQueryIndex() {
+        return buildQueryIndex;
+    }
+
+    /**
+     * Set mark inline SOQL and SOSL query regions while lexing into token
+     * buffer or not. See {@link BlancoApexTokenBuffer#getQueryIndex()}.
+     * 
+     * @param arg
+     *            true:build while lexing, false:build on demand (default).
+     */
+    public void setBuildQueryIndex(final boolean arg) {
+        buildQueryIndex = arg;
+    }
+}
@@ -15,9 +15,27 @@
  */
 package blanco.apex.parser;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
 import java.util.List;
 
+import blanco.apex.parser.token.BlancoApexCommentToken;
+import blanco.apex.parser.token.BlancoApexLiteralToken;
+import blanco.apex.parser.token.BlancoApexNewlineToken;
+import blanco.apex.parser.token.BlancoApexSpecialCharToken;
 import blanco.apex.parser.token.BlancoApexToken;
+import blanco.apex.parser.token.BlancoApexWhitespaceToken;
+import blanco.apex.parser.token.BlancoApexWordToken;
 
 /**
  * Utils for Apex language lexical parser.
@@ -83,15 +101,320 @@ public class BlancoApexParserUtil {
         }
     }
 
+    /**
+     * Create token object from kind and sub type of
+     * {@link BlancoApexLexicalScanner}.
+     * 
+     * @param kind
+     *            kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     * @param subType
+     *            sub type of token. ex. BlancoApexLexicalScanner.SUBTYPE_STRING
+     * @param value
+     *            value of token.
+     * @param lineNumber
+     *            line number of token.
+     * @return token.
+     */
+    public static BlancoApexToken createToken(final int kind, final int subType, final String value,
+            final int lineNumber) {
+        switch (kind) {
+        case BlancoApexLexicalScanner.KIND_WORD:
+            // Reserved keywords and system types are determined by word
+            // only. Its meaning in context is determined on syntax parsing.
+            final BlancoApexWordToken wordToken = new BlancoApexWordToken(value, lineNumber);
+            wordToken.setReservedKeyword(subType == BlancoApexLexicalScanner.SUBTYPE_RESERVED_KEYWORD
+                    || subType == BlancoApexLexicalScanner.SUBTYPE_RESERVED_KEYWORD_SYSTEM_TYPE);
+            wordToken.setSystemType(subType == BlancoApexLexicalScanner.SUBTYPE_SYSTEM_TYPE
+                    || subType == BlancoApexLexicalScanner.SUBTYPE_RESERVED_KEYWORD_SYSTEM_TYPE);
+            return wordToken;
+        case BlancoApexLexicalScanner.KIND_LITERAL:
+            switch (subType) {
+            case BlancoApexLexicalScanner.SUBTYPE_INTEGER:
+                return new BlancoApexLiteralToken(value, lineNumber, BlancoApexLiteralToken.NumberType.INTEGER);
+            case BlancoApexLexicalScanner.SUBTYPE_LONG:
+                return new BlancoApexLiteralToken(value, lineNumber, BlancoApexLiteralToken.NumberType.LONG);
+            case BlancoApexLexicalScanner.SUBTYPE_DECIMAL:
+                return new BlancoApexLiteralToken(value, lineNumber, BlancoApexLiteralToken.NumberType.DECIMAL);
+            case BlancoApexLexicalScanner.SUBTYPE_DOUBLE:
+                return new BlancoApexLiteralToken(value, lineNumber, BlancoApexLiteralToken.NumberType.DOUBLE);
+            default:
+                return new BlancoApexLiteralToken(value, lineNumber, BlancoApexLiteralToken.LiteralType.STRING);
+            }
+        case BlancoApexLexicalScanner.KIND_COMMENT:
+            return new BlancoApexCommentToken(value, lineNumber,
+                    subType == BlancoApexLexicalScanner.SUBTYPE_MULTI_LINE
+                            ? BlancoApexCommentToken.CommentType.MULTI_LINE
+                            : BlancoApexCommentToken.CommentType.SINGLE_LINE);
+        case BlancoApexLexicalScanner.KIND_SPECIAL_CHAR:
+            return new BlancoApexSpecialCharToken(value, lineNumber);
+        case BlancoApexLexicalScanner.KIND_WHITESPACE:
+            return new BlancoApexWhitespaceToken(value, lineNumber);
+        case BlancoApexLexicalScanner.KIND_NEWLINE:
+        default:
+            return new BlancoApexNewlineToken(value, lineNumber);
+        }
+    }
+
+    /**
+     * Create token object from range of source code buffer, with position.
+     * 
+     * @param kind
+     *            kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     * @param subType
+     *            sub type of token. ex. BlancoApexLexicalScanner.SUBTYPE_STRING
+     * @param source
+     *            source code buffer.
+     * @param start
+     *            start index of token in buffer.
+     * @param length
+     *            length of token.
+     * @param offset
+     *            offset of token in source code.
+     * @param lineNumber
+     *            line number of token.
+     * @param column
+     *            column of token.
+     * @param symbolTable
+     *            symbol table to share value. null if not shared.
+     * @param lazyValue
+     *            value is a view into buffer or not. Buffer must not be
+     *            changed if true.
+     * @return token.
+     */
+    static BlancoApexToken createToken(final int kind, final int subType, final char[] source, final int start,
+            final int length, final int offset, final int lineNumber, final int column,
+            final BlancoApexSymbolTable symbolTable, final boolean lazyValue) {
+        final BlancoApexToken token;
+        if (lazyValue && (symbolTable == null || kind == BlancoApexLexicalScanner.KIND_LITERAL
+                || kind == BlancoApexLexicalScanner.KIND_COMMENT)) {
+            // literal and comment are not shared by symbol table.
+            token = createToken(kind, subType, null, lineNumber);
+            token.setLazyValue(source, start, length);
+        } else if (symbolTable != null) {
+            token = createToken(kind, subType, symbolTable.intern(kind, source, start, length), lineNumber);
+        } else {
+            token = createToken(kind, subType, new String(source, start, length), lineNumber);
+        }
+        token.setStartOffset(offset);
+        token.setEndOffset(offset + length);
+        token.setColumn(column);
+        return token;
+    }
+
+    /**
+     * Get kind of token object, which is the value of
+     * {@link BlancoApexLexicalScanner}.
+     * 
+     * @param token
+     *            token.
+     * @return kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     */
+    public static int getKind(final BlancoApexToken token) {
+        if (token instanceof BlancoApexWordToken) {
+            return BlancoApexLexicalScanner.KIND_WORD;
+        } else if (token instanceof BlancoApexLiteralToken) {
+            return BlancoApexLexicalScanner.KIND_LITERAL;
+        } else if (token instanceof BlancoApexCommentToken) {
+            return BlancoApexLexicalScanner.KIND_COMMENT;
+        } else if (token instanceof BlancoApexSpecialCharToken) {
+            return BlancoApexLexicalScanner.KIND_SPECIAL_CHAR;
+        } else if (token instanceof BlancoApexWhitespaceToken) {
+            return BlancoApexLexicalScanner.KIND_WHITESPACE;
+        } else {
+            return BlancoApexLexicalScanner.KIND_NEWLINE;
+        }
+    }
+
+    /**
+     * Get length of token object from its offsets, so that lazy value is not
+     * taken as String. Length of value is used if offsets are unknown.
+     * 
+     * @param token
+     *            token.
+     * @return length of token.
+     */
+    public static int getLength(final BlancoApexToken token) {
+        final int startOffset = token.getStartOffset();
+        final int endOffset = token.getEndOffset();
+        if (startOffset < 0 || endOffset < startOffset) {
+            return token.getValue().length();
+        }
+        return endOffset - startOffset;
+    }
+
+    /**
+     * Get sub type of token object, which is the value of
+     * {@link BlancoApexLexicalScanner}.
+     * 
+     * @param token
+     *            token.
+     * @return sub type of token. ex. BlancoApexLexicalScanner.SUBTYPE_STRING
+     */
+    public static int getSubType(final BlancoApexToken token) {
+        if (token instanceof BlancoApexCommentToken) {
+            return ((BlancoApexCommentToken) token).getCommentType() == BlancoApexCommentToken.CommentType.MULTI_LINE
+                    ? BlancoApexLexicalScanner.SUBTYPE_MULTI_LINE : BlancoApexLexicalScanner.SUBTYPE_SINGLE_LINE;
+        }
+        if (token instanceof BlancoApexWordToken) {
+            final BlancoApexWordToken wordToken = (BlancoApexWordToken) token;
+            if (wordToken.isReservedKeyword()) {
+                return wordToken.isSystemType() ? BlancoApexLexicalScanner.SUBTYPE_RESERVED_KEYWORD_SYSTEM_TYPE
+                        : BlancoApexLexicalScanner.SUBTYPE_RESERVED_KEYWORD;
+            }
+            return wordToken.isSystemType() ? BlancoApexLexicalScanner.SUBTYPE_SYSTEM_TYPE
+                    : BlancoApexLexicalScanner.SUBTYPE_NONE;
+        }
+        if (token instanceof BlancoApexLiteralToken == false) {
+            return BlancoApexLexicalScanner.SUBTYPE_NONE;
+        }
+
+        final BlancoApexLiteralToken literal = (BlancoApexLiteralToken) token;
+        if (literal.getLiteralType() != BlancoApexLiteralToken.LiteralType.NUMBER) {
+            return BlancoApexLexicalScanner.SUBTYPE_STRING;
+        }
+        switch (literal.getNumberType()) {
+        case INTEGER:
+            return BlancoApexLexicalScanner.SUBTYPE_INTEGER;
+        case LONG:
+            return BlancoApexLexicalScanner.SUBTYPE_LONG;
+        case DECIMAL:
+            return BlancoApexLexicalScanner.SUBTYPE_DECIMAL;
+        case DOUBLE:
+            return BlancoApexLexicalScanner.SUBTYPE_DOUBLE;
+        default:
+            final char[] value = literal.getValue().toCharArray();
+            final int subType = BlancoApexLexicalScanner.getNumberSubType(value, 0, value.length);
+            return subType == BlancoApexLexicalScanner.SUBTYPE_NONE ? BlancoApexLexicalScanner.SUBTYPE_INTEGER
+                    : subType;
+        }
+    }
+
+    /**
+     * Read all chars from reader.
+     * 
+     * @param reader
+     *            Reader to read. This is not closed here.
+     * @return Array of chars. Length of array is equal to count of chars.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public static char[] readAll(final Reader reader) throws IOException {
+        char[] buf = new char[8192];
+        int length = 0;
+        for (;;) {
+            if (length == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            final int readLength = reader.read(buf, length, buf.length - length);
+            if (readLength < 0) {
+                break;
+            }
+            length += readLength;
+        }
+        return length == buf.length ? buf : Arrays.copyOf(buf, length);
+    }
+
+    /**
+     * Read all chars of UTF-8 file via memory mapped buffer.
+     * 
+     * @param file
+     *            UTF-8 file to read.
+     * @return Array of chars. Length of array is equal to count of chars.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public static char[] readAllMapped(final File file) throws IOException {
+        final FileInputStream inStream = new FileInputStream(file);
+        try {
+            final FileChannel channel = inStream.getChannel();
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + file);
+            }
+            if (size == 0) {
+                return new char[0];
+            }
+            return decodeUtf8(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } finally {
+            inStream.close();
+        }
+    }
+
+    /**
+     * Decode UTF-8 bytes into chars. ASCII bytes are copied directly. Malformed
+     * bytes are replaced, same as InputStreamReader.
+     * 
+     * @param byteBuffer
+     *            UTF-8 bytes from position to limit.
+     * @return Array of chars. Length of array is equal to count of chars.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public static char[] decodeUtf8(final ByteBuffer byteBuffer) throws IOException {
+        // count of chars never exceeds count of bytes in UTF-8.
+        final char[] result = new char[byteBuffer.remaining()];
+
+        // fast path of ASCII.
+        int length = 0;
+        final int limit = byteBuffer.limit();
+        int index = byteBuffer.position();
+        if (byteBuffer.order() == ByteOrder.BIG_ENDIAN) {
+            // 8 bytes at once while all of them are ASCII.
+            for (; index + 8 <= limit; index += 8) {
+                final long word = byteBuffer.getLong(index);
+                if ((word & 0x8080808080808080L) != 0) {
+                    break;
+                }
+                result[length] = (char) (word >>> 56);
+                result[length + 1] = (char) ((word >>> 48) & 0x7f);
+                result[length + 2] = (char) ((word >>> 40) & 0x7f);
+                result[length + 3] = (char) ((word >>> 32) & 0x7f);
+                result[length + 4] = (char) ((word >>> 24) & 0x7f);
+                result[length + 5] = (char) ((word >>> 16) & 0x7f);
+                result[length + 6] = (char) ((word >>> 8) & 0x7f);
+                result[length + 7] = (char) (word & 0x7f);
+                length += 8;
+            }
+        }
+        for (; index < limit; index++) {
+            final byte bRead = byteBuffer.get(index);
+            if (bRead < 0) {
+                break;
+            }
+            result[length++] = (char) bRead;
+        }
+
+        if (index < limit) {
+            // non ASCII found. decode the rest.
+            byteBuffer.position(index);
+            final CharsetDecoder decoder = Charset.forName("UTF-8").newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+            final CharBuffer charBuffer = CharBuffer.wrap(result, length, result.length - length);
+            decoder.decode(byteBuffer, charBuffer, true);
+            decoder.flush(charBuffer);
+            length = charBuffer.position();
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
     /**
      * convert token list to string.
      * 
+     * <p>
+     * To write tokens into file or stream, use {@link BlancoApexTokenWriter}
+     * instead. It does not build whole source as one String.
+     * </p>
+     * 
      * @param tokenList
      *            List of token.
      * @return String of codes.
      */
     public static String tokenList2String(final List<BlancoApexToken> tokenList) {
-        final StringBuffer strbuf = new StringBuffer();
+        int length = 0;
+        for (BlancoApexToken lookup : tokenList) {
+            length += lookup.getValue().length();
+        }
+        final StringBuilder strbuf = new StringBuilder(length);
         for (BlancoApexToken lookup : tokenList) {
             strbuf.append(lookup.getValue());
         }
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Parser of all Apex source files under a directory, like
+ * force-app/main/default.
+ *
+ * <p>
+ * Files are parsed in parallel by a pool of threads. Each idle thread takes
+ * the next file, larger files first. Error of one file does not stop others;
+ * it is reported in the result of the file.
+ * </p>
+ *
+ * <p>
+ * Useage:
+ * </p>
+ *
+ * <code>
+ * BlancoApexProjectParser parser = new BlancoApexProjectParser();<br>
+ * parser.setParallelism(8);<br>
+ * for (BlancoApexProjectParser.Result result : parser.parse(new File("force-app/main/default"))) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;...<br>
+ * }
+ * </code>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexProjectParser {
+    /**
+     * Result of one file.
+     */
+    public static class Result {
+        /**
+         * Parsed file.
+         */
+        protected final File file;
+
+        /**
+         * Path from root directory, separated by '/'.
+         */
+        protected final String path;
+
+        /**
+         * List of token. null if error.
+         */
+        protected final List<BlancoApexToken> tokenList;
+
+        /**
+         * Error while parsing. null if succeeded.
+         */
+        protected final Exception error;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            parsed file.
+         * @param path
+         *            path from root directory.
+         * @param tokenList
+         *            List of token.
+         * @param error
+         *            error while parsing.
+         */
+        public Result(final File file, final String path, final List<BlancoApexToken> tokenList,
+                final Exception error) {
+            this.file = file;
+            this.path = path;
+            this.tokenList = tokenList;
+            this.error = error;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<BlancoApexToken> getTokenList() {
+            return tokenList;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        public boolean isSucceeded() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Callback of result of each file. This is called on the thread which
+     * called {@link BlancoApexProjectParser#parse(File, ResultHandler)}, so
+     * it need not be thread safe.
+     */
+    public interface ResultHandler {
+        /**
+         * Result of one file.
+         *
+         * @param result
+         *            result of file.
+         */
+        void onResult(Result result);
+    }
+
+    /**
+     * Default glob patterns of files to parse.
+     */
+    public static final String[] DEFAULT_INCLUDES = new String[] { "*.cls", "*.trigger" };
+
+    /**
+     * Count of threads.
+     */
+    protected int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Deliver results in order of path or not.
+     */
+    protected boolean ordered = true;
+
+    /**
+     * Patterns of files to parse.
+     */
+    protected final List<Pattern> includeList = new ArrayList<Pattern>();
+
+    /**
+     * Patterns of files not to parse.
+     */
+    protected final List<Pattern> excludeList = new ArrayList<Pattern>();
+
+    /**
+     * Set count of threads.
+     *
+     * @param arg
+     *            count of threads. 1 or more.
+     */
+    public void setParallelism(final int arg) {
+        if (arg < 1) {
+            throw new IllegalArgumentException("Parallelism must be 1 or more: " + arg);
+        }
+        parallelism = arg;
+    }
+
+    /**
+     * Set deliver results in order of path or not.
+     *
+     * @param arg
+     *            true:order of path (default), false:order of completion.
+     */
+    public void setOrdered(final boolean arg) {
+        ordered = arg;
+    }
+
+    /**
+     * Add glob pattern of files to parse. If none is added,
+     * {@link #DEFAULT_INCLUDES} is used.
+     *
+     * <p>
+     * Pattern is matched with path from root directory separated by '/'.
+     * Pattern without '/' is matched with file name. '*' matches in one
+     * directory, '**' matches across directories, '?' matches one char.
+     * </p>
+     *
+     * @param glob
+     *            glob pattern. ex. "classes/*.cls", "**&#47;triggers/*.trigger"
+     */
+    public void addInclude(final String glob) {
+        includeList.add(globToPattern(glob));
+    }
+
+    /**
+     * Add glob pattern of files not to parse.
+     *
+     * @param glob
+     *            glob pattern. see {@link #addInclude(String)}.
+     */
+    public void addExclude(final String glob) {
+        excludeList.add(globToPattern(glob));
+    }
+
+    /**
+     * Parse all files under root directory.
+     *
+     * @param rootDir
+     *            root directory.
+     * @return results of each file.
+     * @throws IOException
+     *             root directory is not found.
+     */
+    public List<Result> parse(final File rootDir) throws IOException {
+        final List<Result> resultList = new ArrayList<Result>();
+        parse(rootDir, new ResultHandler() {
+            public void onResult(final Result result) {
+                resultList.add(result);
+            }
+        });
+        return resultList;
+    }
+
+    /**
+     * Parse all files under root directory, and pass result of each file to
+     * handler.
+     *
+     * @param rootDir
+     *            root directory.
+     * @param handler
+     *            callback of results.
+     * @throws IOException
+     *             root directory is not found.
+     */
+    public void parse(final File rootDir, final ResultHandler handler) throws IOException {
+        if (rootDir.isDirectory() == false) {
+            throw new IOException("Directory not found: " + rootDir);
+        }
+
+        final List<String> pathList = new ArrayList<String>();
+        collectPath(rootDir, "", pathList, new HashSet<String>());
+
+        final List<Pattern> includes = new ArrayList<Pattern>(includeList);
+        if (includes.isEmpty()) {
+            for (String glob : DEFAULT_INCLUDES) {
+                includes.add(globToPattern(glob));
+            }
+        }
+        final List<File> fileList = new ArrayList<File>();
+        final List<String> targetPathList = new ArrayList<String>();
+        for (String path : pathList) {
+            if (matches(includes, path) && matches(excludeList, path) == false) {
+                fileList.add(new File(rootDir, path));
+                targetPathList.add(path);
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism,
+                Math.max(fileList.size(), 1)));
+        try {
+            // completion queue is used only when not ordered, otherwise
+            // nobody drains it and it keeps every result.
+            final CompletionService<Result> completionService = ordered ? null
+                    : new ExecutorCompletionService<Result>(executor);
+            // futures in order of path. used only when ordered.
+            final List<Future<Result>> futureList = new ArrayList<Future<Result>>(
+                    Collections.<Future<Result>> nCopies(ordered ? fileList.size() : 0, null));
+
+            // larger files first, to balance load of threads.
+            final Integer[] submitOrder = new Integer[fileList.size()];
+            final long[] fileSize = new long[fileList.size()];
+            for (int index = 0; index < submitOrder.length; index++) {
+                submitOrder[index] = index;
+                fileSize[index] = fileList.get(index).length();
+            }
+            Arrays.sort(submitOrder, new Comparator<Integer>() {
+                public int compare(final Integer left, final Integer right) {
+                    return fileSize[left] > fileSize[right] ? -1 : (fileSize[left] < fileSize[right] ? 1 : 0);
+                }
+            });
+            for (Integer index : submitOrder) {
+                final File file = fileList.get(index);
+                final String path = targetPathList.get(index);
+                final Callable<Result> task = new Callable<Result>() {
+                    public Result call() {
+                        try {
+                            return new Result(file, path, parseFile(file), null);
+                        } catch (Exception ex) {
+                            return new Result(file, path, null, ex);
+                        }
+                    }
+                };
+                if (ordered) {
+                    futureList.set(index, executor.submit(task));
+                } else {
+                    completionService.submit(task);
+                }
+            }
+
+            for (int index = 0; index < fileList.size(); index++) {
+                final Future<Result> future;
+                if (ordered) {
+                    future = futureList.get(index);
+                    // release result of delivered file.
+                    futureList.set(index, null);
+                } else {
+                    future = completionService.take();
+                }
+                handler.onResult(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted: " + ex.toString(), ex);
+        } catch (ExecutionException ex) {
+            // only Error reaches here. Exception is kept in result.
+            throw new IllegalStateException("Unexpected error: " + ex.toString(), ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parse one file. This is called on thread of pool.
+     *
+     * @param file
+     *            file to parse.
+     * @return List of token.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    protected List<BlancoApexToken> parseFile(final File file) throws IOException {
+        return new BlancoApexParser().parse(file);
+    }
+
+    /**
+     * Collect paths of all files under directory.
+     *
+     * @param dir
+     *            directory.
+     * @param prefix
+     *            path of directory from root. empty or ends with '/'.
+     * @param pathList
+     *            List to add paths.
+     * @param visitedDirSet
+     *            canonical paths of visited directories, to stop at cycle of
+     *            symbolic links.
+     */
+    void collectPath(final File dir, final String prefix, final List<String> pathList,
+            final Set<String> visitedDirSet) {
+        try {
+            if (visitedDirSet.add(dir.getCanonicalPath()) == false) {
+                return;
+            }
+        } catch (IOException ex) {
+            // directory which cannot be resolved is skipped.
+            return;
+        }
+        final File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectPath(child, prefix + child.getName() + "/", pathList, visitedDirSet);
+            } else {
+                pathList.add(prefix + child.getName());
+            }
+        }
+    }
+
+    /**
+     * Check path matches any of patterns.
+     *
+     * @param patternList
+     *            List of patterns.
+     * @param path
+     *            path separated by '/'.
+     * @return true:matches.
+     */
+    static boolean matches(final List<Pattern> patternList, final String path) {
+        for (Pattern pattern : patternList) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Convert glob pattern into regular expression.
+     *
+     * @param glob
+     *            glob pattern.
+     * @return regular expression matches path separated by '/'.
+     */
+    static Pattern globToPattern(final String glob) {
+        final StringBuilder regex = new StringBuilder();
+        if (glob.indexOf('/') < 0) {
+            // matches file name in any directory.
+            regex.append("(?:.*/)?");
+        }
+        for (int index = 0; index < glob.length(); index++) {
+            final char cLookup = glob.charAt(index);
+            if (cLookup == '*') {
+                if (index + 1 < glob.length() && glob.charAt(index + 1) == '*') {
+                    index++;
+                    if (index + 1 < glob.length() && glob.charAt(index + 1) == '/') {
+                        // "**/" matches zero or more directories.
+                        index++;
+                        regex.append("(?:.*/)?");
+                    } else {
+                        regex.append(".*");
+                    }
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if (cLookup == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(cLookup)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
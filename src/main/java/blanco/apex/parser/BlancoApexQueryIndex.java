@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of inline SOQL and SOSL query regions like "[SELECT Id FROM Account]".
+ * 
+ * <p>
+ * Query is lexed as ordinary Apex tokens. This index only marks each region
+ * as range of tokens from "[" to "]", found in one pass while lexing or from
+ * token buffer. Tokens of query language are lexed on demand by
+ * {@link BlancoApexQueryRegion#getQueryTokenList()}.
+ * </p>
+ * 
+ * <p>
+ * Useage:
+ * </p>
+ * 
+ * <code>
+ * for (BlancoApexQueryRegion region : tokenBuffer.getQueryIndex().getRegionList()) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;... region.getQueryTokenList() ...<br>
+ * }
+ * </code>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexQueryIndex {
+    /**
+     * Source code buffer.
+     */
+    private final char[] source;
+
+    /**
+     * Found regions in order of start.
+     */
+    private final List<BlancoApexQueryRegion> regionList = new ArrayList<BlancoApexQueryRegion>();
+
+    /**
+     * Index of "[" token waiting for first word of query. -1 if none.
+     */
+    private int openIndex = -1;
+
+    /**
+     * Start offset of "[" token waiting for first word of query.
+     */
+    private int openOffset;
+
+    /**
+     * Line number of "[" token waiting for first word of query.
+     */
+    private int openLineNumber;
+
+    /**
+     * Column of "[" token waiting for first word of query.
+     */
+    private int openColumn;
+
+    /**
+     * Kind of current query. 0 if not in query.
+     */
+    private int queryKind = 0;
+
+    /**
+     * Depth of "[" in current query.
+     */
+    private int depth = 0;
+
+    /**
+     * Index of next token.
+     */
+    private int tokenIndex = 0;
+
+    /**
+     * Constructor. Tokens are added by
+     * {@link #add(int, int, int, int, int)}.
+     * 
+     * @param source
+     *            source code buffer.
+     */
+    BlancoApexQueryIndex(final char[] source) {
+        this.source = source;
+    }
+
+    /**
+     * Build index from token buffer.
+     * 
+     * @param tokenBuffer
+     *            token buffer.
+     * @return query index.
+     */
+    static BlancoApexQueryIndex build(final BlancoApexTokenBuffer tokenBuffer) {
+        final BlancoApexQueryIndex result = new BlancoApexQueryIndex(tokenBuffer.source);
+        for (int index = 0; index < tokenBuffer.size(); index++) {
+            result.add(tokenBuffer.kinds[index], tokenBuffer.starts[index], tokenBuffer.lengths[index],
+                    tokenBuffer.lineNumbers[index], tokenBuffer.columns[index]);
+        }
+        return result;
+    }
+
+    /**
+     * Add next token.
+     * 
+     * @param kind
+     *            kind of token.
+     * @param start
+     *            start of token in source.
+     * @param length
+     *            length of token.
+     * @param lineNumber
+     *            line number of token.
+     * @param column
+     *            column of token.
+     */
+    void add(final int kind, final int start, final int length, final int lineNumber, final int column) {
+        final int index = tokenIndex++;
+        if (kind == BlancoApexLexicalScanner.KIND_WHITESPACE || kind == BlancoApexLexicalScanner.KIND_NEWLINE
+                || kind == BlancoApexLexicalScanner.KIND_COMMENT) {
+            return;
+        }
+        final boolean isSingleChar = kind == BlancoApexLexicalScanner.KIND_SPECIAL_CHAR && length == 1;
+
+        if (queryKind != 0) {
+            if (isSingleChar && source[start] == '[') {
+                depth++;
+            } else if (isSingleChar && source[start] == ']') {
+                if (--depth == 0) {
+                    regionList.add(new BlancoApexQueryRegion(source, queryKind, openIndex, index, openOffset,
+                            start + 1, openLineNumber, openColumn));
+                    queryKind = 0;
+                    openIndex = -1;
+                }
+            }
+            return;
+        }
+
+        if (openIndex >= 0) {
+            if (kind == BlancoApexLexicalScanner.KIND_WORD) {
+                if (equalsIgnoreCase("SELECT", start, length)) {
+                    queryKind = BlancoApexQueryRegion.KIND_SOQL;
+                } else if (equalsIgnoreCase("FIND", start, length)) {
+                    queryKind = BlancoApexQueryRegion.KIND_SOSL;
+                }
+                if (queryKind != 0) {
+                    depth = 1;
+                    return;
+                }
+            }
+            openIndex = -1;
+        }
+
+        if (isSingleChar && source[start] == '[') {
+            openIndex = index;
+            openOffset = start;
+            openLineNumber = lineNumber;
+            openColumn = column;
+        }
+    }
+
+    /**
+     * Compare word in source with keyword ignoring case.
+     * 
+     * @param keyword
+     *            keyword in upper case.
+     * @param start
+     *            start of word in source.
+     * @param length
+     *            length of word.
+     * @return true:same.
+     */
+    private boolean equalsIgnoreCase(final String keyword, final int start, final int length) {
+        if (keyword.length() != length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            if (Character.toUpperCase(source[start + index]) != keyword.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get count of regions.
+     * 
+     * @return count of regions.
+     */
+    public int size() {
+        return regionList.size();
+    }
+
+    /**
+     * Get region.
+     * 
+     * @param index
+     *            index of region.
+     * @return region.
+     */
+    public BlancoApexQueryRegion getRegion(final int index) {
+        return regionList.get(index);
+    }
+
+    /**
+     * Get all regions in order of start.
+     * 
+     * @return list of regions.
+     */
+    public List<BlancoApexQueryRegion> getRegionList() {
+        return regionList;
+    }
+
+    /**
+     * Find region which contains token.
+     * 
+     * @param tokenIndex
+     *            index of token.
+     * @return region. null if token is not in a query.
+     */
+    public BlancoApexQueryRegion findRegion(final int tokenIndex) {
+        int low = 0;
+        int high = regionList.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final BlancoApexQueryRegion lookup = regionList.get(mid);
+            if (tokenIndex < lookup.getStartIndex()) {
+                high = mid - 1;
+            } else if (tokenIndex > lookup.getEndIndex()) {
+                low = mid + 1;
+            } else {
+                return lookup;
+            }
+        }
+        return null;
+    }
+}
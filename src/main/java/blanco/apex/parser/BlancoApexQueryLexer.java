@@ -0,0 +1,363 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Lexer of inline SOQL and SOSL query.
+ * 
+ * <p>
+ * Runs only on regions found by {@link BlancoApexQueryIndex}. Whitespace and
+ * newlines are skipped. Bind variable like ":acc.Id" or ":ids[0]" becomes one
+ * token, and parameterized date literal like "LAST_N_DAYS:30" too.
+ * </p>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexQueryLexer {
+    /**
+     * Keywords of SOQL and SOSL.
+     */
+    static final String[] KEYWORDS = { "ABOVE", "ABOVE_OR_BELOW", "ALL", "AND", "AS", "ASC", "AT", "BELOW", "BY",
+            "CATEGORY", "CUBE", "DATA", "DESC", "DIVISION", "ELSE", "EMAIL", "END", "EXCLUDES", "FALSE", "FIELDS",
+            "FIND", "FIRST", "FOR", "FROM", "GROUP", "HAVING", "IN", "INCLUDES", "LAST", "LIKE", "LIMIT", "METADATA",
+            "NAME", "NETWORK", "NOT", "NULL", "NULLS", "OFFSET", "OR", "ORDER", "PHONE", "PRICEBOOKID", "REFERENCE",
+            "RETURNING", "ROLLUP", "SCOPE", "SECURITY_ENFORCED", "SELECT", "SIDEBAR", "SNIPPET", "SPELL_CORRECTION",
+            "SYSTEM_MODE", "THEN", "TRACKING", "TRUE", "TYPEOF", "UPDATE", "USER_MODE", "USING", "VIEW", "VIEWSTAT",
+            "WHEN", "WHERE", "WITH" };
+
+    /**
+     * Date literals without parameter.
+     */
+    static final String[] DATE_LITERALS = { "YESTERDAY", "TODAY", "TOMORROW", "LAST_WEEK", "THIS_WEEK", "NEXT_WEEK",
+            "LAST_MONTH", "THIS_MONTH", "NEXT_MONTH", "LAST_90_DAYS", "NEXT_90_DAYS", "THIS_QUARTER", "LAST_QUARTER",
+            "NEXT_QUARTER", "THIS_YEAR", "LAST_YEAR", "NEXT_YEAR", "THIS_FISCAL_QUARTER", "LAST_FISCAL_QUARTER",
+            "NEXT_FISCAL_QUARTER", "THIS_FISCAL_YEAR", "LAST_FISCAL_YEAR", "NEXT_FISCAL_YEAR" };
+
+    /**
+     * Date literals with parameter like "LAST_N_DAYS:30".
+     */
+    static final String[] PARAMETERIZED_DATE_LITERALS = { "LAST_N_DAYS", "NEXT_N_DAYS", "N_DAYS_AGO", "LAST_N_WEEKS",
+            "NEXT_N_WEEKS", "N_WEEKS_AGO", "LAST_N_MONTHS", "NEXT_N_MONTHS", "N_MONTHS_AGO", "LAST_N_QUARTERS",
+            "NEXT_N_QUARTERS", "N_QUARTERS_AGO", "LAST_N_YEARS", "NEXT_N_YEARS", "N_YEARS_AGO",
+            "LAST_N_FISCAL_QUARTERS", "NEXT_N_FISCAL_QUARTERS", "N_FISCAL_QUARTERS_AGO", "LAST_N_FISCAL_YEARS",
+            "NEXT_N_FISCAL_YEARS", "N_FISCAL_YEARS_AGO" };
+
+    private static final Set<String> KEYWORD_SET = toSet(KEYWORDS);
+
+    private static final Set<String> DATE_LITERAL_SET = toSet(DATE_LITERALS);
+
+    private static final Set<String> PARAMETERIZED_DATE_LITERAL_SET = toSet(PARAMETERIZED_DATE_LITERALS);
+
+    /**
+     * Source code buffer.
+     */
+    private char[] buf;
+
+    /**
+     * Position of cursor.
+     */
+    private int pos;
+
+    /**
+     * End of query (exclusive).
+     */
+    private int end;
+
+    /**
+     * Line number at cursor.
+     */
+    private int lineNumber;
+
+    /**
+     * Parse query into tokens.
+     * 
+     * @param query
+     *            text of query without "[" and "]".
+     * @return list of query tokens.
+     */
+    public List<BlancoApexQueryToken> parse(final String query) {
+        return parse(query.toCharArray(), 0, query.length(), 1);
+    }
+
+    /**
+     * Parse query into tokens.
+     * 
+     * @param source
+     *            source code buffer.
+     * @param start
+     *            start of query.
+     * @param end
+     *            end of query (exclusive).
+     * @param firstLineNumber
+     *            line number at start of query.
+     * @return list of query tokens.
+     */
+    public List<BlancoApexQueryToken> parse(final char[] source, final int start, final int end,
+            final int firstLineNumber) {
+        this.buf = source;
+        this.pos = start;
+        this.end = end;
+        this.lineNumber = firstLineNumber;
+
+        final List<BlancoApexQueryToken> result = new ArrayList<BlancoApexQueryToken>();
+        while (pos < end) {
+            final char cRead = buf[pos];
+            if (cRead == '\r') {
+                lineNumber++;
+                if (pos + 1 < end && buf[pos + 1] == '\n') {
+                    pos++;
+                }
+                pos++;
+                continue;
+            }
+            if (cRead == '\n') {
+                lineNumber++;
+                pos++;
+                continue;
+            }
+            if (Character.isWhitespace(cRead)) {
+                pos++;
+                continue;
+            }
+
+            final int tokenStart = pos;
+            final int tokenLineNumber = this.lineNumber;
+            final int type;
+            if (cRead == '\'') {
+                type = BlancoApexQueryToken.TYPE_STRING;
+                scanString();
+            } else if (cRead == '{') {
+                // search term of SOSL.
+                type = BlancoApexQueryToken.TYPE_STRING;
+                scanUntil('}');
+            } else if (cRead == ':') {
+                type = BlancoApexQueryToken.TYPE_BIND_VARIABLE;
+                scanBindVariable();
+            } else if (isDigit(cRead)) {
+                type = scanNumberOrDate();
+            } else if (isWordStart(cRead)) {
+                type = scanWord();
+            } else {
+                type = BlancoApexQueryToken.TYPE_OPERATOR;
+                pos++;
+                if (pos < end && isOperatorPair(cRead, buf[pos])) {
+                    pos++;
+                }
+            }
+            result.add(new BlancoApexQueryToken(type, new String(buf, tokenStart, pos - tokenStart), tokenStart,
+                    tokenLineNumber));
+        }
+        return result;
+    }
+
+    /**
+     * Scan string literal with escape by backslash.
+     */
+    private void scanString() {
+        pos++;
+        while (pos < end) {
+            final char cRead = buf[pos++];
+            if (cRead == '\\') {
+                if (pos < end) {
+                    pos++;
+                }
+            } else if (cRead == '\'') {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Scan until close char (inclusive).
+     * 
+     * @param close
+     *            close char.
+     */
+    private void scanUntil(final char close) {
+        pos++;
+        while (pos < end) {
+            final char cRead = buf[pos++];
+            if (cRead == close) {
+                return;
+            }
+            if (cRead == '\n' || (cRead == '\r' && (pos >= end || buf[pos] != '\n'))) {
+                lineNumber++;
+            }
+        }
+    }
+
+    /**
+     * Scan bind variable: ":" and Apex expression like "acc.Id",
+     * "getIds()", "ids[0]".
+     */
+    private void scanBindVariable() {
+        pos++;
+        while (pos < end && (buf[pos] == ' ' || buf[pos] == '\t')) {
+            pos++;
+        }
+        while (pos < end) {
+            final char cRead = buf[pos];
+            if (isWordPart(cRead) || cRead == '.') {
+                pos++;
+            } else if (cRead == '(') {
+                scanBalanced('(', ')');
+            } else if (cRead == '[') {
+                scanBalanced('[', ']');
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Scan balanced brackets (inclusive).
+     * 
+     * @param open
+     *            open char.
+     * @param close
+     *            close char.
+     */
+    private void scanBalanced(final char open, final char close) {
+        int depth = 0;
+        while (pos < end) {
+            final char cRead = buf[pos];
+            if (cRead == '\'') {
+                scanString();
+                continue;
+            }
+            pos++;
+            if (cRead == open) {
+                depth++;
+            } else if (cRead == close) {
+                if (--depth == 0) {
+                    return;
+                }
+            } else if (cRead == '\n' || (cRead == '\r' && (pos >= end || buf[pos] != '\n'))) {
+                lineNumber++;
+            }
+        }
+    }
+
+    /**
+     * Scan number, or date literal like "2016-09-27" and
+     * "2016-09-27T10:00:00Z".
+     * 
+     * @return type of token.
+     */
+    private int scanNumberOrDate() {
+        final int start = pos;
+        while (pos < end && isDigit(buf[pos])) {
+            pos++;
+        }
+        if (pos - start == 4 && pos + 5 < end && buf[pos] == '-' && isDigit(buf[pos + 1]) && isDigit(buf[pos + 2])
+                && buf[pos + 3] == '-' && isDigit(buf[pos + 4]) && isDigit(buf[pos + 5])) {
+            pos += 6;
+            if (pos < end && buf[pos] == 'T') {
+                pos++;
+                while (pos < end && (isDigit(buf[pos]) || buf[pos] == ':' || buf[pos] == '.' || buf[pos] == '+'
+                        || buf[pos] == '-' || buf[pos] == 'Z')) {
+                    pos++;
+                }
+            }
+            return BlancoApexQueryToken.TYPE_DATE_LITERAL;
+        }
+        while (pos < end && (isDigit(buf[pos]) || buf[pos] == '.')) {
+            pos++;
+        }
+        return BlancoApexQueryToken.TYPE_NUMBER;
+    }
+
+    /**
+     * Scan keyword, date literal or field path.
+     * 
+     * @return type of token.
+     */
+    private int scanWord() {
+        final int start = pos;
+        boolean isPath = false;
+        while (pos < end) {
+            final char cRead = buf[pos];
+            if (isWordPart(cRead)) {
+                pos++;
+            } else if (cRead == '.' && pos + 1 < end && isWordStart(buf[pos + 1])) {
+                isPath = true;
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (isPath) {
+            return BlancoApexQueryToken.TYPE_FIELD_PATH;
+        }
+
+        final String word = new String(buf, start, pos - start).toUpperCase(Locale.ENGLISH);
+        if (KEYWORD_SET.contains(word)) {
+            return BlancoApexQueryToken.TYPE_KEYWORD;
+        }
+        if (DATE_LITERAL_SET.contains(word)) {
+            return BlancoApexQueryToken.TYPE_DATE_LITERAL;
+        }
+        if (PARAMETERIZED_DATE_LITERAL_SET.contains(word)) {
+            int lookup = pos;
+            if (lookup < end && buf[lookup] == ':') {
+                lookup++;
+                while (lookup < end && (buf[lookup] == ' ' || buf[lookup] == '\t')) {
+                    lookup++;
+                }
+                if (lookup < end && isDigit(buf[lookup])) {
+                    while (lookup < end && isDigit(buf[lookup])) {
+                        lookup++;
+                    }
+                    pos = lookup;
+                }
+            }
+            return BlancoApexQueryToken.TYPE_DATE_LITERAL;
+        }
+        return BlancoApexQueryToken.TYPE_FIELD_PATH;
+    }
+
+    private static boolean isOperatorPair(final char cFirst, final char cSecond) {
+        return (cSecond == '=' && (cFirst == '!' || cFirst == '<' || cFirst == '>'))
+                || (cFirst == '<' && cSecond == '>');
+    }
+
+    private static boolean isDigit(final char cRead) {
+        return cRead >= '0' && cRead <= '9';
+    }
+
+    private static boolean isWordStart(final char cRead) {
+        return (cRead >= 'a' && cRead <= 'z') || (cRead >= 'A' && cRead <= 'Z') || cRead == '_'
+                || (cRead >= 0x80 && Character.isLetter(cRead));
+    }
+
+    private static boolean isWordPart(final char cRead) {
+        return isWordStart(cRead) || isDigit(cRead);
+    }
+
+    private static Set<String> toSet(final String[] values) {
+        final Set<String> result = new HashSet<String>();
+        for (String lookup : values) {
+            result.add(lookup);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.List;
+
+/**
+ * Region of inline SOQL or SOSL query, from "[" to "]".
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexQueryRegion {
+    /**
+     * Kind: SOQL, starts with SELECT.
+     */
+    public static final int KIND_SOQL = 1;
+
+    /**
+     * Kind: SOSL, starts with FIND.
+     */
+    public static final int KIND_SOSL = 2;
+
+    /**
+     * Source code buffer.
+     */
+    private final char[] source;
+
+    /**
+     * Kind of query. ex. KIND_SOQL
+     */
+    private final int kind;
+
+    /**
+     * Index of "[" token.
+     */
+    private final int startIndex;
+
+    /**
+     * Index of "]" token.
+     */
+    private final int endIndex;
+
+    /**
+     * Start offset of "[" in source.
+     */
+    private final int startOffset;
+
+    /**
+     * End offset of "]" in source (exclusive).
+     */
+    private final int endOffset;
+
+    /**
+     * Line number of "[".
+     */
+    private final int lineNumber;
+
+    /**
+     * Column of "[".
+     */
+    private final int column;
+
+    /**
+     * Tokens of query. null until lexed.
+     */
+    private List<BlancoApexQueryToken> queryTokenList = null;
+
+    /**
+     * Constructor.
+     * 
+     * @param source
+     *            source code buffer.
+     * @param kind
+     *            kind of query.
+     * @param startIndex
+     *            index of "[" token.
+     * @param endIndex
+     *            index of "]" token.
+     * @param startOffset
+     *            start offset of "[".
+     * @param endOffset
+     *            end offset of "]" (exclusive).
+     * @param lineNumber
+     *            line number of "[".
+     * @param column
+     *            column of "[".
+     */
+    BlancoApexQueryRegion(final char[] source, final int kind, final int startIndex, final int endIndex,
+            final int startOffset, final int endOffset, final int lineNumber, final int column) {
+        this.source = source;
+        this.kind = kind;
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.lineNumber = lineNumber;
+        this.column = column;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    public int getStartIndex() {
+        return startIndex;
+    }
+
+    public int getEndIndex() {
+        return endIndex;
+    }
+
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Get text of query between "[" and "]".
+     * 
+     * @return text of query.
+     */
+    public String getQueryString() {
+        return new String(source, startOffset + 1, endOffset - startOffset - 2);
+    }
+
+    /**
+     * Get tokens of query between "[" and "]". Lexed on first call.
+     * 
+     * @return list of query tokens.
+     */
+    public List<BlancoApexQueryToken> getQueryTokenList() {
+        if (queryTokenList == null) {
+            queryTokenList = new BlancoApexQueryLexer().parse(source, startOffset + 1, endOffset - 1, lineNumber);
+        }
+        return queryTokenList;
+    }
+}
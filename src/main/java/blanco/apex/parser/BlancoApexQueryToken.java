@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+/**
+ * Token of inline SOQL or SOSL query, lexed by {@link BlancoApexQueryLexer}.
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexQueryToken {
+    /**
+     * Type: keyword like SELECT, FROM, WHERE.
+     */
+    public static final int TYPE_KEYWORD = 1;
+
+    /**
+     * Type: field path or object name like Account.Owner.Name.
+     */
+    public static final int TYPE_FIELD_PATH = 2;
+
+    /**
+     * Type: bind variable like ":accountIds".
+     */
+    public static final int TYPE_BIND_VARIABLE = 3;
+
+    /**
+     * Type: date literal like TODAY, LAST_N_DAYS:30 or 2016-09-27.
+     */
+    public static final int TYPE_DATE_LITERAL = 4;
+
+    /**
+     * Type: string literal, or search term of SOSL like {word}.
+     */
+    public static final int TYPE_STRING = 5;
+
+    /**
+     * Type: number literal.
+     */
+    public static final int TYPE_NUMBER = 6;
+
+    /**
+     * Type: operator or punctuation like "=", "(", ",".
+     */
+    public static final int TYPE_OPERATOR = 7;
+
+    /**
+     * Type of token. ex. TYPE_KEYWORD
+     */
+    protected final int type;
+
+    /**
+     * Value of token.
+     */
+    protected final String value;
+
+    /**
+     * Offset of token in source.
+     */
+    protected final int offset;
+
+    /**
+     * Line number of token.
+     */
+    protected final int lineNumber;
+
+    /**
+     * Constructor.
+     * 
+     * @param type
+     *            type of token.
+     * @param value
+     *            value of token.
+     * @param offset
+     *            offset of token in source.
+     * @param lineNumber
+     *            line number of token.
+     */
+    public BlancoApexQueryToken(final int type, final String value, final int offset, final int lineNumber) {
+        this.type = type;
+        this.value = value;
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public String toString() {
+        return "BlancoApexQueryToken[type=" + type + ", value=" + value + ", offset=" + offset + ", lineNumber="
+                + lineNumber + "]";
+    }
+}
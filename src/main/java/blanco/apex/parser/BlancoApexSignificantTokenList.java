@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import blanco.apex.parser.token.BlancoApexCommentToken;
+import blanco.apex.parser.token.BlancoApexNewlineToken;
+import blanco.apex.parser.token.BlancoApexToken;
+import blanco.apex.parser.token.BlancoApexWhitespaceToken;
+
+/**
+ * List view of significant tokens, without whitespace, newline and comment.
+ * 
+ * <p>
+ * Tokens are not copied. This view holds indexes of significant tokens in
+ * the full token list, so formatter can keep whole tokens and analyzer can
+ * skip trivia from the same parse result.
+ * </p>
+ * 
+ * <p>
+ * Useage:
+ * </p>
+ * 
+ * <code>
+ * BlancoApexSignificantTokenList significantList = BlancoApexSignificantTokenList.build(tokenList);<br>
+ * BlancoApexToken token = significantList.get(index);<br>
+ * int tokenIndex = significantList.getTokenIndex(index); // index in tokenList
+ * </code>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexSignificantTokenList extends AbstractList<BlancoApexToken> implements RandomAccess {
+    /**
+     * Full list of tokens.
+     */
+    private final List<BlancoApexToken> tokenList;
+
+    /**
+     * Index in full list of each significant token, in ascending order.
+     */
+    private final int[] tokenIndexes;
+
+    /**
+     * Count of significant tokens.
+     */
+    private final int size;
+
+    /**
+     * Constructor.
+     * 
+     * @param tokenList
+     *            full list of tokens.
+     * @param tokenIndexes
+     *            index in full list of each significant token.
+     * @param size
+     *            count of significant tokens.
+     */
+    BlancoApexSignificantTokenList(final List<BlancoApexToken> tokenList, final int[] tokenIndexes,
+            final int size) {
+        this.tokenList = tokenList;
+        this.tokenIndexes = tokenIndexes;
+        this.size = size;
+    }
+
+    /**
+     * Build view of significant tokens.
+     * 
+     * @param tokenList
+     *            full list of tokens. Must not be changed after this.
+     * @return view of significant tokens.
+     */
+    public static BlancoApexSignificantTokenList build(final List<BlancoApexToken> tokenList) {
+        final int[] tokenIndexes = new int[tokenList.size()];
+        int size = 0;
+        int index = 0;
+        for (BlancoApexToken lookup : tokenList) {
+            if (isSignificant(lookup)) {
+                tokenIndexes[size++] = index;
+            }
+            index++;
+        }
+        return new BlancoApexSignificantTokenList(tokenList, tokenIndexes, size);
+    }
+
+    /**
+     * Build view of significant tokens of token buffer. Token objects are
+     * created on access.
+     * 
+     * @param tokenBuffer
+     *            token buffer.
+     * @return view of significant tokens.
+     */
+    static BlancoApexSignificantTokenList build(final BlancoApexTokenBuffer tokenBuffer) {
+        final int[] tokenIndexes = new int[tokenBuffer.size()];
+        int size = 0;
+        for (int index = 0; index < tokenBuffer.size(); index++) {
+            if (isSignificant(tokenBuffer.kinds[index])) {
+                tokenIndexes[size++] = index;
+            }
+        }
+        return new BlancoApexSignificantTokenList(tokenBuffer.asTokenList(), tokenIndexes, size);
+    }
+
+    /**
+     * Check token is significant or not.
+     * 
+     * @param token
+     *            token.
+     * @return true:significant, false:whitespace, newline or comment.
+     */
+    public static boolean isSignificant(final BlancoApexToken token) {
+        return (token instanceof BlancoApexWhitespaceToken || token instanceof BlancoApexNewlineToken
+                || token instanceof BlancoApexCommentToken) == false;
+    }
+
+    /**
+     * Check kind of token is significant or not.
+     * 
+     * @param kind
+     *            kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     * @return true:significant, false:whitespace, newline or comment.
+     */
+    public static boolean isSignificant(final int kind) {
+        return kind != BlancoApexLexicalScanner.KIND_WHITESPACE && kind != BlancoApexLexicalScanner.KIND_NEWLINE
+                && kind != BlancoApexLexicalScanner.KIND_COMMENT;
+    }
+
+    @Override
+    public BlancoApexToken get(final int index) {
+        return tokenList.get(getTokenIndex(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get full list of tokens, including whitespace, newline and comment.
+     * 
+     * @return full list of tokens.
+     */
+    public List<BlancoApexToken> getTokenList() {
+        return tokenList;
+    }
+
+    /**
+     * Get index in full list of significant token.
+     * 
+     * @param index
+     *            index in this view.
+     * @return index in full list.
+     */
+    public int getTokenIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return tokenIndexes[index];
+    }
+
+    /**
+     * Get index in this view of token of full list.
+     * 
+     * @param tokenIndex
+     *            index in full list.
+     * @return index in this view. -1 if token is not significant.
+     */
+    public int indexOfTokenIndex(final int tokenIndex) {
+        final int found = Arrays.binarySearch(tokenIndexes, 0, size, tokenIndex);
+        return found >= 0 ? found : -1;
+    }
+
+    /**
+     * Get index in full list of next significant token.
+     * 
+     * @param tokenIndex
+     *            index in full list.
+     * @return index in full list of first significant token after
+     *         tokenIndex. -1 if none.
+     */
+    public int nextTokenIndex(final int tokenIndex) {
+        int found = Arrays.binarySearch(tokenIndexes, 0, size, tokenIndex);
+        found = found >= 0 ? found + 1 : -found - 1;
+        return found < size ? tokenIndexes[found] : -1;
+    }
+
+    /**
+     * Get index in full list of previous significant token.
+     * 
+     * @param tokenIndex
+     *            index in full list.
+     * @return index in full list of last significant token before
+     *         tokenIndex. -1 if none.
+     */
+    public int previousTokenIndex(final int tokenIndex) {
+        int found = Arrays.binarySearch(tokenIndexes, 0, size, tokenIndex);
+        found = found >= 0 ? found - 1 : -found - 2;
+        return found >= 0 ? tokenIndexes[found] : -1;
+    }
+}
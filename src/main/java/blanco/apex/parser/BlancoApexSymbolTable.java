@@ -0,0 +1,263 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Symbol table which shares values of tokens.
+ *
+ * <p>
+ * Special chars, whitespaces and newlines which often appear are shared as
+ * canonical instances, which are same as string literals. Words are shared by
+ * bounded table: each pair of slots keeps the last two words of its hash, so
+ * memory never grows and no lock is needed. String is immutable, so the table
+ * is safe to share among threads.
+ * </p>
+ *
+ * <p>
+ * Useage:
+ * </p>
+ *
+ * <code>
+ * BlancoApexParserOptions options = new BlancoApexParserOptions();<br>
+ * options.setSymbolTable(BlancoApexSymbolTable.getShared());<br>
+ * List&lt;BlancoApexToken&gt; result = new BlancoApexParser().parse(file, options);
+ * </code>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexSymbolTable {
+    /**
+     * Default count of slots of shared table.
+     */
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    /**
+     * Words longer than this are not shared.
+     */
+    public static final int MAX_WORD_LENGTH = 128;
+
+    /**
+     * Canonical instances of special chars, whitespaces and newlines. Open
+     * addressing by hash.
+     */
+    private static final String[] CANONICAL_TABLE;
+
+    /**
+     * Shared table.
+     */
+    private static final BlancoApexSymbolTable SHARED = new BlancoApexSymbolTable(DEFAULT_CAPACITY);
+
+    static {
+        final List<String> canonicalList = new ArrayList<String>();
+        for (char cLookup = 0; cLookup < 128; cLookup++) {
+            if (BlancoApexParserUtil.isSpecialChar(cLookup)) {
+                canonicalList.add(String.valueOf(cLookup));
+            }
+        }
+        for (String lookup : BlancoApexParser.COMBINED_SPECIAL_CHAR) {
+            canonicalList.add(lookup);
+        }
+        // indents.
+        final StringBuilder strbuf = new StringBuilder();
+        for (int index = 0; index < 64; index++) {
+            strbuf.append(' ');
+            canonicalList.add(strbuf.toString());
+        }
+        strbuf.setLength(0);
+        for (int index = 0; index < 16; index++) {
+            strbuf.append('\t');
+            canonicalList.add(strbuf.toString());
+        }
+        canonicalList.add("\n");
+        canonicalList.add("\r");
+        canonicalList.add("\r\n");
+
+        int tableSize = 1;
+        while (tableSize < canonicalList.size() * 4) {
+            tableSize <<= 1;
+        }
+        CANONICAL_TABLE = new String[tableSize];
+        for (String lookup : canonicalList) {
+            int index = hash(lookup.toCharArray(), 0, lookup.length()) & (tableSize - 1);
+            while (CANONICAL_TABLE[index] != null && CANONICAL_TABLE[index].equals(lookup) == false) {
+                index = (index + 1) & (tableSize - 1);
+            }
+            // same instance as string literal.
+            CANONICAL_TABLE[index] = lookup.intern();
+        }
+    }
+
+    /**
+     * Slots of words.
+     */
+    private final String[] slots;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            count of slots. Rounded up to power of 2.
+     */
+    public BlancoApexSymbolTable(final int capacity) {
+        int size = 16;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        slots = new String[size];
+    }
+
+    /**
+     * Get shared table.
+     *
+     * @return shared table.
+     */
+    public static BlancoApexSymbolTable getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Get value of token, shared if possible.
+     *
+     * @param kind
+     *            kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     * @param buf
+     *            buffer of source.
+     * @param start
+     *            start of token in buffer.
+     * @param length
+     *            length of token.
+     * @return value of token.
+     */
+    public String intern(final int kind, final char[] buf, final int start, final int length) {
+        switch (kind) {
+        case BlancoApexLexicalScanner.KIND_SPECIAL_CHAR:
+        case BlancoApexLexicalScanner.KIND_WHITESPACE:
+        case BlancoApexLexicalScanner.KIND_NEWLINE:
+            final String canonical = getCanonical(buf, start, length);
+            if (canonical != null) {
+                return canonical;
+            }
+            return internWord(buf, start, length);
+        case BlancoApexLexicalScanner.KIND_WORD:
+            return internWord(buf, start, length);
+        default:
+            return new String(buf, start, length);
+        }
+    }
+
+    /**
+     * Get canonical instance.
+     *
+     * @param buf
+     *            buffer of source.
+     * @param start
+     *            start of value in buffer.
+     * @param length
+     *            length of value.
+     * @return canonical instance. null if not found.
+     */
+    static String getCanonical(final char[] buf, final int start, final int length) {
+        final int mask = CANONICAL_TABLE.length - 1;
+        for (int index = hash(buf, start, length) & mask;; index = (index + 1) & mask) {
+            final String lookup = CANONICAL_TABLE[index];
+            if (lookup == null) {
+                return null;
+            }
+            if (equals(lookup, buf, start, length)) {
+                return lookup;
+            }
+        }
+    }
+
+    /**
+     * Get shared word.
+     *
+     * @param buf
+     *            buffer of source.
+     * @param start
+     *            start of word in buffer.
+     * @param length
+     *            length of word.
+     * @return shared word.
+     */
+    String internWord(final char[] buf, final int start, final int length) {
+        if (length > MAX_WORD_LENGTH) {
+            return new String(buf, start, length);
+        }
+        final int index = hash(buf, start, length) & (slots.length - 2);
+        final String first = slots[index];
+        if (first != null && equals(first, buf, start, length)) {
+            return first;
+        }
+        final String second = slots[index + 1];
+        if (second != null && equals(second, buf, start, length)) {
+            return second;
+        }
+        final String result = new String(buf, start, length);
+        // older one is dropped. race with other thread only replaces slots.
+        slots[index + 1] = first;
+        slots[index] = result;
+        return result;
+    }
+
+    /**
+     * Hash of chars.
+     *
+     * @param buf
+     *            buffer.
+     * @param start
+     *            start in buffer.
+     * @param length
+     *            length.
+     * @return hash.
+     */
+    static int hash(final char[] buf, final int start, final int length) {
+        int result = length;
+        for (int index = start; index < start + length; index++) {
+            result = result * 31 + buf[index];
+        }
+        // spread higher bits into lower bits.
+        return result ^ (result >>> 16);
+    }
+
+    /**
+     * Check string is equal to chars.
+     *
+     * @param str
+     *            string.
+     * @param buf
+     *            buffer.
+     * @param start
+     *            start in buffer.
+     * @param length
+     *            length.
+     * @return true:equal.
+     */
+    static boolean equals(final String str, final char[] buf, final int start, final int length) {
+        if (str.length() != length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            if (str.charAt(index) != buf[start + index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Columnar result of lexical parse.
+ *
+ * <p>
+ * Tokens are kept as parallel primitive arrays of kind, sub type, start
+ * offset, length, line number and column, which point into the source text.
+ * No token object is kept until {@link #getToken(int)} or
+ * {@link #asTokenList()} is called.
+ * </p>
+ *
+ * <p>
+ * Kind and sub type are the values of {@link BlancoApexLexicalScanner}, like
+ * BlancoApexLexicalScanner.KIND_WORD.
+ * </p>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexTokenBuffer {
+    /**
+     * Source code buffer which tokens point into.
+     */
+    protected final char[] source;
+
+    /**
+     * Count of tokens.
+     */
+    protected int size = 0;
+
+    /**
+     * Kind of each token.
+     */
+    protected byte[] kinds;
+
+    /**
+     * Sub type of each token.
+     */
+    protected byte[] subTypes;
+
+    /**
+     * Start offset of each token.
+     */
+    protected int[] starts;
+
+    /**
+     * Length of each token.
+     */
+    protected int[] lengths;
+
+    /**
+     * Line number of each token.
+     */
+    protected int[] lineNumbers;
+
+    /**
+     * Column of each token.
+     */
+    protected int[] columns;
+
+    /**
+     * Token objects created by {@link #asTokenList()}.
+     */
+    private BlancoApexToken[] materialized;
+
+    /**
+     * Index of matching brackets. null until built.
+     */
+    private BlancoApexPairIndex pairIndex;
+
+    /**
+     * Index of lines. null until built.
+     */
+    private BlancoApexLineIndex lineIndex;
+
+    /**
+     * Index of inline query regions. null until built.
+     */
+    private BlancoApexQueryIndex queryIndex;
+
+    /**
+     * View of significant tokens. null until built.
+     */
+    private BlancoApexSignificantTokenList significantTokenList;
+
+    /**
+     * Symbol table to share values of token objects. null if not shared.
+     */
+    protected BlancoApexSymbolTable symbolTable = null;
+
+    /**
+     * Value of token objects is a view into source or not.
+     */
+    protected boolean lazyValue = false;
+
+    /**
+     * Constructor.
+     *
+     * @param source
+     *            source code buffer which tokens point into.
+     * @param initialCapacity
+     *            initial capacity of tokens.
+     */
+    public BlancoApexTokenBuffer(final char[] source, final int initialCapacity) {
+        this.source = source;
+        final int capacity = Math.max(initialCapacity, 16);
+        kinds = new byte[capacity];
+        subTypes = new byte[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lineNumbers = new int[capacity];
+        columns = new int[capacity];
+    }
+
+    /**
+     * Set symbol table to share values of token objects created by
+     * {@link #getToken(int)} and {@link #asTokenList()}.
+     *
+     * @param arg
+     *            symbol table. null if not shared (default).
+     */
+    public void setSymbolTable(final BlancoApexSymbolTable arg) {
+        symbolTable = arg;
+    }
+
+    /**
+     * Set value of token objects created by {@link #getToken(int)} and
+     * {@link #asTokenList()} is a view into source or not. String of value is
+     * created on first call of getValue() of token.
+     *
+     * @param arg
+     *            true:view into source, false:String (default).
+     */
+    public void setLazyValue(final boolean arg) {
+        lazyValue = arg;
+    }
+
+    /**
+     * Add token.
+     *
+     * @param kind
+     *            kind of token.
+     * @param subType
+     *            sub type of token.
+     * @param start
+     *            start offset of token in source.
+     * @param length
+     *            length of token.
+     * @param lineNumber
+     *            line number of token.
+     * @param column
+     *            column of token.
+     */
+    public void add(final int kind, final int subType, final int start, final int length, final int lineNumber,
+            final int column) {
+        if (size == kinds.length) {
+            resize(size * 2);
+        }
+        kinds[size] = (byte) kind;
+        subTypes[size] = (byte) subType;
+        starts[size] = start;
+        lengths[size] = length;
+        lineNumbers[size] = lineNumber;
+        columns[size] = column;
+        size++;
+        materialized = null;
+        pairIndex = null;
+        lineIndex = null;
+        queryIndex = null;
+        significantTokenList = null;
+    }
+
+    /**
+     * Add tokens copied from other buffer.
+     *
+     * @param from
+     *            buffer to copy from.
+     * @param fromIndex
+     *            first index of tokens to copy (inclusive).
+     * @param toIndex
+     *            last index of tokens to copy (exclusive).
+     * @param startDelta
+     *            value to add to start offset of each token.
+     * @param lineDelta
+     *            value to add to line number of each token.
+     */
+    void addRange(final BlancoApexTokenBuffer from, final int fromIndex, final int toIndex, final int startDelta,
+            final int lineDelta) {
+        final int count = toIndex - fromIndex;
+        if (size + count > kinds.length) {
+            resize(Math.max(size + count, size * 2));
+        }
+        System.arraycopy(from.kinds, fromIndex, kinds, size, count);
+        System.arraycopy(from.subTypes, fromIndex, subTypes, size, count);
+        System.arraycopy(from.starts, fromIndex, starts, size, count);
+        System.arraycopy(from.lengths, fromIndex, lengths, size, count);
+        System.arraycopy(from.lineNumbers, fromIndex, lineNumbers, size, count);
+        System.arraycopy(from.columns, fromIndex, columns, size, count);
+        if (startDelta != 0) {
+            for (int index = size; index < size + count; index++) {
+                starts[index] += startDelta;
+            }
+        }
+        if (lineDelta != 0) {
+            for (int index = size; index < size + count; index++) {
+                lineNumbers[index] += lineDelta;
+            }
+        }
+        size += count;
+        materialized = null;
+        pairIndex = null;
+        lineIndex = null;
+        queryIndex = null;
+        significantTokenList = null;
+    }
+
+    /**
+     * Shrink arrays to count of tokens.
+     */
+    public void trimToSize() {
+        if (size < kinds.length) {
+            resize(size);
+        }
+    }
+
+    /**
+     * Resize arrays.
+     *
+     * @param capacity
+     *            new capacity.
+     */
+    protected void resize(final int capacity) {
+        kinds = Arrays.copyOf(kinds, capacity);
+        subTypes = Arrays.copyOf(subTypes, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+    }
+
+    /**
+     * Get count of tokens.
+     *
+     * @return count of tokens.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get source code buffer.
+     *
+     * @return source code buffer.
+     */
+    public char[] getSource() {
+        return source;
+    }
+
+    /**
+     * Get kind of token.
+     *
+     * @param index
+     *            index of token.
+     * @return kind of token. ex. BlancoApexLexicalScanner.KIND_WORD
+     */
+    public int getKind(final int index) {
+        checkIndex(index);
+        return kinds[index];
+    }
+
+    /**
+     * Get sub type of token.
+     *
+     * @param index
+     *            index of token.
+     * @return sub type of token. ex. BlancoApexLexicalScanner.SUBTYPE_STRING
+     */
+    public int getSubType(final int index) {
+        checkIndex(index);
+        return subTypes[index];
+    }
+
+    /**
+     * Get start offset of token.
+     *
+     * @param index
+     *            index of token.
+     * @return start offset in source (inclusive).
+     */
+    public int getStart(final int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    /**
+     * Get length of token.
+     *
+     * @param index
+     *            index of token.
+     * @return length of token.
+     */
+    public int getLength(final int index) {
+        checkIndex(index);
+        return lengths[index];
+    }
+
+    /**
+     * Get end offset of token.
+     *
+     * @param index
+     *            index of token.
+     * @return end offset in source (exclusive).
+     */
+    public int getEnd(final int index) {
+        checkIndex(index);
+        return starts[index] + lengths[index];
+    }
+
+    /**
+     * Get line number of token.
+     *
+     * @param index
+     *            index of token.
+     * @return line number.
+     */
+    public int getLineNumber(final int index) {
+        checkIndex(index);
+        return lineNumbers[index];
+    }
+
+    /**
+     * Get column of token.
+     *
+     * @param index
+     *            index of token.
+     * @return column (1 origin).
+     */
+    public int getColumn(final int index) {
+        checkIndex(index);
+        return columns[index];
+    }
+
+    /**
+     * Get value of token as new string.
+     *
+     * @param index
+     *            index of token.
+     * @return value of token.
+     */
+    public String getValue(final int index) {
+        checkIndex(index);
+        return new String(source, starts[index], lengths[index]);
+    }
+
+    /**
+     * Create new token object of given index.
+     *
+     * @param index
+     *            index of token.
+     * @return new token object.
+     */
+    public BlancoApexToken getToken(final int index) {
+        checkIndex(index);
+        return BlancoApexParserUtil.createToken(kinds[index], subTypes[index], source, starts[index], lengths[index],
+                starts[index], lineNumbers[index], columns[index], symbolTable, lazyValue);
+    }
+
+    /**
+     * Get list view of tokens. Each token object is created on first access,
+     * and the same object is returned after that.
+     *
+     * @return List of token.
+     */
+    public List<BlancoApexToken> asTokenList() {
+        return new TokenListView();
+    }
+
+    /**
+     * Get list view of tokens without whitespace, newline and comment. Built
+     * on first call. Token objects are shared with {@link #asTokenList()}.
+     *
+     * @return view of significant tokens.
+     */
+    public BlancoApexSignificantTokenList getSignificantTokenList() {
+        if (significantTokenList == null) {
+            significantTokenList = BlancoApexSignificantTokenList.build(this);
+        }
+        return significantTokenList;
+    }
+
+    /**
+     * Get index of matching brackets. Built on first call unless it was built
+     * while lexing.
+     *
+     * @return pair index.
+     */
+    public BlancoApexPairIndex getPairIndex() {
+        if (pairIndex == null) {
+            pairIndex = BlancoApexPairIndex.build(this);
+        }
+        return pairIndex;
+    }
+
+    /**
+     * Get index of lines. Built on first call.
+     *
+     * @return line index.
+     */
+    public BlancoApexLineIndex getLineIndex() {
+        if (lineIndex == null) {
+            lineIndex = new BlancoApexLineIndex(this);
+        }
+        return lineIndex;
+    }
+
+    /**
+     * Get index of inline SOQL and SOSL query regions. Built on first call
+     * unless it was built while lexing.
+     *
+     * @return query index.
+     */
+    public BlancoApexQueryIndex getQueryIndex() {
+        if (queryIndex == null) {
+            queryIndex = BlancoApexQueryIndex.build(this);
+        }
+        return queryIndex;
+    }
+
+    /**
+     * Set index of matching brackets built while lexing.
+     *
+     * @param arg
+     *            pair index of tokens of this buffer.
+     */
+    void setPairIndex(final BlancoApexPairIndex arg) {
+        pairIndex = arg;
+    }
+
+    /**
+     * Set index of inline query regions built while lexing.
+     *
+     * @param arg
+     *            query index of tokens of this buffer.
+     */
+    void setQueryIndex(final BlancoApexQueryIndex arg) {
+        queryIndex = arg;
+    }
+
+    /**
+     * Check index of token.
+     *
+     * @param index
+     *            index of token.
+     */
+    protected void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * List view which creates token objects lazily.
+     */
+    class TokenListView extends AbstractList<BlancoApexToken> implements RandomAccess {
+        @Override
+        public BlancoApexToken get(final int index) {
+            checkIndex(index);
+            if (materialized == null) {
+                materialized = new BlancoApexToken[size];
+            }
+            BlancoApexToken token = materialized[index];
+            if (token == null) {
+                token = getToken(index);
+                materialized[index] = token;
+            }
+            return token;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
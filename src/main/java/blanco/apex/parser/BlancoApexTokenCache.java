@@ -0,0 +1,557 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache of token buffers, keyed by hash of file content.
+ *
+ * <p>
+ * Key is SHA-256 of parser version, settings of lexer and bytes of file. So
+ * identical files under different paths share one entry, and entries of
+ * other versions are never used. Entry is written into temporary file and
+ * renamed, so other JVMs sharing the directory never see a partial entry.
+ * Broken entry is treated as miss. When total size of entries exceeds the
+ * limit, least recently used entries are deleted.
+ * </p>
+ *
+ * <p>
+ * Entry is compact, usually about 4 bytes per token: kind and sub type in one
+ * byte, then varint length, zigzag varint start offset delta from end of
+ * previous token, and zigzag varint line number delta, same as
+ * {@link BlancoApexBinaryTokenWriter}. Columns are not written. They are
+ * derived from new-lines in tokens on load.
+ * </p>
+ *
+ * <p>
+ * Hit still reads, hashes and decodes the source, so it saves only the
+ * lexing. Where SHA-256 runs on CPU instructions (Java 9 or later on CPU with
+ * SHA extensions), hit of a large file takes about half the time of lexing
+ * it. Elsewhere hashing takes most of the time, and hit is about as fast as
+ * lexing.
+ * </p>
+ *
+ * <p>
+ * Total size is kept as an estimate: one scan of the directory, plus size of
+ * each stored entry. The directory is scanned again only when the estimate
+ * exceeds the limit, or after {@link #RESCAN_INTERVAL} stores to catch up
+ * with other JVMs sharing the directory.
+ * </p>
+ *
+ * <p>
+ * Useage:
+ * </p>
+ *
+ * <code>
+ * BlancoApexParserOptions options = new BlancoApexParserOptions();<br>
+ * options.setTokenCache(new BlancoApexTokenCache(new File("target/apex-token-cache"), 100 * 1024 * 1024));<br>
+ * List&lt;BlancoApexToken&gt; result = new BlancoApexParser().parse(file, options);
+ * </code>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexTokenCache {
+    /**
+     * Magic number at the head of entry.
+     */
+    static final int MAGIC = 0x42415443;
+
+    /**
+     * Version of entry format.
+     */
+    static final int FORMAT_VERSION = 4;
+
+    /**
+     * Size of header: magic, format version, length of source, count of
+     * tokens.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * Suffix of entry file.
+     */
+    static final String ENTRY_SUFFIX = ".tokens";
+
+    /**
+     * Suffix of temporary file.
+     */
+    static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Temporary files older than this are left by crashed writers.
+     */
+    static final long STALE_TEMP_MILLIS = 60L * 60L * 1000L;
+
+    /**
+     * Count of stores before scanning the directory again.
+     */
+    static final int RESCAN_INTERVAL = 1000;
+
+    /**
+     * Directory of entries.
+     */
+    protected final File cacheDir;
+
+    /**
+     * Limit of total size of entries in bytes.
+     */
+    protected final long maxSize;
+
+    /**
+     * Count of hits.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * Count of misses.
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Estimated total size of entries in bytes. -1 until first scan.
+     */
+    private long estimatedSize = -1;
+
+    /**
+     * Count of stores since last scan.
+     */
+    private int storeCountSinceScan = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param cacheDir
+     *            directory of entries. This is created if not exists.
+     * @param maxSize
+     *            limit of total size of entries in bytes.
+     */
+    public BlancoApexTokenCache(final File cacheDir, final long maxSize) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get token buffer of file from cache, or parse and store it.
+     *
+     * @param file
+     *            UTF-8 file of source code.
+     * @param lexicalParser
+     *            lexical parser used on miss.
+     * @return token buffer.
+     * @throws IOException
+     *             I/O Exception of source file.
+     */
+    public BlancoApexTokenBuffer parseTokenBuffer(final File file, final BlancoApexLexicalParser lexicalParser)
+            throws IOException {
+        final byte[] bytes = readBytes(file);
+        final char[] source = BlancoApexParserUtil.decodeUtf8(ByteBuffer.wrap(bytes));
+        final File entryFile = new File(cacheDir, getKey(bytes, lexicalParser.combineSpecialChar) + ENTRY_SUFFIX);
+
+        final BlancoApexTokenBuffer cached = load(entryFile, source);
+        if (cached != null) {
+            cached.setSymbolTable(lexicalParser.symbolTable);
+            cached.setLazyValue(lexicalParser.lazyValue);
+            hitCount.incrementAndGet();
+            // used recently.
+            entryFile.setLastModified(System.currentTimeMillis());
+            return cached;
+        }
+
+        missCount.incrementAndGet();
+        final BlancoApexTokenBuffer tokenBuffer = lexicalParser.parseTokenBuffer(source, 0, source.length);
+        try {
+            stored(store(entryFile, tokenBuffer));
+        } catch (IOException ex) {
+            // cache is optional. parse result is still valid.
+        }
+        return tokenBuffer;
+    }
+
+    /**
+     * Get count of hits.
+     *
+     * @return count of hits.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Get count of misses.
+     *
+     * @return count of misses.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Get key of entry.
+     *
+     * @param bytes
+     *            bytes of file.
+     * @param combineSpecialChar
+     *            setting of lexer.
+     * @return hex string of SHA-256.
+     */
+    static String getKey(final byte[] bytes, final boolean combineSpecialChar) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not found: " + ex.toString(), ex);
+        }
+        for (char cLookup : BlancoApexConstants.VERSION.toCharArray()) {
+            digest.update((byte) cLookup);
+        }
+        digest.update((byte) (combineSpecialChar ? 1 : 0));
+        digest.update(bytes);
+
+        final StringBuilder strbuf = new StringBuilder();
+        for (byte bLookup : digest.digest()) {
+            strbuf.append(Character.forDigit((bLookup >> 4) & 0xf, 16));
+            strbuf.append(Character.forDigit(bLookup & 0xf, 16));
+        }
+        return strbuf.toString();
+    }
+
+    /**
+     * Load entry.
+     *
+     * @param entryFile
+     *            entry file.
+     * @param source
+     *            source code which tokens point into.
+     * @return token buffer. null if not found or broken.
+     */
+    BlancoApexTokenBuffer load(final File entryFile, final char[] source) {
+        final byte[] bytes;
+        try {
+            bytes = readBytes(entryFile);
+        } catch (IOException ex) {
+            // not found, or deleted by other JVM.
+            return null;
+        }
+        if (bytes.length < HEADER_SIZE) {
+            return null;
+        }
+
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+        if (byteBuffer.getInt() != MAGIC || byteBuffer.getInt() != FORMAT_VERSION
+                || byteBuffer.getInt() != source.length) {
+            return null;
+        }
+        final int size = byteBuffer.getInt();
+        // each token takes 4 bytes at least.
+        if (size < 0 || size > (bytes.length - HEADER_SIZE) / 4) {
+            return null;
+        }
+
+        final BlancoApexTokenBuffer tokenBuffer = new BlancoApexTokenBuffer(source, size);
+        final byte[] kinds = tokenBuffer.kinds;
+        final byte[] subTypes = tokenBuffer.subTypes;
+        final int[] starts = tokenBuffer.starts;
+        final int[] lengths = tokenBuffer.lengths;
+        final int[] lineNumbers = tokenBuffer.lineNumbers;
+        int pos = HEADER_SIZE;
+        int endOffset = 0;
+        int lineNumber = 0;
+        for (int index = 0; index < size; index++) {
+            // varints below are inlined for speed. each loop reads 1 byte at
+            // least, and bytes beyond the end mean a broken entry.
+            if (pos >= bytes.length) {
+                return null;
+            }
+            final int kindSubType = bytes[pos++] & 0xff;
+            kinds[index] = (byte) (kindSubType >>> 4);
+            subTypes[index] = (byte) (kindSubType & 0x0f);
+
+            int value = 0;
+            for (int shift = 0;; shift += 7) {
+                if (pos >= bytes.length) {
+                    return null;
+                }
+                final int bRead = bytes[pos++];
+                value |= (bRead & 0x7f) << shift;
+                if (bRead >= 0) {
+                    break;
+                }
+            }
+            final int length = value;
+
+            value = 0;
+            for (int shift = 0;; shift += 7) {
+                if (pos >= bytes.length) {
+                    return null;
+                }
+                final int bRead = bytes[pos++];
+                value |= (bRead & 0x7f) << shift;
+                if (bRead >= 0) {
+                    break;
+                }
+            }
+            final int start = endOffset + ((value >>> 1) ^ -(value & 1));
+
+            value = 0;
+            for (int shift = 0;; shift += 7) {
+                if (pos >= bytes.length) {
+                    return null;
+                }
+                final int bRead = bytes[pos++];
+                value |= (bRead & 0x7f) << shift;
+                if (bRead >= 0) {
+                    break;
+                }
+            }
+            lineNumber += (value >>> 1) ^ -(value & 1);
+
+            // tokens must point into source.
+            if (start < 0 || length < 0 || start > source.length - length) {
+                return null;
+            }
+            starts[index] = start;
+            lengths[index] = length;
+            lineNumbers[index] = lineNumber;
+            endOffset = start + length;
+        }
+        if (pos != bytes.length) {
+            return null;
+        }
+        tokenBuffer.size = size;
+        fillColumns(tokenBuffer, tokenBuffer.columns);
+        return tokenBuffer;
+    }
+
+    /**
+     * Fill columns of tokens from new-lines, in the same way as
+     * {@link BlancoApexLexicalScanner}: line starts after each new-line token
+     * and after the last new-line in multi line comment.
+     *
+     * @param tokenBuffer
+     *            token buffer from start of source.
+     * @param columns
+     *            array to fill.
+     */
+    static void fillColumns(final BlancoApexTokenBuffer tokenBuffer, final int[] columns) {
+        final char[] source = tokenBuffer.getSource();
+        int lineStartOffset = 0;
+        for (int index = 0; index < tokenBuffer.size; index++) {
+            final int start = tokenBuffer.starts[index];
+            columns[index] = start - lineStartOffset + 1;
+            final int kind = tokenBuffer.kinds[index];
+            if (kind == BlancoApexLexicalScanner.KIND_NEWLINE) {
+                lineStartOffset = start + tokenBuffer.lengths[index];
+            } else if (kind == BlancoApexLexicalScanner.KIND_COMMENT
+                    && tokenBuffer.subTypes[index] == BlancoApexLexicalScanner.SUBTYPE_MULTI_LINE) {
+                for (int offset = start + tokenBuffer.lengths[index] - 1; offset >= start; offset--) {
+                    if (source[offset] == '\n' || source[offset] == '\r') {
+                        lineStartOffset = offset + 1;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Store entry atomically.
+     *
+     * @param entryFile
+     *            entry file.
+     * @param tokenBuffer
+     *            token buffer to store.
+     * @return size of entry in bytes.
+     * @throws IOException
+     *             I/O Exception, or columns can not be derived on load.
+     */
+    long store(final File entryFile, final BlancoApexTokenBuffer tokenBuffer) throws IOException {
+        final int size = tokenBuffer.size();
+        final int[] columns = new int[size];
+        fillColumns(tokenBuffer, columns);
+        for (int index = 0; index < size; index++) {
+            if (columns[index] != tokenBuffer.columns[index]) {
+                throw new IOException("Columns can not be derived at token: " + index);
+            }
+        }
+
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream(HEADER_SIZE + size * 4);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(FORMAT_VERSION);
+        header.putInt(tokenBuffer.getSource().length);
+        header.putInt(size);
+        outStream.write(header.array(), 0, HEADER_SIZE);
+        int endOffset = 0;
+        int lineNumber = 0;
+        for (int index = 0; index < size; index++) {
+            outStream.write((tokenBuffer.kinds[index] << 4) | tokenBuffer.subTypes[index]);
+            BlancoApexBinaryTokenWriter.writeVarint(outStream, tokenBuffer.lengths[index]);
+            final int offsetDelta = tokenBuffer.starts[index] - endOffset;
+            BlancoApexBinaryTokenWriter.writeVarint(outStream, (offsetDelta << 1) ^ (offsetDelta >> 31));
+            final int lineDelta = tokenBuffer.lineNumbers[index] - lineNumber;
+            BlancoApexBinaryTokenWriter.writeVarint(outStream, (lineDelta << 1) ^ (lineDelta >> 31));
+            endOffset = tokenBuffer.starts[index] + tokenBuffer.lengths[index];
+            lineNumber = tokenBuffer.lineNumbers[index];
+        }
+        final byte[] bytes = outStream.toByteArray();
+
+        cacheDir.mkdirs();
+        final File tempFile = File.createTempFile("entry", TEMP_SUFFIX, cacheDir);
+        try {
+            final FileOutputStream fileOutStream = new FileOutputStream(tempFile);
+            try {
+                fileOutStream.write(bytes);
+            } finally {
+                fileOutStream.close();
+            }
+            // rename is atomic. if other JVM stored same entry first, it has
+            // same content.
+            if (tempFile.renameTo(entryFile) == false && entryFile.exists() == false) {
+                throw new IOException("Failed to rename: " + tempFile + " to " + entryFile);
+            }
+        } finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
+        return bytes.length;
+    }
+
+    /**
+     * Add size of stored entry to the estimate, and evict only when the
+     * estimate exceeds the limit or the estimate is old.
+     *
+     * @param entrySize
+     *            size of stored entry in bytes.
+     */
+    synchronized void stored(final long entrySize) {
+        if (estimatedSize >= 0 && storeCountSinceScan < RESCAN_INTERVAL) {
+            estimatedSize += entrySize;
+            storeCountSinceScan++;
+            if (estimatedSize <= maxSize) {
+                return;
+            }
+        }
+        evict();
+    }
+
+    /**
+     * Delete least recently used entries while total size exceeds the limit.
+     * Stale temporary files are deleted too. Estimated size is reset to the
+     * scanned size.
+     */
+    synchronized void evict() {
+        storeCountSinceScan = 0;
+        final File[] files = cacheDir.listFiles();
+        if (files == null) {
+            estimatedSize = 0;
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        long totalSize = 0;
+        int entryCount = 0;
+        final File[] entries = new File[files.length];
+        final long[] lastModified = new long[files.length];
+        for (File lookup : files) {
+            if (lookup.getName().endsWith(TEMP_SUFFIX)) {
+                if (now - lookup.lastModified() > STALE_TEMP_MILLIS) {
+                    lookup.delete();
+                }
+            } else if (lookup.getName().endsWith(ENTRY_SUFFIX)) {
+                totalSize += lookup.length();
+                entries[entryCount] = lookup;
+                // keep timestamp, because it may change while sorting.
+                lastModified[entryCount] = lookup.lastModified();
+                entryCount++;
+            }
+        }
+        if (totalSize <= maxSize) {
+            estimatedSize = totalSize;
+            return;
+        }
+
+        final Integer[] order = new Integer[entryCount];
+        for (int index = 0; index < entryCount; index++) {
+            order[index] = index;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(final Integer left, final Integer right) {
+                return lastModified[left] < lastModified[right] ? -1
+                        : (lastModified[left] > lastModified[right] ? 1 : 0);
+            }
+        });
+        for (Integer index : order) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            final long length = entries[index].length();
+            // other JVM may delete it at the same time.
+            if (entries[index].delete()) {
+                totalSize -= length;
+            }
+        }
+        estimatedSize = totalSize;
+    }
+
+    /**
+     * Read all bytes of file.
+     *
+     * @param file
+     *            file to read.
+     * @return bytes of file.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    static byte[] readBytes(final File file) throws IOException {
+        final FileInputStream inStream = new FileInputStream(file);
+        try {
+            byte[] buf = new byte[(int) Math.min(file.length(), Integer.MAX_VALUE - 8)];
+            int length = 0;
+            for (;;) {
+                if (length == buf.length) {
+                    // usually end of file. grow only if file grew while
+                    // reading, so bytes are not copied.
+                    final int bRead = inStream.read();
+                    if (bRead < 0) {
+                        break;
+                    }
+                    buf = Arrays.copyOf(buf, Math.max(buf.length * 2, 16));
+                    buf[length++] = (byte) bRead;
+                }
+                final int readLength = inStream.read(buf, length, buf.length - length);
+                if (readLength < 0) {
+                    break;
+                }
+                length += readLength;
+            }
+            return length == buf.length ? buf : Arrays.copyOf(buf, length);
+        } finally {
+            inStream.close();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+/**
+ * Callback of push style lexical parse. No token object is created.
+ *
+ * <p>
+ * Given text is a window into the buffer of lexer. It is valid only while the
+ * callback method is running, and it is reused for the next token. Call
+ * toString() to keep the text.
+ * </p>
+ *
+ * <p>
+ * Offset is from the start of source code. Sub type is the value of
+ * {@link BlancoApexLexicalScanner}, like
+ * BlancoApexLexicalScanner.SUBTYPE_STRING.
+ * </p>
+ *
+ * See {@link BlancoApexParser#parse(java.io.Reader, BlancoApexTokenHandler)}.
+ *
+ * @author Toshiki Iga
+ */
+public interface BlancoApexTokenHandler {
+    /**
+     * Word found.
+     *
+     * @param text
+     *            text of token.
+     * @param offset
+     *            offset of token.
+     * @param length
+     *            length of token.
+     * @param lineNumber
+     *            line number of token.
+     */
+    void onWord(CharSequence text, int offset, int length, int lineNumber);
+
+    /**
+     * Literal found.
+     *
+     * @param text
+     *            text of token. include quote if string.
+     * @param subType
+     *            sub type of literal. ex. SUBTYPE_STRING, SUBTYPE_INTEGER.
+     * @param offset
+     *            offset of token.
+     * @param length
+     *            length of token.
+     * @param lineNumber
+     *            line number of token.
+     */
+    void onLiteral(CharSequence text, int subType, int offset, int length, int lineNumber);
+
+    /**
+     * Comment found.
+     *
+     * @param text
+     *            text of token.
+     * @param subType
+     *            SUBTYPE_SINGLE_LINE or SUBTYPE_MULTI_LINE.
+     * @param offset
+     *            offset of token.
+     * @param length
+     *            length of token.
+     * @param lineNumber
+     *            line number of token. start line if multi line comment.
+     */
+    void onComment(CharSequence text, int subType, int offset, int length, int lineNumber);
+
+    /**
+     * Special char found.
+     *
+     * @param text
+     *            text of token.
+     * @param offset
+     *            offset of token.
+     * @param length
+     *            length of token.
+     * @param lineNumber
+     *            line number of token.
+     */
+    void onSpecialChar(CharSequence text, int offset, int length, int lineNumber);
+
+    /**
+     * Whitespace found.
+     *
+     * @param text
+     *            text of token.
+     * @param offset
+     *            offset of token.
+     * @param length
+     *            length of token.
+     * @param lineNumber
+     *            line number of token.
+     */
+    void onWhitespace(CharSequence text, int offset, int length, int lineNumber);
+
+    /**
+     * New-line found.
+     *
+     * @param text
+     *            text of token.
+     * @param offset
+     *            offset of token.
+     * @param length
+     *            length of token.
+     * @param lineNumber
+     *            line number of token.
+     */
+    void onNewline(CharSequence text, int offset, int length, int lineNumber);
+}
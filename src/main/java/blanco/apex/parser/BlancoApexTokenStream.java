@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Pull based token stream of Apex source code.
+ *
+ * <p>
+ * Tokens are lexed on demand from reader with fixed size buffer. Memory does
+ * not grow with size of source. Buffer grows only when one token is longer
+ * than the buffer. Caller can stop at any time and close the stream.
+ * </p>
+ *
+ * <p>
+ * Useage:
+ * </p>
+ *
+ * <code>
+ * BlancoApexTokenStream stream = new BlancoApexParser().parseStream(reader);<br>
+ * try {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;for (BlancoApexToken token = stream.nextToken(); token != null; token = stream.nextToken()) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;...<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;}<br>
+ * } finally {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;stream.close();<br>
+ * }
+ * </code>
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexTokenStream implements Iterator<BlancoApexToken>, Closeable {
+    /**
+     * Default size of buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * Reader of source code.
+     */
+    protected final Reader reader;
+
+    /**
+     * Streaming scanner.
+     */
+    protected final BlancoApexLexicalScanner scanner;
+
+    /**
+     * Token read ahead by hasNext().
+     */
+    private BlancoApexToken nextToken = null;
+
+    /**
+     * Constructor.
+     *
+     * @param reader
+     *            Reader of source code. This is closed by {@link #close()}.
+     * @param bufferSize
+     *            size of buffer.
+     * @param combineSpecialChar
+     *            combine special chars like "++", "&lt;=" or not.
+     */
+    public BlancoApexTokenStream(final Reader reader, final int bufferSize, final boolean combineSpecialChar) {
+        this.reader = reader;
+        this.scanner = new BlancoApexLexicalScanner(bufferSize);
+        this.scanner.setCombineSpecialChar(combineSpecialChar);
+    }
+
+    /**
+     * Scan next token.
+     *
+     * @return kind of token. ex. BlancoApexLexicalScanner.KIND_WORD. KIND_EOF
+     *         if end of source.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public int nextKind() throws IOException {
+        for (;;) {
+            final int kind = scanner.next();
+            if (kind != BlancoApexLexicalScanner.KIND_NEED_MORE) {
+                return kind;
+            }
+            scanner.fill(reader);
+        }
+    }
+
+    /**
+     * Get scanner which points the current token of {@link #nextKind()}.
+     *
+     * @return scanner.
+     */
+    public BlancoApexLexicalScanner getScanner() {
+        return scanner;
+    }
+
+    /**
+     * Get next token.
+     *
+     * @return token. null if end of source.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public BlancoApexToken nextToken() throws IOException {
+        if (nextToken != null) {
+            final BlancoApexToken result = nextToken;
+            nextToken = null;
+            return result;
+        }
+
+        final int kind = nextKind();
+        if (kind == BlancoApexLexicalScanner.KIND_EOF) {
+            return null;
+        }
+        // buffer is reused, so value is not a view into it.
+        return BlancoApexParserUtil.createToken(kind, scanner.getTokenSubType(), scanner.getBuffer(),
+                scanner.getTokenStart(), scanner.getTokenEnd() - scanner.getTokenStart(), scanner.getTokenOffset(),
+                scanner.getTokenLineNumber(), scanner.getTokenColumn(), null, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException
+     *             I/O Exception occurred.
+     */
+    public boolean hasNext() {
+        if (nextToken == null) {
+            try {
+                nextToken = nextToken();
+            } catch (IOException ex) {
+                throw new IllegalStateException("I/O Exception: " + ex.toString(), ex);
+            }
+        }
+        return nextToken != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException
+     *             I/O Exception occurred.
+     */
+    public BlancoApexToken next() {
+        if (hasNext() == false) {
+            throw new NoSuchElementException();
+        }
+        final BlancoApexToken result = nextToken;
+        nextToken = null;
+        return result;
+    }
+
+    /**
+     * Not supported.
+     */
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Close reader of source code.
+     *
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void close() throws IOException {
+        reader.close();
+    }
+}
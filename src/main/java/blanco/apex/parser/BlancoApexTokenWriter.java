@@ -0,0 +1,432 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Streaming writer of tokens.
+ * 
+ * <p>
+ * Values of tokens are copied into a char buffer, and written to Writer or
+ * encoded into UTF-8 and written to WritableByteChannel block by block. Whole
+ * source is never built as one String. Tokens of token buffer are written as
+ * ranges of its source, and contiguous tokens become one range.
+ * </p>
+ * 
+ * <p>
+ * One writer can be reused for many files by {@link #writeFile(File, List)}.
+ * Buffers are allocated only once.
+ * </p>
+ * 
+ * <p>
+ * Useage:
+ * </p>
+ * 
+ * <code>
+ * BlancoApexTokenWriter writer = new BlancoApexTokenWriter(channel);<br>
+ * writer.write(tokenList);<br>
+ * writer.flush();
+ * </code>
+ * 
+ * @author Toshiki Iga
+ */
+public class BlancoApexTokenWriter implements Closeable, Flushable {
+    /**
+     * Default size of char buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 16384;
+
+    /**
+     * Buffer of chars not written yet.
+     */
+    private final char[] charBuf;
+
+    /**
+     * Buffer of encoded UTF-8 bytes. 3 bytes for each char at most.
+     */
+    private final byte[] byteBuf;
+
+    /**
+     * Count of chars in char buffer.
+     */
+    private int charLength = 0;
+
+    /**
+     * Writer to write into. null if not set.
+     */
+    private Writer writer = null;
+
+    /**
+     * Channel to write into. null if not set.
+     */
+    private WritableByteChannel channel = null;
+
+    /**
+     * Constructor. Set output by {@link #reset(Writer)} or
+     * {@link #reset(WritableByteChannel)}.
+     * 
+     * @param bufferSize
+     *            size of char buffer.
+     */
+    public BlancoApexTokenWriter(final int bufferSize) {
+        if (bufferSize < 2) {
+            throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+        }
+        charBuf = new char[bufferSize];
+        byteBuf = new byte[bufferSize * 3];
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param writer
+     *            writer to write into.
+     */
+    public BlancoApexTokenWriter(final Writer writer) {
+        this(DEFAULT_BUFFER_SIZE);
+        reset(writer);
+    }
+
+    /**
+     * Constructor. Chars are encoded into UTF-8.
+     * 
+     * @param channel
+     *            channel to write into.
+     */
+    public BlancoApexTokenWriter(final WritableByteChannel channel) {
+        this(DEFAULT_BUFFER_SIZE);
+        reset(channel);
+    }
+
+    /**
+     * Set writer to write into. Chars not flushed are discarded.
+     * 
+     * @param arg
+     *            writer to write into.
+     */
+    public void reset(final Writer arg) {
+        writer = arg;
+        channel = null;
+        charLength = 0;
+    }
+
+    /**
+     * Set channel to write into. Chars are encoded into UTF-8. Chars not
+     * flushed are discarded.
+     * 
+     * @param arg
+     *            channel to write into.
+     */
+    public void reset(final WritableByteChannel arg) {
+        writer = null;
+        channel = arg;
+        charLength = 0;
+    }
+
+    /**
+     * Write value of token.
+     * 
+     * @param token
+     *            token.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void write(final BlancoApexToken token) throws IOException {
+        write(token.getValue());
+    }
+
+    /**
+     * Write values of tokens.
+     * 
+     * @param tokenList
+     *            List of token.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void write(final List<BlancoApexToken> tokenList) throws IOException {
+        for (BlancoApexToken lookup : tokenList) {
+            write(lookup.getValue());
+        }
+    }
+
+    /**
+     * Write tokens of token buffer. Contiguous tokens are written as one
+     * range of source.
+     * 
+     * @param tokenBuffer
+     *            token buffer.
+     * @param fromIndex
+     *            first index of tokens (inclusive).
+     * @param toIndex
+     *            last index of tokens (exclusive).
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void write(final BlancoApexTokenBuffer tokenBuffer, final int fromIndex, final int toIndex)
+            throws IOException {
+        int rangeStart = 0;
+        int rangeEnd = 0;
+        for (int index = fromIndex; index < toIndex; index++) {
+            final int start = tokenBuffer.starts[index];
+            if (start != rangeEnd) {
+                write(tokenBuffer.source, rangeStart, rangeEnd - rangeStart);
+                rangeStart = start;
+            }
+            rangeEnd = start + tokenBuffer.lengths[index];
+        }
+        write(tokenBuffer.source, rangeStart, rangeEnd - rangeStart);
+    }
+
+    /**
+     * Write all tokens of token buffer.
+     * 
+     * @param tokenBuffer
+     *            token buffer.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void write(final BlancoApexTokenBuffer tokenBuffer) throws IOException {
+        write(tokenBuffer, 0, tokenBuffer.size());
+    }
+
+    /**
+     * Write string.
+     * 
+     * @param value
+     *            string.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void write(final String value) throws IOException {
+        final int length = value.length();
+        int index = 0;
+        while (index < length) {
+            if (charLength == charBuf.length) {
+                flushChars(false);
+            }
+            final int copyLength = Math.min(length - index, charBuf.length - charLength);
+            value.getChars(index, index + copyLength, charBuf, charLength);
+            charLength += copyLength;
+            index += copyLength;
+        }
+    }
+
+    /**
+     * Write range of chars, like unchanged range of source code.
+     * 
+     * @param buf
+     *            buffer of chars.
+     * @param offset
+     *            start of range.
+     * @param length
+     *            length of range.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void write(final char[] buf, final int offset, final int length) throws IOException {
+        if (writer != null && length >= charBuf.length) {
+            // large range goes directly.
+            flushChars(false);
+            writer.write(buf, offset, length);
+            return;
+        }
+        int index = offset;
+        final int end = offset + length;
+        while (index < end) {
+            if (charLength == charBuf.length) {
+                flushChars(false);
+            }
+            final int copyLength = Math.min(end - index, charBuf.length - charLength);
+            System.arraycopy(buf, index, charBuf, charLength, copyLength);
+            charLength += copyLength;
+            index += copyLength;
+        }
+    }
+
+    /**
+     * Write UTF-8 bytes as is, like unchanged range of source file. Bytes are
+     * decoded if output is Writer.
+     * 
+     * @param bytes
+     *            UTF-8 bytes from position to limit. Position is moved to
+     *            limit.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void writeBytes(final ByteBuffer bytes) throws IOException {
+        if (channel == null) {
+            final char[] decoded = BlancoApexParserUtil.decodeUtf8(bytes);
+            bytes.position(bytes.limit());
+            write(decoded, 0, decoded.length);
+            return;
+        }
+        flushChars(true);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Write tokens into UTF-8 file. Buffers of this writer are reused, so
+     * many files can be written by one writer.
+     * 
+     * @param file
+     *            file to write.
+     * @param tokenList
+     *            List of token.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void writeFile(final File file, final List<BlancoApexToken> tokenList) throws IOException {
+        final FileOutputStream outStream = new FileOutputStream(file);
+        try {
+            reset(outStream.getChannel());
+            write(tokenList);
+            flushChars(true);
+        } finally {
+            channel = null;
+            outStream.close();
+        }
+    }
+
+    /**
+     * Write tokens of token buffer into UTF-8 file. Buffers of this writer are
+     * reused, so many files can be written by one writer.
+     * 
+     * @param file
+     *            file to write.
+     * @param tokenBuffer
+     *            token buffer.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void writeFile(final File file, final BlancoApexTokenBuffer tokenBuffer) throws IOException {
+        final FileOutputStream outStream = new FileOutputStream(file);
+        try {
+            reset(outStream.getChannel());
+            write(tokenBuffer);
+            flushChars(true);
+        } finally {
+            channel = null;
+            outStream.close();
+        }
+    }
+
+    /**
+     * Write buffered chars into output, and flush Writer.
+     * 
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void flush() throws IOException {
+        flushChars(true);
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Flush and close output.
+     * 
+     * @throws IOException
+     *             I/O Exception.
+     */
+    public void close() throws IOException {
+        flushChars(true);
+        if (writer != null) {
+            writer.close();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        writer = null;
+        channel = null;
+    }
+
+    /**
+     * Write buffered chars into output.
+     * 
+     * @param endOfInput
+     *            true:write all, false:last high surrogate may be kept in
+     *            buffer for next low surrogate.
+     * @throws IOException
+     *             I/O Exception.
+     */
+    private void flushChars(final boolean endOfInput) throws IOException {
+        if (charLength == 0) {
+            return;
+        }
+        if (writer != null) {
+            writer.write(charBuf, 0, charLength);
+            charLength = 0;
+            return;
+        }
+        if (channel == null) {
+            throw new IllegalStateException("Output is not set.");
+        }
+
+        int byteLength = 0;
+        int index = 0;
+        for (; index < charLength; index++) {
+            final char cRead = charBuf[index];
+            if (cRead < 0x80) {
+                byteBuf[byteLength++] = (byte) cRead;
+            } else if (cRead < 0x800) {
+                byteBuf[byteLength++] = (byte) (0xc0 | (cRead >> 6));
+                byteBuf[byteLength++] = (byte) (0x80 | (cRead & 0x3f));
+            } else if (cRead < Character.MIN_SURROGATE || cRead > Character.MAX_SURROGATE) {
+                byteBuf[byteLength++] = (byte) (0xe0 | (cRead >> 12));
+                byteBuf[byteLength++] = (byte) (0x80 | ((cRead >> 6) & 0x3f));
+                byteBuf[byteLength++] = (byte) (0x80 | (cRead & 0x3f));
+            } else if (Character.isHighSurrogate(cRead) && index + 1 < charLength
+                    && Character.isLowSurrogate(charBuf[index + 1])) {
+                final int codePoint = Character.toCodePoint(cRead, charBuf[++index]);
+                byteBuf[byteLength++] = (byte) (0xf0 | (codePoint >> 18));
+                byteBuf[byteLength++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                byteBuf[byteLength++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                byteBuf[byteLength++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isHighSurrogate(cRead) && index + 1 == charLength && endOfInput == false) {
+                // low surrogate may come next.
+                break;
+            } else {
+                // lone surrogate, same as String#getBytes.
+                byteBuf[byteLength++] = '?';
+            }
+        }
+
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(byteBuf, 0, byteLength);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        if (index < charLength) {
+            charBuf[0] = charBuf[index];
+            charLength = 1;
+        } else {
+            charLength = 0;
+        }
+    }
+}
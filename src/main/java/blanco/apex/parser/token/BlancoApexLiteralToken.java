@@ -34,8 +34,25 @@ public class BlancoApexLiteralToken extends BlancoApexToken {
         UNDEFINED, STRING, NUMBER
     }
 
+    /**
+     * Type of number literal.
+     * 
+     * <ul>
+     * <li>UNDEFINED: N/A or not a number</li>
+     * <li>INTEGER: integer. ex. 123</li>
+     * <li>LONG: long with 'L' suffix. ex. 123L</li>
+     * <li>DECIMAL: decimal. ex. 1.23</li>
+     * <li>DOUBLE: double with exponent or 'd' suffix. ex. 1.23e10, 1.23d</li>
+     * </ul>
+     */
+    public enum NumberType {
+        UNDEFINED, INTEGER, LONG, DECIMAL, DOUBLE
+    }
+
     protected LiteralType literalType = LiteralType.UNDEFINED;
 
+    protected NumberType numberType = NumberType.UNDEFINED;
+
     /**
      * Constructor of token.
      * 
@@ -53,6 +70,21 @@ public class BlancoApexLiteralToken extends BlancoApexToken {
         this.literalType = literalType;
     }
 
+    /**
+     * Constructor of number literal token.
+     * 
+     * @param value
+     *            Literal string.
+     * @param lineNumber
+     *            Number of line.
+     * @param numberType
+     *            Type of number literal.
+     */
+    public BlancoApexLiteralToken(final String value, final int lineNumber, final NumberType numberType) {
+        this(value, lineNumber, LiteralType.NUMBER);
+        this.numberType = numberType;
+    }
+
     public void setLiteralType(LiteralType arg) {
         literalType = arg;
     }
@@ -61,6 +93,14 @@ public class BlancoApexLiteralToken extends BlancoApexToken {
         return literalType;
     }
 
+    public void setNumberType(final NumberType arg) {
+        numberType = arg;
+    }
+
+    public NumberType getNumberType() {
+        return numberType;
+    }
+
     /**
      * Getting String of token for display.
      * 
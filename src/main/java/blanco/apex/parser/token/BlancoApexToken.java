@@ -36,20 +36,60 @@ public abstract class BlancoApexToken {
      */
     protected int lineNumber = -1;
 
+    /**
+     * start offset on original source code (inclusive). -1 if unknown.
+     */
+    protected int startOffset = -1;
+
+    /**
+     * end offset on original source code (exclusive). -1 if unknown.
+     */
+    protected int endOffset = -1;
+
+    /**
+     * column on original source code (1 origin). -1 if unknown.
+     */
+    protected int column = -1;
+
+    /**
+     * source code buffer which value is taken from on first use. null if
+     * value is already taken.
+     */
+    private char[] lazySource;
+
+    /**
+     * start index of value in lazySource.
+     */
+    private int lazyStart;
+
+    /**
+     * length of value in lazySource.
+     */
+    private int lazyLength;
+
     /**
      * note from programmer.
      */
     protected String note;
 
     public String getValue() {
+        if (lazySource != null) {
+            takeLazyValue();
+        }
         return value;
     }
 
     public void setValue(final String arg) {
+        if (lazySource != null) {
+            takeLazyValue();
+        }
         value = arg;
     }
 
     public String getOriginalValue() {
+        if (lazySource != null) {
+            takeLazyValue();
+        }
         return originalValue;
     }
 
@@ -57,6 +97,76 @@ public abstract class BlancoApexToken {
         return lineNumber;
     }
 
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    public void setStartOffset(final int arg) {
+        startOffset = arg;
+    }
+
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    public void setEndOffset(final int arg) {
+        endOffset = arg;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public void setColumn(final int arg) {
+        column = arg;
+    }
+
+    /**
+     * Set value as a view into source code buffer. String is created on first
+     * call of {@link #getValue()}.
+     * 
+     * @param source
+     *            source code buffer. This must not be changed after this.
+     * @param start
+     *            start index of value in buffer.
+     * @param length
+     *            length of value.
+     */
+    public void setLazyValue(final char[] source, final int start, final int length) {
+        lazySource = source;
+        lazyStart = start;
+        lazyLength = length;
+        value = null;
+        originalValue = null;
+    }
+
+    /**
+     * Get char of value at index. Lazy value is read from source code buffer
+     * without creating String.
+     * 
+     * @param index
+     *            index in value.
+     * @return char at index.
+     */
+    public char charAt(final int index) {
+        if (lazySource == null) {
+            return value.charAt(index);
+        }
+        if (index < 0 || index >= lazyLength) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return lazySource[lazyStart + index];
+    }
+
+    /**
+     * Take value from source code buffer.
+     */
+    private void takeLazyValue() {
+        value = new String(lazySource, lazyStart, lazyLength);
+        originalValue = value;
+        lazySource = null;
+    }
+
     public String getNote() {
         return note;
     }
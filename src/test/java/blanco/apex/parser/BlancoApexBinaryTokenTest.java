@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexBinaryTokenTest {
+    @Test
+    public void test001() throws Exception {
+        final File file = new File("./test/data/apex/MySimpleTest.cls");
+        final List<BlancoApexToken> tokenList = new BlancoApexParser().parse(file);
+        final byte[] bytes = BlancoApexBinaryTokenWriter.toByteArray(tokenList);
+
+        // reader works from position of buffer.
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(bytes.length + 3);
+        byteBuffer.position(3);
+        byteBuffer.put(bytes);
+        byteBuffer.position(3);
+        final BlancoApexBinaryTokenReader reader = new BlancoApexBinaryTokenReader(byteBuffer);
+        assertEquals(tokenList.size(), reader.size());
+        assertEquals(BlancoApexLexicalParserTest.toDisplayString(tokenList),
+                BlancoApexLexicalParserTest.toDisplayString(reader.readTokenList()));
+        assertEquals(3, byteBuffer.position());
+
+        final BlancoApexTokenBuffer tokenBuffer = reader.readTokenBuffer();
+        assertEquals(BlancoApexParserUtil.tokenList2String(tokenList), new String(tokenBuffer.getSource()));
+        assertEquals(BlancoApexLexicalParserTest.toDisplayString(tokenList),
+                BlancoApexLexicalParserTest.toDisplayString(tokenBuffer.asTokenList()));
+        assertEquals(BlancoApexTokenBufferTest.toDisplayString(new BlancoApexParser().parseTokenBuffer(file)),
+                BlancoApexTokenBufferTest.toDisplayString(tokenBuffer));
+    }
+
+    @Test
+    public void test002() throws Exception {
+        final String source = "a = 'b\uD800' + 12L;\r\n\r\na=1.5;";
+        final byte[] bytes = BlancoApexBinaryTokenWriter
+                .toByteArray(new BlancoApexParser().parseTokenBuffer(source));
+        final BlancoApexBinaryTokenReader reader = new BlancoApexBinaryTokenReader(ByteBuffer.wrap(bytes));
+        String firstA = null;
+        while (reader.next()) {
+            if (reader.getTokenIndex() == 4) {
+                assertEquals("'b\uD800'", reader.getValue());
+                assertEquals(4, reader.getOffset());
+            } else if (reader.getTokenIndex() == 8) {
+                assertEquals(BlancoApexLexicalScanner.SUBTYPE_LONG, reader.getSubType());
+            } else if (reader.getValue().equals("a")) {
+                if (firstA == null) {
+                    firstA = reader.getValue();
+                } else {
+                    assertEquals(3, reader.getLineNumber());
+                    assertSame(firstA, reader.getValue());
+                }
+            }
+        }
+        assertEquals(source, new String(reader.readTokenBuffer().getSource()));
+    }
+
+    @Test
+    public void test004() throws Exception {
+        // offsets of filtered list are kept, and gaps are filled with spaces.
+        final String source = "a  = /* c */ b;\nc=d;";
+        final BlancoApexTokenBuffer tokenBuffer = new BlancoApexParser().parseTokenBuffer(source);
+        final List<BlancoApexToken> significantList = tokenBuffer.getSignificantTokenList();
+        final BlancoApexBinaryTokenReader reader = new BlancoApexBinaryTokenReader(
+                ByteBuffer.wrap(BlancoApexBinaryTokenWriter.toByteArray(significantList)));
+        int index = 0;
+        while (reader.next()) {
+            final BlancoApexToken lookup = significantList.get(index++);
+            assertEquals(lookup.getStartOffset(), reader.getOffset());
+            assertEquals(lookup.getValue().length(), reader.getLength());
+        }
+        assertEquals(significantList.size(), index);
+        assertEquals("a  =         b; c=d;", new String(reader.readTokenBuffer().getSource()));
+    }
+
+    @Test(expected = IOException.class)
+    public void test003() throws Exception {
+        new BlancoApexBinaryTokenReader(ByteBuffer.wrap("not a token format".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void test005() throws Exception {
+        // header is read in big endian whatever the order of buffer.
+        final String source = "a = 'b';";
+        final byte[] bytes = BlancoApexBinaryTokenWriter
+                .toByteArray(new BlancoApexParser().parseTokenBuffer(source));
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(source, new String(new BlancoApexBinaryTokenReader(byteBuffer).readTokenBuffer().getSource()));
+        assertEquals(ByteOrder.LITTLE_ENDIAN, byteBuffer.order());
+
+        // truncated string table is format error, not IndexOutOfBoundsException.
+        final BlancoApexBinaryTokenReader reader = new BlancoApexBinaryTokenReader(
+                ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)));
+        try {
+            reader.readTokenList();
+            fail();
+        } catch (IOException ex) {
+            // expected.
+        }
+
+        // truncated token section is rejected by header.
+        try {
+            new BlancoApexBinaryTokenReader(
+                    ByteBuffer.wrap(Arrays.copyOf(bytes, BlancoApexBinaryTokenWriter.HEADER_SIZE + 2)));
+            fail();
+        } catch (IOException ex) {
+            // expected.
+        }
+    }
+}
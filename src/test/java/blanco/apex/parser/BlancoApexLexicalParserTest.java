@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import org.junit.Test;
+
+import blanco.apex.parser.token.BlancoApexLiteralToken;
+import blanco.apex.parser.token.BlancoApexToken;
+import blanco.apex.parser.token.BlancoApexWordToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexLexicalParserTest {
+    static String toDisplayString(final List<BlancoApexToken> tokenList) {
+        final StringBuilder strbuf = new StringBuilder();
+        for (BlancoApexToken lookup : tokenList) {
+            strbuf.append(lookup.getDisplayString());
+            strbuf.append('@');
+            strbuf.append(lookup.getLineNumber());
+            strbuf.append('\n');
+        }
+        return strbuf.toString();
+    }
+
+    @Test
+    public void test001() throws Exception {
+        final List<BlancoApexToken> result = new BlancoApexLexicalParser().parse(//
+                "/* multi\r\n line */ a/b //single\r\n"//
+                        + "x = 'it\\'s' + \"soql\" + 123;\n"//
+                        + "\t　y");
+        assertEquals("COMMENT(MULTI_LINE)[/* multi\r\n line */]@1\n" //
+                + "WHITESPACE[ ]@2\n" //
+                + "WORD[a/b]@2\n" //
+                + "WHITESPACE[ ]@2\n" //
+                + "COMMENT(SINGLE_LINE)[//single]@2\n" //
+                + "NEWLINE[rn]@2\n" //
+                + "WORD[x]@3\n" //
+                + "WHITESPACE[ ]@3\n" //
+                + "SPECIAL_CHAR[=]@3\n" //
+                + "WHITESPACE[ ]@3\n" //
+                + "LITERAL(STRING)['it\\'s']@3\n" //
+                + "WHITESPACE[ ]@3\n" //
+                + "SPECIAL_CHAR[+]@3\n" //
+                + "WHITESPACE[ ]@3\n" //
+                + "LITERAL(STRING)[\"soql\"]@3\n" //
+                + "WHITESPACE[ ]@3\n" //
+                + "SPECIAL_CHAR[+]@3\n" //
+                + "WHITESPACE[ ]@3\n" //
+                + "LITERAL(NUMBER)[123]@3\n" //
+                + "SPECIAL_CHAR[;]@3\n" //
+                + "NEWLINE[n]@3\n" //
+                + "WHITESPACE[\t　]@4\n" //
+                + "WORD[y]@4\n", toDisplayString(result));
+    }
+
+    @Test
+    public void test002() throws Exception {
+        // same result for each input.
+        final File file = new File("./test/data/apex/MySimpleTest.cls");
+        final List<BlancoApexToken> fromFile = new BlancoApexLexicalParser().parse(file);
+        final String source = BlancoApexParserUtil.tokenList2String(fromFile);
+        assertEquals(toDisplayString(fromFile), toDisplayString(new BlancoApexLexicalParser().parse(source)));
+        assertEquals(toDisplayString(fromFile), toDisplayString(
+                new BlancoApexLexicalParser().parse(new BufferedReader(new StringReader(source)))));
+    }
+
+    @Test
+    public void test003() throws Exception {
+        final List<BlancoApexToken> result = new BlancoApexLexicalParser()
+                .parse("1 22L 3.5 4.5e-3 6d 7e 8.x 9a NaN 0.5.6");
+        assertEquals("LITERAL(NUMBER)[1]@1\n" //
+                + "LITERAL(NUMBER)[22L]@1\n" //
+                + "LITERAL(NUMBER)[3.5]@1\n" //
+                + "LITERAL(NUMBER)[4.5e-3]@1\n" //
+                + "LITERAL(NUMBER)[6d]@1\n" //
+                + "WORD[7e]@1\n" //
+                + "LITERAL(NUMBER)[8]@1\n" //
+                + "SPECIAL_CHAR[.]@1\n" //
+                + "WORD[x]@1\n" //
+                + "WORD[9a]@1\n" //
+                + "WORD[NaN]@1\n" //
+                + "LITERAL(NUMBER)[0.5]@1\n" //
+                + "SPECIAL_CHAR[.]@1\n" //
+                + "LITERAL(NUMBER)[6]@1\n", toDisplayString(result).replace("WHITESPACE[ ]@1\n", ""));
+
+        assertEquals(BlancoApexLiteralToken.NumberType.INTEGER,
+                ((BlancoApexLiteralToken) result.get(0)).getNumberType());
+        assertEquals(BlancoApexLiteralToken.NumberType.LONG, ((BlancoApexLiteralToken) result.get(2)).getNumberType());
+        assertEquals(BlancoApexLiteralToken.NumberType.DECIMAL,
+                ((BlancoApexLiteralToken) result.get(4)).getNumberType());
+        assertEquals(BlancoApexLiteralToken.NumberType.DOUBLE,
+                ((BlancoApexLiteralToken) result.get(6)).getNumberType());
+        assertEquals(BlancoApexLiteralToken.NumberType.DOUBLE,
+                ((BlancoApexLiteralToken) result.get(8)).getNumberType());
+    }
+
+    @Test
+    public void test004() throws Exception {
+        final List<BlancoApexToken> result = new BlancoApexLexicalParser()
+                .parse("PUBLIC class A extends Exception { integer i; string_ s; System.debug(i); }");
+        final StringBuilder strbuf = new StringBuilder();
+        for (BlancoApexToken lookup : result) {
+            if (lookup instanceof BlancoApexWordToken) {
+                final BlancoApexWordToken word = (BlancoApexWordToken) lookup;
+                strbuf.append(word.getValue() + (word.isReservedKeyword() ? ":K" : "")
+                        + (word.isSystemType() ? ":T" : "") + " ");
+            }
+        }
+        assertEquals("PUBLIC:K class:K A extends:K Exception:K:T integer:K:T i string_ s System:K:T debug i ",
+                strbuf.toString());
+    }
+
+    @Test
+    public void test005() throws Exception {
+        final BlancoApexLexicalParser lexicalParser = new BlancoApexLexicalParser();
+        lexicalParser.setLazyValue(true);
+        final char[] source = "/* a\r\n b */ x\r\n  y = 'z';".toCharArray();
+        final List<BlancoApexToken> result = lexicalParser.parse(source, 0, source.length);
+        final StringBuilder strbuf = new StringBuilder();
+        for (BlancoApexToken lookup : result) {
+            strbuf.append(lookup.getStartOffset() + "-" + lookup.getEndOffset() + "@" + lookup.getLineNumber() + ":"
+                    + lookup.getColumn() + " ");
+        }
+        assertEquals("0-11@1:1 11-12@2:6 12-13@2:7 13-15@2:8 15-17@3:1 17-18@3:3 18-19@3:4 19-20@3:5 20-21@3:6 "
+                + "21-24@3:7 24-25@3:10 ", strbuf.toString());
+
+        // value is taken from source on first use.
+        source[22] = 'Z';
+        assertEquals("'Z'", result.get(9).getValue());
+        source[22] = 'q';
+        assertEquals("'Z'", result.get(9).getOriginalValue());
+    }
+
+    @Test
+    public void test006() throws Exception {
+        final File file = new File("./test/data/apex/MySimpleTest.cls");
+        final String expected = toDisplayString(new BlancoApexParser().parse(file));
+
+        // same lexical parser parses files one by one.
+        final BlancoApexLexicalParser lexicalParser = new BlancoApexLexicalParser();
+        lexicalParser.setCombineSpecialChar(true);
+        final List<BlancoApexToken> first = lexicalParser.parse(file);
+        assertEquals(expected, toDisplayString(first));
+        assertEquals(6, lexicalParser.parse("x = 1;").size());
+        assertEquals(expected, toDisplayString(lexicalParser.parse(file)));
+        // returned list is not changed by next parse.
+        assertEquals(expected, toDisplayString(first));
+
+        // lexical parser of thread is reused.
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        options.setReuseLexicalParser(true);
+        assertEquals(expected, toDisplayString(new BlancoApexParser().parse(file, options)));
+        assertEquals(expected, toDisplayString(new BlancoApexParser().parse(file, options)));
+        options.setLazyValue(true);
+        assertEquals(expected, toDisplayString(new BlancoApexParser().parse(file, options)));
+        // tokens of last parse are not kept by lexical parser of thread.
+        assertEquals(0, new BlancoApexParser().createLexicalParser(options).tokenList.size());
+    }
+
+    @Test
+    public void test007() throws Exception {
+        // non ASCII at each position around 8 bytes blocks of ASCII fast path.
+        for (int prefix = 0; prefix < 20; prefix++) {
+            final StringBuilder strbuf = new StringBuilder();
+            for (int index = 0; index < prefix; index++) {
+                strbuf.append((char) ('a' + index));
+            }
+            final String source = strbuf.append("\u3042/* x */ 'y'\u00e9z").toString();
+            final byte[] bytes = ("#" + source).getBytes("UTF-8");
+            final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+            byteBuffer.position(1);
+            assertEquals(source, new String(BlancoApexParserUtil.decodeUtf8(byteBuffer)));
+            byteBuffer.position(1);
+            byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(source, new String(BlancoApexParserUtil.decodeUtf8(byteBuffer)));
+        }
+    }
+}
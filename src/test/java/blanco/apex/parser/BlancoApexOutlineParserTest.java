@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexOutlineParserTest {
+    static String toDisplayString(final List<BlancoApexOutlineElement> elements, final String indent) {
+        final StringBuilder strbuf = new StringBuilder();
+        for (BlancoApexOutlineElement lookup : elements) {
+            strbuf.append(indent + lookup.getKind() + ":" + lookup.getName() + "@" + lookup.getLineNumber()
+                    + lookup.getAnnotations() + "[" + lookup.getSignature() + "]\n");
+            strbuf.append(toDisplayString(lookup.getChildren(), indent + "  "));
+        }
+        return strbuf.toString();
+    }
+
+    @Test
+    public void test001() throws Exception {
+        final String source = "/* doc { */\n" //
+                + "@isTest\n" //
+                + "public with sharing class Foo extends Bar {\n" //
+                + "    private static final Map<String, Integer> M = new Map<String, Integer>{ 'a' => 1 };\n" //
+                + "    private Integer count = calc(1);\n" //
+                + "    Map<String, Integer> m = new Map<String, Integer>();\n" //
+                + "    public static final String NAME = String.valueOf(3);\n" //
+                + "    @AuraEnabled(cacheable=true) public String name { get; set; }\n" //
+                + "    public Foo() { this('}'); }\n" //
+                + "    static { init(); }\n" //
+                + "    public static List<Account> find(String s, Integer i) {\n" //
+                + "        if (s == null) { return [SELECT Id FROM Account]; }\n" //
+                + "        return null;\n" //
+                + "    }\n" //
+                + "    public enum Season { WINTER, SUMMER }\n" //
+                + "    interface Shape { Decimal area(); }\n" //
+                + "    class Inner { Integer x, y; }\n" //
+                + "}\n" //
+                + "trigger AccountTrigger on Account (before insert) { System.debug('x'); }\n";
+        final List<BlancoApexOutlineElement> result = new BlancoApexOutlineParser().parse(source);
+        assertEquals("1:Foo@2[@isTest][public with sharing class Foo extends Bar]\n" //
+                + "  8:M@4[][private static final Map<String, Integer> M = new Map<String, Integer>{ 'a' => 1 }]\n" //
+                + "  8:count@5[][private Integer count = calc(1)]\n" //
+                + "  8:m@6[][Map<String, Integer> m = new Map<String, Integer>()]\n" //
+                + "  8:NAME@7[][public static final String NAME = String.valueOf(3)]\n" //
+                + "  7:name@8[@AuraEnabled(cacheable=true)][public String name]\n" //
+                + "  6:Foo@9[][public Foo()]\n" //
+                + "  9:null@10[][static]\n" //
+                + "  5:find@11[][public static List<Account> find(String s, Integer i)]\n" //
+                + "  3:Season@15[][public enum Season]\n" //
+                + "  2:Shape@16[][interface Shape]\n" //
+                + "    5:area@16[][Decimal area()]\n" //
+                + "  1:Inner@17[][class Inner]\n" //
+                + "    8:y@17[][Integer x, y]\n" //
+                + "4:AccountTrigger@19[][trigger AccountTrigger on Account (before insert)]\n",
+                toDisplayString(result, ""));
+
+        // body is lexed on demand, same as lexing of whole source.
+        final BlancoApexOutlineElement find = result.get(0).getChildren().get(7);
+        final BlancoApexTokenBuffer body = find.getBodyTokenBuffer();
+        final BlancoApexTokenBuffer whole = new BlancoApexParser().parseTokenBuffer(source);
+        final int first = whole.getLineIndex().tokenAt(find.getBodyStartOffset());
+        for (int index = 0; index < body.size(); index++) {
+            assertEquals(whole.getValue(first + index), body.getValue(index));
+            assertEquals(whole.getStart(first + index), body.getStart(index));
+            assertEquals(whole.getLineNumber(first + index), body.getLineNumber(index));
+            assertEquals(whole.getColumn(first + index), body.getColumn(index));
+        }
+        assertEquals("}", body.getValue(body.size() - 1));
+        assertEquals(find.getEndOffset(), body.getEnd(body.size() - 1));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexParseMetricsTest {
+    @Test
+    public void test001() throws Exception {
+        final File source = new File("./test/data/apex/MySimpleTest.cls");
+        final List<BlancoApexParseMetrics> metricsList = new ArrayList<BlancoApexParseMetrics>();
+        final BlancoApexParseMetricsAggregator aggregator = new BlancoApexParseMetricsAggregator();
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        options.setParseListener(new BlancoApexParseListener() {
+            public boolean isEnabled() {
+                return true;
+            }
+
+            public void onParseStart(final File file) {
+                aggregator.onParseStart(file);
+            }
+
+            public void onParse(final BlancoApexParseMetrics metrics) {
+                metricsList.add(metrics);
+                aggregator.onParse(metrics);
+            }
+        });
+
+        final String expected = BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(source));
+        assertEquals(expected,
+                BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(source, options)));
+        assertEquals(expected, BlancoApexLexicalParserTest
+                .toDisplayString(new BlancoApexParser().parseTokenBuffer(source, options).asTokenList()));
+
+        assertEquals(2, metricsList.size());
+        final BlancoApexParseMetrics metrics = metricsList.get(0);
+        assertEquals(source, metrics.getFile());
+        assertEquals(source.length(), metrics.getBytesRead());
+        assertEquals(source.length(), metrics.getCharsDecoded());
+        assertEquals(new BlancoApexParser().parse(source).size(), metrics.getTokenCount());
+        assertEquals(6, metrics.getTokenCount(BlancoApexLexicalScanner.KIND_NEWLINE));
+        assertEquals(1, metrics.getTokenCount(BlancoApexLexicalScanner.KIND_COMMENT));
+        assertEquals(0, metrics.getCombinedSpecialCharCount());
+        assertEquals(metrics.getTokenCount(), metricsList.get(1).getTokenCount());
+
+        assertEquals(2, aggregator.getFileCount());
+        assertEquals(source.length() * 2, aggregator.getBytesRead());
+        assertEquals(metrics.getTokenCount() * 2, aggregator.getTokenCount());
+        assertEquals(metrics.getTokenCount(), aggregator.getMaxTokenCount());
+        long histogramCount = 0;
+        for (long lookup : aggregator.getKilotokensPerSecondHistogram()) {
+            histogramCount += lookup;
+        }
+        assertEquals(2, histogramCount);
+    }
+
+    @Test
+    public void test002() throws Exception {
+        assertEquals(0, BlancoApexParseMetricsAggregator.getBucket(0.5));
+        assertEquals(1, BlancoApexParseMetricsAggregator.getBucket(1.0));
+        assertEquals(2, BlancoApexParseMetricsAggregator.getBucket(3.9));
+        assertEquals(11, BlancoApexParseMetricsAggregator.getBucket(1024.0));
+        assertEquals(BlancoApexParseMetricsAggregator.BUCKET_COUNT - 1,
+                BlancoApexParseMetricsAggregator.getBucket(1.0E30));
+    }
+
+    @Test
+    public void test003() throws Exception {
+        // disabled listener is not called, and metrics are taken on the
+        // memory mapped path too.
+        final File source = new File("./test/data/apex/MySimpleTest.cls");
+        final List<BlancoApexParseMetrics> metricsList = new ArrayList<BlancoApexParseMetrics>();
+        final boolean[] enabled = new boolean[] { false };
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        options.setParseListener(new BlancoApexParseListener() {
+            public boolean isEnabled() {
+                return enabled[0];
+            }
+
+            public void onParseStart(final File file) {
+                if (enabled[0] == false) {
+                    throw new IllegalStateException("Called while disabled.");
+                }
+            }
+
+            public void onParse(final BlancoApexParseMetrics metrics) {
+                metricsList.add(metrics);
+            }
+        });
+        final int tokenCount = new BlancoApexParser().parse(source, options).size();
+        assertEquals(0, metricsList.size());
+
+        enabled[0] = true;
+        options.setMemoryMapped(true);
+        new BlancoApexParser().parse(source, options);
+        assertEquals(1, metricsList.size());
+        assertEquals(tokenCount, metricsList.get(0).getTokenCount());
+        assertEquals(source.length(), metricsList.get(0).getCharsDecoded());
+    }
+
+    @Test
+    public void test004() throws Exception {
+        // counting tokens and building pair index do not take lazy values.
+        final char[] source = "a(b += 1);".toCharArray();
+        final BlancoApexLexicalParser lexicalParser = new BlancoApexLexicalParser();
+        lexicalParser.setCombineSpecialChar(true);
+        lexicalParser.setLazyValue(true);
+        final List<BlancoApexToken> tokenList = lexicalParser.parse(source, 0, source.length);
+        final BlancoApexParseMetrics metrics = new BlancoApexParseMetrics(null);
+        metrics.countTokens(tokenList);
+        final BlancoApexPairIndex pairIndex = BlancoApexPairIndex.build(tokenList);
+        assertEquals(1, metrics.getCombinedSpecialCharCount());
+        assertEquals(7, pairIndex.getPair(1));
+
+        // values not taken yet see the change of source.
+        source[4] = '-';
+        source[8] = ']';
+        assertEquals("-=", tokenList.get(4).getValue());
+        assertEquals("]", tokenList.get(7).getValue());
+    }
+}
@@ -15,6 +15,8 @@
  */
 package blanco.apex.parser;
 
+import static org.junit.Assert.assertEquals;
+
 import java.util.List;
 
 import org.junit.Test;
@@ -45,4 +47,19 @@ public class BlancoApexParserCombineTest {
             System.out.print(lookup.getValue());
         }
     }
+
+    @Test
+    public void test002() throws Exception {
+        final List<BlancoApexToken> result = new BlancoApexParser().parse(//
+                "a>>>=b;c===d=>e;List<List<Id>> f;g<<=h!==i++;");
+        final StringBuilder strbuf = new StringBuilder();
+        for (BlancoApexToken lookup : result) {
+            strbuf.append(lookup.getDisplayString());
+        }
+        assertEquals("WORD[a]SPECIAL_CHAR[>>>=]WORD[b]SPECIAL_CHAR[;]" //
+                + "WORD[c]SPECIAL_CHAR[===]WORD[d]SPECIAL_CHAR[=>]WORD[e]SPECIAL_CHAR[;]" //
+                + "WORD[List]SPECIAL_CHAR[<]WORD[List]SPECIAL_CHAR[<]WORD[Id]SPECIAL_CHAR[>>]WHITESPACE[ ]WORD[f]SPECIAL_CHAR[;]" //
+                + "WORD[g]SPECIAL_CHAR[<<=]WORD[h]SPECIAL_CHAR[!==]WORD[i]SPECIAL_CHAR[++]SPECIAL_CHAR[;]",
+                strbuf.toString());
+    }
 }
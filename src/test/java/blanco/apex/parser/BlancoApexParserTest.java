@@ -15,10 +15,15 @@
  */
 package blanco.apex.parser;
 
+import static org.junit.Assert.assertEquals;
+
 import java.io.File;
+import java.io.FileOutputStream;
 import java.util.List;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import blanco.apex.parser.token.BlancoApexToken;
 
@@ -28,6 +33,9 @@ import blanco.apex.parser.token.BlancoApexToken;
  * @author Toshiki Iga
  */
 public class BlancoApexParserTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void test001() throws Exception {
         final List<BlancoApexToken> result = new BlancoApexParser()
@@ -37,4 +45,27 @@ public class BlancoApexParserTest {
             System.out.println(lookup.getDisplayString());
         }
     }
+
+    @Test
+    public void test002() throws Exception {
+        final File file = folder.newFile("Mapped.cls");
+        final FileOutputStream outStream = new FileOutputStream(file);
+        try {
+            outStream.write("public class Mapped {\n    String str1 = '文字列1';\n    // \uD83D\uDE00\n}\n"
+                    .getBytes("UTF-8"));
+            // malformed UTF-8.
+            outStream.write(new byte[] { '/', '/', (byte) 0xE6, (byte) 0x96, ' ', (byte) 0xFF, '\n' });
+        } finally {
+            outStream.close();
+        }
+
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        options.setMemoryMapped(true);
+        assertEquals(BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(file)),
+                BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(file, options)));
+
+        final File ascii = new File("./test/data/apex/MySimpleTest.cls");
+        assertEquals(BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(ascii)),
+                BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(ascii, options)));
+    }
 }
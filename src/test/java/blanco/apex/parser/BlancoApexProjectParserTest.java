@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexProjectParserTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    void write(final String path, final String content) throws IOException {
+        final File file = new File(folder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        final FileOutputStream outStream = new FileOutputStream(file);
+        try {
+            outStream.write(content.getBytes("UTF-8"));
+        } finally {
+            outStream.close();
+        }
+    }
+
+    @Test
+    public void test001() throws Exception {
+        write("classes/B.cls", "public class B {}");
+        write("classes/A.cls", "public class A {}");
+        write("classes/A.cls-meta.xml", "<xml/>");
+        write("triggers/T.trigger", "trigger T on Account (before insert) {}");
+        write("triggers/Broken.trigger", "trigger Broken on Account (before insert) {}");
+
+        final BlancoApexProjectParser parser = new BlancoApexProjectParser() {
+            @Override
+            protected List<BlancoApexToken> parseFile(final File file) throws IOException {
+                if (file.getName().startsWith("Broken")) {
+                    throw new IOException("broken");
+                }
+                return super.parseFile(file);
+            }
+        };
+        parser.setParallelism(3);
+        final List<BlancoApexProjectParser.Result> resultList = parser.parse(folder.getRoot());
+
+        assertEquals(4, resultList.size());
+        assertEquals("classes/A.cls", resultList.get(0).getPath());
+        assertEquals("classes/B.cls", resultList.get(1).getPath());
+        assertEquals("triggers/Broken.trigger", resultList.get(2).getPath());
+        assertEquals("triggers/T.trigger", resultList.get(3).getPath());
+        assertEquals("WORD[A]", resultList.get(0).getTokenList().get(4).getDisplayString());
+        assertFalse(resultList.get(2).isSucceeded());
+        assertEquals("broken", resultList.get(2).getError().getMessage());
+        assertTrue(resultList.get(3).isSucceeded());
+    }
+
+    @Test
+    public void test002() throws Exception {
+        write("classes/A.cls", "public class A {}");
+        write("classes/ATest.cls", "public class ATest {}");
+        write("triggers/T.trigger", "trigger T on Account (before insert) {}");
+
+        final BlancoApexProjectParser parser = new BlancoApexProjectParser();
+        parser.setOrdered(false);
+        parser.addInclude("classes/*.cls");
+        parser.addExclude("*Test.cls");
+        final List<String> pathList = new ArrayList<String>();
+        parser.parse(folder.getRoot(), new BlancoApexProjectParser.ResultHandler() {
+            public void onResult(final BlancoApexProjectParser.Result result) {
+                pathList.add(result.getPath());
+            }
+        });
+        Collections.sort(pathList);
+        assertEquals("[classes/A.cls]", pathList.toString());
+    }
+
+    @Test
+    public void test003() throws Exception {
+        assertTrue(BlancoApexProjectParser.globToPattern("**/classes/*.cls").matcher("a/b/classes/X.cls").matches());
+        assertTrue(BlancoApexProjectParser.globToPattern("**/classes/*.cls").matcher("classes/X.cls").matches());
+        assertFalse(BlancoApexProjectParser.globToPattern("classes/*.cls").matcher("classes/x/X.cls").matches());
+        assertTrue(BlancoApexProjectParser.globToPattern("X?.cls").matcher("a/X1.cls").matches());
+    }
+
+    @Test
+    public void test004() throws Exception {
+        write("classes/A.cls", "public class A {}");
+        // link to parent makes a cycle. skipped where ln is not available.
+        final File link = new File(folder.getRoot(), "classes/loop");
+        try {
+            final Process process = new ProcessBuilder("ln", "-s", "..", link.getPath()).start();
+            Assume.assumeTrue(process.waitFor() == 0);
+        } catch (IOException ex) {
+            Assume.assumeNoException(ex);
+        }
+
+        final List<BlancoApexProjectParser.Result> resultList = new BlancoApexProjectParser()
+                .parse(folder.getRoot());
+        assertEquals(1, resultList.size());
+        assertEquals("classes/A.cls", resultList.get(0).getPath());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexQueryLexerTest {
+    static String toTypeString(final List<BlancoApexQueryToken> tokenList) {
+        final StringBuilder strbuf = new StringBuilder();
+        for (BlancoApexQueryToken lookup : tokenList) {
+            strbuf.append(lookup.getType() + "[" + lookup.getValue() + "]");
+        }
+        return strbuf.toString();
+    }
+
+    @Test
+    public void test001() throws Exception {
+        final String source = "List<Account> a = [SELECT Id, Owner.Name,\n (SELECT Id FROM Contacts)"
+                + " FROM Account\n WHERE Id IN :ids AND CreatedDate = LAST_N_DAYS:30"
+                + " AND x__c != :acc.Items[0].Id LIMIT 10];\nx[0] = 1;";
+        final BlancoApexLexicalParser lexicalParser = new BlancoApexLexicalParser();
+        lexicalParser.setBuildQueryIndex(true);
+        final BlancoApexTokenBuffer tokenBuffer = lexicalParser.parseTokenBuffer(source.toCharArray(), 0,
+                source.length());
+        final BlancoApexQueryIndex queryIndex = tokenBuffer.getQueryIndex();
+        assertEquals(1, queryIndex.size());
+
+        final BlancoApexQueryRegion region = queryIndex.getRegion(0);
+        assertEquals(BlancoApexQueryRegion.KIND_SOQL, region.getKind());
+        assertEquals("[", tokenBuffer.getValue(region.getStartIndex()));
+        assertEquals("]", tokenBuffer.getValue(region.getEndIndex()));
+        assertEquals(source.indexOf("];") + 1, region.getEndOffset());
+        assertEquals(region, queryIndex.findRegion(region.getStartIndex() + 3));
+        assertNull(queryIndex.findRegion(region.getEndIndex() + 1));
+
+        // same as built on demand.
+        final BlancoApexQueryIndex onDemand = new BlancoApexParser().parseTokenBuffer(source).getQueryIndex();
+        assertEquals(1, onDemand.size());
+        assertEquals(region.getEndOffset(), onDemand.getRegion(0).getEndOffset());
+
+        final List<BlancoApexQueryToken> tokenList = region.getQueryTokenList();
+        assertEquals("1[SELECT]2[Id]7[,]2[Owner.Name]7[,]7[(]1[SELECT]2[Id]1[FROM]2[Contacts]7[)]1[FROM]2[Account]"
+                + "1[WHERE]2[Id]1[IN]3[:ids]1[AND]2[CreatedDate]7[=]4[LAST_N_DAYS:30]1[AND]2[x__c]7[!=]"
+                + "3[:acc.Items[0].Id]1[LIMIT]6[10]", toTypeString(tokenList));
+        assertEquals(1, tokenList.get(0).getLineNumber());
+        assertEquals(3, tokenList.get(tokenList.size() - 1).getLineNumber());
+        assertEquals(source.indexOf("Owner"), tokenList.get(3).getOffset());
+    }
+
+    @Test
+    public void test002() throws Exception {
+        final BlancoApexQueryIndex queryIndex = new BlancoApexParser()
+                .parseTokenBuffer("a = [ /* c */ find {Acme*} IN ALL FIELDS RETURNING Account(Name)];\n"
+                        + "b = [SELECT Id FROM Event WHERE ActivityDate > 2016-09-27 OR d < TODAY];\n"
+                        + "c = [ 1, 2 ];\nd = [SELECT Id FROM")
+                .getQueryIndex();
+        assertEquals(2, queryIndex.size());
+        assertEquals(BlancoApexQueryRegion.KIND_SOSL, queryIndex.getRegion(0).getKind());
+        assertEquals(" /* c */ find {Acme*} IN ALL FIELDS RETURNING Account(Name)",
+                queryIndex.getRegion(0).getQueryString());
+        assertEquals(2, queryIndex.getRegion(1).getLineNumber());
+        assertEquals("2[Event]1[WHERE]2[ActivityDate]7[>]4[2016-09-27]1[OR]2[d]7[<]4[TODAY]",
+                toTypeString(queryIndex.getRegion(1).getQueryTokenList().subList(3, 12)));
+        assertEquals("5[{Acme*}]1[IN]", toTypeString(
+                new BlancoApexQueryLexer().parse("find {Acme*} IN ALL FIELDS").subList(1, 3)));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexSignificantTokenListTest {
+    @Test
+    public void test001() throws Exception {
+        final List<BlancoApexToken> tokenList = new BlancoApexParser().parse("a = /* c */ b;\n// d\nc");
+        final BlancoApexSignificantTokenList significantList = BlancoApexSignificantTokenList.build(tokenList);
+        final StringBuilder strbuf = new StringBuilder();
+        for (BlancoApexToken lookup : significantList) {
+            strbuf.append("[" + lookup.getValue() + "]");
+        }
+        assertEquals("[a][=][b][;][c]", strbuf.toString());
+        assertSame(tokenList.get(6), significantList.get(2));
+        assertEquals(6, significantList.getTokenIndex(2));
+        assertEquals(2, significantList.indexOfTokenIndex(6));
+        assertEquals(-1, significantList.indexOfTokenIndex(4));
+        assertEquals(6, significantList.nextTokenIndex(3));
+        assertEquals(7, significantList.nextTokenIndex(6));
+        assertEquals(-1, significantList.nextTokenIndex(tokenList.size() - 1));
+        assertEquals(2, significantList.previousTokenIndex(6));
+        assertEquals(-1, significantList.previousTokenIndex(0));
+    }
+
+    @Test
+    public void test002() throws Exception {
+        final String source = "public class A {\n  /** doc */\n  void m() { x++; }\n}\n";
+        final BlancoApexTokenBuffer tokenBuffer = new BlancoApexParser().parseTokenBuffer(source);
+        final BlancoApexSignificantTokenList fromBuffer = tokenBuffer.getSignificantTokenList();
+        final BlancoApexSignificantTokenList fromList = BlancoApexSignificantTokenList
+                .build(new BlancoApexParser().parse(source));
+        assertEquals(fromList.size(), fromBuffer.size());
+        for (int index = 0; index < fromList.size(); index++) {
+            assertEquals(fromList.getTokenIndex(index), fromBuffer.getTokenIndex(index));
+            assertEquals(fromList.get(index).getValue(), fromBuffer.get(index).getValue());
+        }
+        // token objects are shared with full list view.
+        assertSame(tokenBuffer.asTokenList().get(fromBuffer.getTokenIndex(3)), fromBuffer.get(3));
+    }
+}
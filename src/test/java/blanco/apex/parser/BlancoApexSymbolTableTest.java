@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Test;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexSymbolTableTest {
+    @Test
+    public void test001() throws Exception {
+        final File file = new File("./test/data/apex/MySimpleTest.cls");
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        options.setSymbolTable(new BlancoApexSymbolTable(BlancoApexSymbolTable.DEFAULT_CAPACITY));
+        final List<BlancoApexToken> result1 = new BlancoApexParser().parse(file, options);
+        final List<BlancoApexToken> result2 = new BlancoApexParser().parse(file, options);
+        assertEquals(BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(file)),
+                BlancoApexLexicalParserTest.toDisplayString(result1));
+
+        for (int index = 0; index < result1.size(); index++) {
+            final int kind = BlancoApexParserUtil.getKind(result1.get(index));
+            if (kind != BlancoApexLexicalScanner.KIND_LITERAL && kind != BlancoApexLexicalScanner.KIND_COMMENT) {
+                // all but literals and comments are shared.
+                assertSame(result1.get(index).getValue(), result2.get(index).getValue());
+            }
+        }
+    }
+
+    @Test
+    public void test002() throws Exception {
+        final BlancoApexSymbolTable symbolTable = new BlancoApexSymbolTable(16);
+        final char[] buf = "a >>= b;\r\n    'str'".toCharArray();
+        assertSame(">>=", symbolTable.intern(BlancoApexLexicalScanner.KIND_SPECIAL_CHAR, buf, 2, 3));
+        assertSame(";", symbolTable.intern(BlancoApexLexicalScanner.KIND_SPECIAL_CHAR, buf, 7, 1));
+        assertSame("\r\n", symbolTable.intern(BlancoApexLexicalScanner.KIND_NEWLINE, buf, 8, 2));
+        assertSame("    ", symbolTable.intern(BlancoApexLexicalScanner.KIND_WHITESPACE, buf, 10, 4));
+        assertSame(symbolTable.intern(BlancoApexLexicalScanner.KIND_WORD, buf, 0, 1),
+                symbolTable.intern(BlancoApexLexicalScanner.KIND_WORD, "a".toCharArray(), 0, 1));
+        assertNotSame(symbolTable.intern(BlancoApexLexicalScanner.KIND_LITERAL, buf, 14, 5),
+                symbolTable.intern(BlancoApexLexicalScanner.KIND_LITERAL, buf, 14, 5));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexTokenBufferTest {
+    @Test
+    public void test001() throws Exception {
+        final File file = new File("./test/data/apex/MySimpleTest.cls");
+        final List<BlancoApexToken> expected = new BlancoApexParser().parse(file);
+        final BlancoApexTokenBuffer tokenBuffer = new BlancoApexParser().parseTokenBuffer(file);
+
+        assertEquals(expected.size(), tokenBuffer.size());
+        assertEquals(BlancoApexLexicalParserTest.toDisplayString(expected),
+                BlancoApexLexicalParserTest.toDisplayString(tokenBuffer.asTokenList()));
+
+        final List<BlancoApexToken> tokenList = tokenBuffer.asTokenList();
+        assertSame(tokenList.get(3), tokenList.get(3));
+    }
+
+    @Test
+    public void test002() throws Exception {
+        final BlancoApexTokenBuffer tokenBuffer = new BlancoApexParser().parseTokenBuffer("a <= 'b'\n1L");
+        assertEquals(7, tokenBuffer.size());
+        assertEquals(BlancoApexLexicalScanner.KIND_SPECIAL_CHAR, tokenBuffer.getKind(2));
+        assertEquals("<=", tokenBuffer.getValue(2));
+        assertEquals(2, tokenBuffer.getStart(2));
+        assertEquals(4, tokenBuffer.getEnd(2));
+        assertEquals(BlancoApexLexicalScanner.KIND_LITERAL, tokenBuffer.getKind(4));
+        assertEquals(BlancoApexLexicalScanner.SUBTYPE_STRING, tokenBuffer.getSubType(4));
+        assertEquals(BlancoApexLexicalScanner.SUBTYPE_LONG, tokenBuffer.getSubType(6));
+        assertEquals(2, tokenBuffer.getLineNumber(6));
+    }
+
+    static String toDisplayString(final BlancoApexTokenBuffer tokenBuffer) {
+        final StringBuilder strbuf = new StringBuilder();
+        for (int index = 0; index < tokenBuffer.size(); index++) {
+            strbuf.append(tokenBuffer.getKind(index) + "/" + tokenBuffer.getSubType(index) + "["
+                    + tokenBuffer.getValue(index) + "]" + tokenBuffer.getStart(index) + "@"
+                    + tokenBuffer.getLineNumber(index) + ":" + tokenBuffer.getColumn(index) + "\n");
+        }
+        return strbuf.toString();
+    }
+
+    @Test
+    public void test003() throws Exception {
+        final BlancoApexParser parser = new BlancoApexParser();
+        BlancoApexTokenBuffer tokenBuffer = parser.parseTokenBuffer("a = 1;\nb = 'x';\nc = 2;\n");
+        tokenBuffer = parser.reparseTokenBuffer(tokenBuffer, 7, 0, "/* new\n*/ ");
+        assertEquals("a = 1;\n/* new\n*/ b = 'x';\nc = 2;\n", new String(tokenBuffer.getSource()));
+        assertEquals(toDisplayString(parser.parseTokenBuffer(new String(tokenBuffer.getSource()))),
+                toDisplayString(tokenBuffer));
+        assertEquals("c", tokenBuffer.getValue(tokenBuffer.size() - 7));
+        assertEquals(4, tokenBuffer.getLineNumber(tokenBuffer.size() - 7));
+    }
+
+    @Test
+    public void test004() throws Exception {
+        // random edits gives same result as parse of whole source.
+        final String[] pieces = new String[] { "a", "1", ".", "e", "-", "<", "=", ">", "/", "*", "'", "\"", " ",
+                "\r", "\n", "\\", "//", "/*", "*/", ">>=", "\r\n", "\t" };
+        final Random random = new Random(12345);
+        final BlancoApexParser parser = new BlancoApexParser();
+        for (int count = 0; count < 300; count++) {
+            final StringBuilder strbuf = new StringBuilder();
+            for (int index = random.nextInt(40); index > 0; index--) {
+                strbuf.append(pieces[random.nextInt(pieces.length)]);
+            }
+            BlancoApexTokenBuffer tokenBuffer = parser.parseTokenBuffer(strbuf.toString());
+            for (int edit = 0; edit < 5; edit++) {
+                final int length = tokenBuffer.getSource().length;
+                final int offset = random.nextInt(length + 1);
+                final int removedLength = random.nextInt(Math.min(length - offset, 4) + 1);
+                final String insertedText = random.nextBoolean() ? "" : pieces[random.nextInt(pieces.length)];
+                tokenBuffer = parser.reparseTokenBuffer(tokenBuffer, offset, removedLength, insertedText);
+                assertEquals(toDisplayString(parser.parseTokenBuffer(new String(tokenBuffer.getSource()))),
+                        toDisplayString(tokenBuffer));
+            }
+        }
+    }
+
+    static String toPairString(final BlancoApexPairIndex pairIndex) {
+        final StringBuilder strbuf = new StringBuilder();
+        for (int index = 0; index < pairIndex.size(); index++) {
+            if (pairIndex.getPair(index) >= 0) {
+                strbuf.append(index + ">" + pairIndex.getPair(index) + " ");
+            }
+        }
+        return strbuf.toString();
+    }
+
+    @Test
+    public void test005() throws Exception {
+        final String source = "{m(){x[1]=(2);}}";
+        final BlancoApexLexicalParser lexicalParser = new BlancoApexLexicalParser();
+        lexicalParser.setBuildPairIndex(true);
+        final BlancoApexTokenBuffer tokenBuffer = lexicalParser.parseTokenBuffer(source.toCharArray(), 0,
+                source.length());
+        final BlancoApexPairIndex pairIndex = tokenBuffer.getPairIndex();
+        assertEquals("0>15 2>3 3>2 4>14 6>8 8>6 10>12 12>10 14>4 15>0 ", toPairString(pairIndex));
+        assertEquals(false, pairIndex.isUnbalanced());
+        // same as built on demand, and from token list.
+        assertEquals(toPairString(pairIndex),
+                toPairString(new BlancoApexParser().parseTokenBuffer(source).getPairIndex()));
+        assertEquals(toPairString(pairIndex),
+                toPairString(BlancoApexPairIndex.build(new BlancoApexParser().parse(source))));
+
+        // "(" inside is left unmatched, and "]" has no partner.
+        final BlancoApexPairIndex unbalanced = new BlancoApexParser().parseTokenBuffer("{(}]").getPairIndex();
+        assertEquals("0>2 2>0 ", toPairString(unbalanced));
+        assertEquals(true, unbalanced.isUnbalanced());
+        assertEquals(true, new BlancoApexParser().parseTokenBuffer("((x)").getPairIndex().isUnbalanced());
+    }
+
+    @Test
+    public void test006() throws Exception {
+        final BlancoApexLineIndex lineIndex = new BlancoApexParser()
+                .parseTokenBuffer("a = 1;\r\n/* b\n c */ d\n\ne").getLineIndex();
+        assertEquals(5, lineIndex.getLineCount());
+        assertEquals(8, lineIndex.getLineStartOffset(2));
+        assertEquals(13, lineIndex.getLineStartOffset(3));
+        final StringBuilder strbuf = new StringBuilder();
+        for (BlancoApexToken lookup : lineIndex.tokensOnLine(2)) {
+            strbuf.append("[" + lookup.getValue() + "]");
+        }
+        assertEquals("[/* b\n c */]", strbuf.toString());
+        // comment ends on line 3.
+        assertEquals(3, lineIndex.tokensOnLine(3).size());
+        assertEquals("d", lineIndex.tokensOnLine(3).get(1).getValue());
+        assertEquals(2, lineIndex.getLineNumberOf(12));
+        assertEquals(3, lineIndex.getLineNumberOf(13));
+        assertEquals(-1, lineIndex.tokenAt(100));
+    }
+
+    @Test
+    public void test007() throws Exception {
+        // line index agrees with line and column of each token.
+        final String[] pieces = new String[] { "a", "1", " ", "'", "\r", "\n", "\r\n", "/*", "*/", "//", "\t" };
+        final Random random = new Random(54321);
+        for (int count = 0; count < 500; count++) {
+            final StringBuilder strbuf = new StringBuilder();
+            for (int index = random.nextInt(40); index > 0; index--) {
+                strbuf.append(pieces[random.nextInt(pieces.length)]);
+            }
+            final BlancoApexTokenBuffer tokenBuffer = new BlancoApexParser().parseTokenBuffer(strbuf.toString());
+            final BlancoApexLineIndex lineIndex = tokenBuffer.getLineIndex();
+            for (int index = 0; index < tokenBuffer.size(); index++) {
+                final int start = tokenBuffer.getStart(index);
+                final int lineNumber = tokenBuffer.getLineNumber(index);
+                assertEquals(lineNumber, lineIndex.getLineNumberOf(start));
+                assertEquals(tokenBuffer.getColumn(index), lineIndex.getColumnOf(start));
+                assertEquals(index, lineIndex.tokenAt(start));
+                assertEquals(index, lineIndex.tokenAt(tokenBuffer.getEnd(index) - 1));
+                assertEquals(true, lineIndex.getFirstTokenIndex(lineNumber) <= index);
+                assertEquals(true, index < lineIndex.getEndTokenIndex(lineNumber));
+            }
+        }
+    }
+}
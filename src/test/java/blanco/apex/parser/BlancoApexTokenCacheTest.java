@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexTokenCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File write(final String path, final byte[] content) throws IOException {
+        final File file = new File(folder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        final FileOutputStream outStream = new FileOutputStream(file);
+        try {
+            outStream.write(content);
+        } finally {
+            outStream.close();
+        }
+        return file;
+    }
+
+    static String parse(final File file, final BlancoApexParserOptions options) throws IOException {
+        return BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(file, options));
+    }
+
+    @Test
+    public void test001() throws Exception {
+        final File cacheDir = new File(folder.getRoot(), "cache");
+        final BlancoApexTokenCache tokenCache = new BlancoApexTokenCache(cacheDir, 1024 * 1024);
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        options.setTokenCache(tokenCache);
+
+        final File source = new File("./test/data/apex/MySimpleTest.cls");
+        final String expected = BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(source));
+        final byte[] bytes = BlancoApexTokenCache.readBytes(source);
+        final File file1 = write("a/MySimpleTest.cls", bytes);
+        final File file2 = write("b/MySimpleTest.cls", bytes);
+
+        assertEquals(expected, parse(file1, options));
+        assertEquals(expected, parse(file2, options));
+        assertEquals(expected, parse(file1, options));
+        assertEquals(1, tokenCache.getMissCount());
+        assertEquals(2, tokenCache.getHitCount());
+        // identical files share one entry.
+        assertEquals(1, cacheDir.listFiles().length);
+
+        // broken entry is miss.
+        write("cache/" + cacheDir.listFiles()[0].getName(), new byte[] { 1, 2, 3 });
+        assertEquals(expected, parse(file2, options));
+        assertEquals(2, tokenCache.getMissCount());
+    }
+
+    @Test
+    public void test002() throws Exception {
+        final File cacheDir = new File(folder.getRoot(), "cache");
+        // room for about two entries. each of 3 tokens takes 4 bytes.
+        final BlancoApexTokenCache tokenCache = new BlancoApexTokenCache(cacheDir,
+                2 * (BlancoApexTokenCache.HEADER_SIZE + 4 * 3) + 10);
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        options.setTokenCache(tokenCache);
+
+        for (int index = 0; index < 5; index++) {
+            final File file = write("A" + index + ".cls", ("a " + index).getBytes("UTF-8"));
+            new BlancoApexParser().parse(file, options);
+        }
+        assertEquals(2, cacheDir.listFiles().length);
+    }
+
+    @Test
+    public void test003() throws Exception {
+        // directory is scanned once, then size is estimated per store.
+        final File cacheDir = new File(folder.getRoot(), "cache");
+        final BlancoApexTokenCache tokenCache = new BlancoApexTokenCache(cacheDir, 1024 * 1024);
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        options.setTokenCache(tokenCache);
+        new BlancoApexParser().parse(write("A0.cls", "a 0".getBytes("UTF-8")), options);
+
+        // entry stored by other JVM is not seen until next scan.
+        write("cache/other" + BlancoApexTokenCache.ENTRY_SUFFIX, new byte[2 * 1024 * 1024]);
+        new BlancoApexParser().parse(write("A1.cls", "a 1".getBytes("UTF-8")), options);
+        assertEquals(3, cacheDir.listFiles().length);
+
+        tokenCache.evict();
+        long totalSize = 0;
+        for (File lookup : cacheDir.listFiles()) {
+            totalSize += lookup.length();
+        }
+        assertEquals(true, totalSize <= 1024 * 1024);
+    }
+
+    @Test
+    public void test004() throws Exception {
+        // columns are derived on load, after CRLF, lone CR and comments.
+        final File cacheDir = new File(folder.getRoot(), "cache");
+        final BlancoApexTokenCache tokenCache = new BlancoApexTokenCache(cacheDir, 1024 * 1024);
+        final BlancoApexParserOptions options = new BlancoApexParserOptions();
+        options.setTokenCache(tokenCache);
+        final File file = write("A.cls", "a = 1; /* x\r\n  y */ b\r c\r\n  // d\n\td = 'e';".getBytes("UTF-8"));
+
+        final String expected = BlancoApexTokenBufferTest
+                .toDisplayString(new BlancoApexParser().parseTokenBuffer(file));
+        assertEquals(expected,
+                BlancoApexTokenBufferTest.toDisplayString(new BlancoApexParser().parseTokenBuffer(file, options)));
+        assertEquals(expected,
+                BlancoApexTokenBufferTest.toDisplayString(new BlancoApexParser().parseTokenBuffer(file, options)));
+        assertEquals(1, tokenCache.getHitCount());
+
+        // truncated entry is miss.
+        final File entryFile = cacheDir.listFiles()[0];
+        final byte[] entry = BlancoApexTokenCache.readBytes(entryFile);
+        write("cache/" + entryFile.getName(), Arrays.copyOf(entry, entry.length - 1));
+        assertEquals(expected,
+                BlancoApexTokenBufferTest.toDisplayString(new BlancoApexParser().parseTokenBuffer(file, options)));
+        assertEquals(2, tokenCache.getMissCount());
+    }
+}
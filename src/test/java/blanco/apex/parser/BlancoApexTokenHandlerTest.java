@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexTokenHandlerTest {
+    /**
+     * Handler which rebuilds display string of tokens.
+     */
+    static class DisplayStringHandler implements BlancoApexTokenHandler {
+        final StringBuilder strbuf = new StringBuilder();
+
+        int nextOffset = 0;
+
+        void fire(final int kind, final int subType, final CharSequence text, final int offset, final int length,
+                final int lineNumber) {
+            assertEquals(nextOffset, offset);
+            assertEquals(length, text.length());
+            nextOffset = offset + length;
+
+            final BlancoApexToken token = BlancoApexParserUtil.createToken(kind, subType, text.toString(),
+                    lineNumber);
+            strbuf.append(token.getDisplayString() + "@" + lineNumber + "\n");
+        }
+
+        public void onWord(CharSequence text, int offset, int length, int lineNumber) {
+            fire(BlancoApexLexicalScanner.KIND_WORD, 0, text, offset, length, lineNumber);
+        }
+
+        public void onLiteral(CharSequence text, int subType, int offset, int length, int lineNumber) {
+            fire(BlancoApexLexicalScanner.KIND_LITERAL, subType, text, offset, length, lineNumber);
+        }
+
+        public void onComment(CharSequence text, int subType, int offset, int length, int lineNumber) {
+            fire(BlancoApexLexicalScanner.KIND_COMMENT, subType, text, offset, length, lineNumber);
+        }
+
+        public void onSpecialChar(CharSequence text, int offset, int length, int lineNumber) {
+            fire(BlancoApexLexicalScanner.KIND_SPECIAL_CHAR, 0, text, offset, length, lineNumber);
+        }
+
+        public void onWhitespace(CharSequence text, int offset, int length, int lineNumber) {
+            fire(BlancoApexLexicalScanner.KIND_WHITESPACE, 0, text, offset, length, lineNumber);
+        }
+
+        public void onNewline(CharSequence text, int offset, int length, int lineNumber) {
+            fire(BlancoApexLexicalScanner.KIND_NEWLINE, 0, text, offset, length, lineNumber);
+        }
+    }
+
+    @Test
+    public void test001() throws Exception {
+        final List<BlancoApexToken> expected = new BlancoApexParser().parse(BlancoApexTokenStreamTest.SOURCE);
+
+        final DisplayStringHandler fromString = new DisplayStringHandler();
+        new BlancoApexParser().parse(BlancoApexTokenStreamTest.SOURCE, fromString);
+        assertEquals(BlancoApexLexicalParserTest.toDisplayString(expected), fromString.strbuf.toString());
+
+        final DisplayStringHandler fromReader = new DisplayStringHandler();
+        new BlancoApexParser().parse(new StringReader(BlancoApexTokenStreamTest.SOURCE), fromReader);
+        assertEquals(BlancoApexLexicalParserTest.toDisplayString(expected), fromReader.strbuf.toString());
+    }
+}
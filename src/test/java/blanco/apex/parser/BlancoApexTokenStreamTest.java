@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexTokenStreamTest {
+    static final String SOURCE = "/* header\r\n * comment\r\n */\r\n" //
+            + "public class MyClass {\r\n" //
+            + "    // single line\r\n" //
+            + "    public void myMethod() {\r\n" //
+            + "        String str1 = 'it\\'s \"quoted\"';\r\n" //
+            + "        if (i >>>= 1.5e-3 && a/b != 100L) { x++; }\r\n" //
+            + "    }\r\n" //
+            + "}\r\n \t";
+
+    @Test
+    public void test001() throws Exception {
+        final String expected = BlancoApexLexicalParserTest.toDisplayString(new BlancoApexParser().parse(SOURCE));
+        // small buffer to make tokens cross the buffer boundary.
+        for (int bufferSize = 1; bufferSize < 40; bufferSize++) {
+            final BlancoApexTokenStream stream = new BlancoApexTokenStream(new StringReader(SOURCE), bufferSize,
+                    true);
+            final List<BlancoApexToken> tokenList = new ArrayList<BlancoApexToken>();
+            while (stream.hasNext()) {
+                tokenList.add(stream.next());
+            }
+            stream.close();
+            assertEquals(expected, BlancoApexLexicalParserTest.toDisplayString(tokenList));
+        }
+    }
+
+    @Test
+    public void test002() throws Exception {
+        final BlancoApexTokenStream stream = new BlancoApexParser().parseStream(new StringReader("a<=b"));
+        try {
+            assertEquals("WORD[a]", stream.nextToken().getDisplayString());
+            assertEquals("SPECIAL_CHAR[<=]", stream.nextToken().getDisplayString());
+            assertEquals("WORD[b]", stream.nextToken().getDisplayString());
+            assertEquals(null, stream.nextToken());
+            assertFalse(stream.hasNext());
+        } finally {
+            stream.close();
+        }
+    }
+}
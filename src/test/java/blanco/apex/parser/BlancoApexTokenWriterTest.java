@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 Toshiki Iga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package blanco.apex.parser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+
+import org.junit.Test;
+
+import blanco.apex.parser.token.BlancoApexToken;
+
+/**
+ * Simple Apex language lexical parser.
+ *
+ * @author Toshiki Iga
+ */
+public class BlancoApexTokenWriterTest {
+    @Test
+    public void test001() throws Exception {
+        // surrogate pair and multi byte chars across small buffer.
+        final String source = "String s = 'a\u00e9\u3042\ud83d\ude00b\ud83d\ude01';\n/* \u3042\u3044 */ x = 1;";
+        final List<BlancoApexToken> tokenList = new BlancoApexParser().parse(source);
+        for (int bufferSize = 2; bufferSize < 12; bufferSize++) {
+            final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            final BlancoApexTokenWriter writer = new BlancoApexTokenWriter(bufferSize);
+            writer.reset(Channels.newChannel(outStream));
+            writer.write(tokenList);
+            writer.flush();
+            assertArrayEquals(source.getBytes("UTF-8"), outStream.toByteArray());
+
+            final StringWriter stringWriter = new StringWriter();
+            writer.reset(stringWriter);
+            writer.write(new BlancoApexParser().parseTokenBuffer(source));
+            writer.flush();
+            assertEquals(source, stringWriter.toString());
+        }
+    }
+
+    @Test
+    public void test002() throws Exception {
+        final File file = new File("./test/data/apex/MySimpleTest.cls");
+        final BlancoApexTokenBuffer tokenBuffer = new BlancoApexParser().parseTokenBuffer(file);
+        final String expected = new String(tokenBuffer.getSource());
+
+        final BlancoApexTokenWriter writer = new BlancoApexTokenWriter(BlancoApexTokenWriter.DEFAULT_BUFFER_SIZE);
+        final File outFile = File.createTempFile("blancoApexTokenWriter", ".cls");
+        try {
+            writer.writeFile(outFile, tokenBuffer);
+            assertEquals(expected, new String(BlancoApexParserUtil.readAllMapped(outFile)));
+            writer.writeFile(outFile, tokenBuffer.asTokenList());
+            assertEquals(expected, new String(BlancoApexParserUtil.readAllMapped(outFile)));
+        } finally {
+            outFile.delete();
+        }
+
+        // unchanged range as bytes, then tokens.
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        writer.reset(Channels.newChannel(outStream));
+        writer.write("/* \u3042 */");
+        writer.writeBytes(ByteBuffer.wrap(expected.getBytes("UTF-8")));
+        writer.flush();
+        assertEquals("/* \u3042 */" + expected, new String(outStream.toByteArray(), "UTF-8"));
+    }
+}